@@ -0,0 +1,146 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.opensagres.xdocreport.benchmarks.TemplateEngineBenchmark.Developer;
+import fr.opensagres.xdocreport.benchmarks.TemplateEngineBenchmark.Project;
+import fr.opensagres.xdocreport.document.IXDocReport;
+import fr.opensagres.xdocreport.document.registry.XDocReportRegistry;
+import fr.opensagres.xdocreport.template.IContext;
+import fr.opensagres.xdocreport.template.TemplateEngineKind;
+import fr.opensagres.xdocreport.template.formatter.FieldsMetadata;
+
+/**
+ * Throughput of the merge of word/document.xml of a cached docx report shared by 1, 4 and all available threads. The
+ * throughput must grow with the number of threads while there are free cores: threads must not wait for each other
+ * to get the template engine or the cached template.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ConcurrentMergeBenchmark
+{
+
+    @State( Scope.Benchmark )
+    public static class ReportState
+    {
+
+        @Param( { "Freemarker", "Velocity" } )
+        public String templateEngineKind;
+
+        private IXDocReport report;
+
+        @Setup
+        public void setup()
+            throws Exception
+        {
+            String sample = "DocxProjectWith" + templateEngineKind + "List.docx";
+            report =
+                new XDocReportRegistry().loadReport( new ByteArrayInputStream( Samples.load( sample ) ),
+                                                     TemplateEngineKind.valueOf( templateEngineKind ) );
+            FieldsMetadata metadata = report.createFieldsMetadata();
+            metadata.addFieldAsList( "developers.name" );
+            metadata.addFieldAsList( "developers.lastName" );
+            metadata.addFieldAsList( "developers.mail" );
+            report.preprocess();
+        }
+    }
+
+    /**
+     * Each thread merges with its own context (template engines store loop variables in the context).
+     */
+    @State( Scope.Thread )
+    public static class ContextState
+    {
+
+        private IContext context;
+
+        @Setup
+        public void setup( ReportState state )
+            throws Exception
+        {
+            context = state.report.createContext();
+            context.put( "project", new Project( "XDocReport" ) );
+            List<Developer> list = new ArrayList<Developer>();
+            for ( int i = 0; i < 10; i++ )
+            {
+                list.add( new Developer( "Name" + i, "LastName" + i, "developer" + i + "@xdocreport.org" ) );
+            }
+            context.put( "developers", list );
+        }
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public long mergeWith1Thread( ReportState report, ContextState context )
+        throws Exception
+    {
+        return merge( report, context );
+    }
+
+    @Benchmark
+    @Threads( 4 )
+    public long mergeWith4Threads( ReportState report, ContextState context )
+        throws Exception
+    {
+        return merge( report, context );
+    }
+
+    @Benchmark
+    @Threads( Threads.MAX )
+    public long mergeWithMaxThreads( ReportState report, ContextState context )
+        throws Exception
+    {
+        return merge( report, context );
+    }
+
+    private static long merge( ReportState report, ContextState context )
+        throws Exception
+    {
+        NullOutputStream out = new NullOutputStream();
+        report.report.process( context.context, "word/document.xml", out );
+        return out.getSize();
+    }
+}
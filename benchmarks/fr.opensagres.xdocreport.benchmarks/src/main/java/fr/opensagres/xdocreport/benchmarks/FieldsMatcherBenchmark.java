@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.opensagres.xdocreport.core.io.XDocArchive;
+import fr.opensagres.xdocreport.document.docx.preprocessor.sax.DocxPreprocessor;
+import fr.opensagres.xdocreport.template.formatter.FieldsMetadata;
+import fr.opensagres.xdocreport.template.freemarker.FreemarkerDocumentFormatter;
+
+/**
+ * Benchmarks of the search of the fields list in the characters of a table row with a large fields metadata (like
+ * invoice templates which declare hundreds of fields list) : linear search with {@link String#contains(CharSequence)}
+ * versus the fields matcher, and preprocessing of a docx with a table row.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class FieldsMatcherBenchmark
+{
+
+    @Param( { "10", "400" } )
+    public int fields;
+
+    private FieldsMetadata fieldsMetadata;
+
+    private String[] contents;
+
+    private byte[] entry;
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        fieldsMetadata = new FieldsMetadata();
+        fieldsMetadata.addFieldAsList( "developers.name" );
+        fieldsMetadata.addFieldAsList( "developers.lastName" );
+        fieldsMetadata.addFieldAsList( "developers.mail" );
+        for ( int i = 0; i < fields; i++ )
+        {
+            fieldsMetadata.addFieldAsList( "invoice.lines.field" + i );
+        }
+        contents =
+            new String[] { "${developers.name}", "Lorem ipsum dolor sit amet, consectetur adipiscing elit",
+                "${invoice.lines.field" + ( fields - 1 ) + "}", "MERGEFIELD  ${developers.mail}  \\* MERGEFORMAT" };
+
+        XDocArchive archive =
+            XDocArchive.readZip( new ByteArrayInputStream( Samples.load( "DocxProjectWithFreemarkerList.docx" ) ) );
+        entry = archive.getEntryInputStream( "word/document.xml" ).readAllBytes();
+    }
+
+    @Benchmark
+    public int contains()
+    {
+        int count = 0;
+        Collection<String> fieldsAsList = fieldsMetadata.getFieldsAsList();
+        for ( String content : contents )
+        {
+            List<String> matched = new ArrayList<String>();
+            for ( String fieldName : fieldsAsList )
+            {
+                if ( content.contains( fieldName ) )
+                {
+                    matched.add( fieldName );
+                }
+            }
+            count += matched.size();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int matcher()
+    {
+        int count = 0;
+        for ( String content : contents )
+        {
+            count += fieldsMetadata.getFieldsAsListMatcher().findAll( content ).size();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public long preprocess()
+        throws Exception
+    {
+        NullOutputStream out = new NullOutputStream();
+        Writer writer = new OutputStreamWriter( out, "UTF-8" );
+        new DocxPreprocessor().preprocess( "word/document.xml", new ByteArrayInputStream( entry ), writer,
+                                           fieldsMetadata, new FreemarkerDocumentFormatter(),
+                                           new HashMap<String, Object>() );
+        writer.flush();
+        return out.getSize();
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.opensagres.xdocreport.core.io.XDocArchive;
+import fr.opensagres.xdocreport.document.docx.images.DocxImageRegistry;
+import fr.opensagres.xdocreport.document.images.ByteArrayImageProvider;
+import fr.opensagres.xdocreport.document.images.ImageProviderInfo;
+import fr.opensagres.xdocreport.template.formatter.FieldsMetadata;
+
+/**
+ * Benchmarks of the registration of dynamic images in a docx report : registration of the image providers,
+ * computation of the image size and save of the binary images in the archive.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class ImageRegistryBenchmark
+{
+
+    @Param( { "1", "100" } )
+    public int images;
+
+    private byte[][] samples;
+
+    private FieldsMetadata fieldsMetadata;
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        samples = new byte[][] { Samples.load( "logo.png" ), Samples.load( "AngeloZERR.jpg" ) };
+        fieldsMetadata = new FieldsMetadata();
+        fieldsMetadata.addFieldAsImage( "logo" );
+    }
+
+    @Benchmark
+    public XDocArchive registerImages()
+        throws Exception
+    {
+        XDocArchive archive = new XDocArchive();
+        DocxImageRegistry registry = new DocxImageRegistry( archive, archive, archive, fieldsMetadata );
+        registry.preProcess();
+        for ( int i = 0; i < images; i++ )
+        {
+            ImageProviderInfo info =
+                registry.registerImage( new ByteArrayImageProvider( samples[i % samples.length], true ), "logo",
+                                        null );
+            registry.getPath( info, null );
+            registry.getWidth( info, null );
+            registry.getHeight( info, null );
+        }
+        registry.postProcess();
+        return archive;
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.odftoolkit.odfdom.doc.OdfTextDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.opensagres.odfdom.converter.pdf.PdfConverter;
+import fr.opensagres.odfdom.converter.pdf.PdfOptions;
+import fr.opensagres.odfdom.converter.xhtml.XHTMLConverter;
+import fr.opensagres.odfdom.converter.xhtml.XHTMLOptions;
+
+/**
+ * Benchmarks of the ODFDOM based odt to PDF and XHTML converters. Load of the odt is included in the measure because
+ * a converted document cannot be reused.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class ODTConverterBenchmark
+{
+
+    @Param( { "small", "medium", "huge" } )
+    public String size;
+
+    private byte[] odt;
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        odt = Samples.load( Samples.getODT( size ) );
+    }
+
+    @Benchmark
+    public long pdf()
+        throws Exception
+    {
+        OdfTextDocument document = OdfTextDocument.loadDocument( new ByteArrayInputStream( odt ) );
+        NullOutputStream out = new NullOutputStream();
+        PdfConverter.getInstance().convert( document, out, PdfOptions.create() );
+        return out.getSize();
+    }
+
+    @Benchmark
+    public long xhtml()
+        throws Exception
+    {
+        OdfTextDocument document = OdfTextDocument.loadDocument( new ByteArrayInputStream( odt ) );
+        NullOutputStream out = new NullOutputStream();
+        XHTMLConverter.getInstance().convert( document, out, XHTMLOptions.create() );
+        return out.getSize();
+    }
+}
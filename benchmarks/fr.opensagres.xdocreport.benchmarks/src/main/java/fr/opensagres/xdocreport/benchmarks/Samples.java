@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import fr.opensagres.xdocreport.core.io.IOUtils;
+
+/**
+ * Sample documents used by the benchmarks. Samples are the documents of the tests of the other modules, copied in
+ * the jar of the benchmarks by the build.
+ */
+public class Samples
+{
+
+    private static final String SAMPLES_FOLDER = "samples/";
+
+    /**
+     * Returns the docx document of the given size (small, medium, huge).
+     * 
+     * @param size
+     * @return
+     */
+    public static String getDocx( String size )
+    {
+        if ( "small".equals( size ) )
+        {
+            return "TestPageNumber.docx";
+        }
+        if ( "medium".equals( size ) )
+        {
+            return "DocxBig.docx";
+        }
+        if ( "huge".equals( size ) )
+        {
+            return "Issue318.docx";
+        }
+        throw new IllegalArgumentException( "Unknown size " + size );
+    }
+
+    /**
+     * Returns the odt document of the given size (small, medium, huge).
+     * 
+     * @param size
+     * @return
+     */
+    public static String getODT( String size )
+    {
+        if ( "small".equals( size ) )
+        {
+            return "TestPageNumber.odt";
+        }
+        if ( "medium".equals( size ) )
+        {
+            return "CV.odt";
+        }
+        if ( "huge".equals( size ) )
+        {
+            return "ODTBig.odt";
+        }
+        throw new IllegalArgumentException( "Unknown size " + size );
+    }
+
+    /**
+     * Returns the content of the given sample.
+     * 
+     * @param name
+     * @return
+     * @throws IOException
+     */
+    public static byte[] load( String name )
+        throws IOException
+    {
+        InputStream in = Samples.class.getResourceAsStream( SAMPLES_FOLDER + name );
+        if ( in == null )
+        {
+            throw new IOException( "Cannot find the sample " + name );
+        }
+        try
+        {
+            return IOUtils.toByteArray( in );
+        }
+        finally
+        {
+            IOUtils.closeQuietly( in );
+        }
+    }
+}
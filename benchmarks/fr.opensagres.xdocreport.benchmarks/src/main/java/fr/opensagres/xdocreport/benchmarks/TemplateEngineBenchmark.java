@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.opensagres.xdocreport.document.IXDocReport;
+import fr.opensagres.xdocreport.document.registry.XDocReportRegistry;
+import fr.opensagres.xdocreport.template.IContext;
+import fr.opensagres.xdocreport.template.TemplateEngineKind;
+import fr.opensagres.xdocreport.template.formatter.FieldsMetadata;
+
+/**
+ * Benchmarks of the merge of a preprocessed docx report with Freemarker and Velocity. "merge" measures only the
+ * template engine on word/document.xml, "process" measures the generation of the whole docx (merge + zip).
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class TemplateEngineBenchmark
+{
+
+    @Param( { "Freemarker", "Velocity" } )
+    public String templateEngineKind;
+
+    @Param( { "10", "1000" } )
+    public int developers;
+
+    private IXDocReport report;
+
+    private IContext context;
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        String sample = "DocxProjectWith" + templateEngineKind + "List.docx";
+        report =
+            new XDocReportRegistry().loadReport( new ByteArrayInputStream( Samples.load( sample ) ),
+                                                 TemplateEngineKind.valueOf( templateEngineKind ) );
+        FieldsMetadata metadata = report.createFieldsMetadata();
+        metadata.addFieldAsList( "developers.name" );
+        metadata.addFieldAsList( "developers.lastName" );
+        metadata.addFieldAsList( "developers.mail" );
+        report.preprocess();
+
+        context = report.createContext();
+        context.put( "project", new Project( "XDocReport" ) );
+        List<Developer> list = new ArrayList<Developer>();
+        for ( int i = 0; i < developers; i++ )
+        {
+            list.add( new Developer( "Name" + i, "LastName" + i, "developer" + i + "@xdocreport.org" ) );
+        }
+        context.put( "developers", list );
+    }
+
+    @Benchmark
+    public long merge()
+        throws Exception
+    {
+        NullOutputStream out = new NullOutputStream();
+        report.process( context, "word/document.xml", out );
+        return out.getSize();
+    }
+
+    @Benchmark
+    public long process()
+        throws Exception
+    {
+        NullOutputStream out = new NullOutputStream();
+        report.process( context, out );
+        return out.getSize();
+    }
+
+    public static class Project
+    {
+
+        private final String name;
+
+        public Project( String name )
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+    }
+
+    public static class Developer
+    {
+
+        private final String name;
+
+        private final String lastName;
+
+        private final String mail;
+
+        public Developer( String name, String lastName, String mail )
+        {
+            this.name = name;
+            this.lastName = lastName;
+            this.mail = mail;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public String getLastName()
+        {
+            return lastName;
+        }
+
+        public String getMail()
+        {
+            return mail;
+        }
+    }
+}
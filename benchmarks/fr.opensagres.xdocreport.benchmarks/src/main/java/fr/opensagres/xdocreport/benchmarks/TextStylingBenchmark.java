@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.opensagres.xdocreport.document.docx.textstyling.DocxDocumentHandler;
+import fr.opensagres.xdocreport.document.textstyling.IDocumentHandler;
+import fr.opensagres.xdocreport.document.textstyling.ITextStylingTransformer;
+import fr.opensagres.xdocreport.document.textstyling.html.HTMLTextStylingTransformer;
+import fr.opensagres.xdocreport.document.textstyling.html.StreamingHTMLTextStylingTransformer;
+import fr.opensagres.xdocreport.template.IContext;
+import fr.opensagres.xdocreport.template.freemarker.internal.XDocFreemarkerContext;
+
+/**
+ * Benchmarks of the transformation of small HTML contents to docx : SAX parser with the HTML 4.0 entities DOCTYPE
+ * versus the streaming HTML tokenizer.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class TextStylingBenchmark
+{
+
+    private static final String SHORT_CONTENT = "<b>Bold</b> and <i>italic</i> &eacute;t&eacute;";
+
+    private static final String LONG_CONTENT =
+        "<h1>Title</h1><p style=\"font-weight:bold;\">Lorem ipsum&nbsp;dolor sit amet, <a href=\"http://example.com\">"
+            + "consectetur</a> adipiscing elit</p><ul><li>item&nbsp;1</li><li><strong>item 2</strong></li></ul>"
+            + "<table border=\"1\"><tr><td>A &amp; B</td><td>&lt;C&gt;</td></tr></table>";
+
+    @Param( { "short", "long" } )
+    public String content;
+
+    private String html;
+
+    private IContext context;
+
+    @Setup
+    public void setup()
+    {
+        html = "short".equals( content ) ? SHORT_CONTENT : LONG_CONTENT;
+        context = new XDocFreemarkerContext();
+    }
+
+    @Benchmark
+    public String sax()
+        throws Exception
+    {
+        return transform( HTMLTextStylingTransformer.INSTANCE );
+    }
+
+    @Benchmark
+    public String streaming()
+        throws Exception
+    {
+        return transform( StreamingHTMLTextStylingTransformer.INSTANCE );
+    }
+
+    private String transform( ITextStylingTransformer transformer )
+        throws Exception
+    {
+        IDocumentHandler handler = new DocxDocumentHandler( null, context, "word/document.xml" );
+        transformer.transform( html, handler );
+        return handler.getTextBody();
+    }
+}
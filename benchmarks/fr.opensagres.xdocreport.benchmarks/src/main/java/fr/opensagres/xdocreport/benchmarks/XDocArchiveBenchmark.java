@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.opensagres.xdocreport.core.io.XDocArchive;
+
+/**
+ * Benchmarks of the load (readZip), copy (createCopy) and save (writeZip) of a docx archive.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class XDocArchiveBenchmark
+{
+
+    @Param( { "small", "medium", "huge" } )
+    public String size;
+
+    private byte[] zip;
+
+    private XDocArchive archive;
+
+    @Setup
+    public void setup()
+        throws IOException
+    {
+        zip = Samples.load( Samples.getDocx( size ) );
+        archive = XDocArchive.readZip( new ByteArrayInputStream( zip ) );
+    }
+
+    @Benchmark
+    public XDocArchive readZip()
+        throws IOException
+    {
+        return XDocArchive.readZip( new ByteArrayInputStream( zip ) );
+    }
+
+    @Benchmark
+    public XDocArchive createCopy()
+    {
+        return archive.createCopy();
+    }
+
+    @Benchmark
+    public long writeZip()
+        throws IOException
+    {
+        NullOutputStream out = new NullOutputStream();
+        XDocArchive.writeZip( archive, out );
+        return out.getSize();
+    }
+
+    @Benchmark
+    public long writeZipModified()
+        throws IOException
+    {
+        // the merged entry must be compressed again
+        XDocArchive copy = archive.createCopy();
+        XDocArchive.setEntry( copy, "word/document.xml", copy.getEntryInputStream( "word/document.xml" ) );
+        NullOutputStream out = new NullOutputStream();
+        XDocArchive.writeZip( copy, out );
+        return out.getSize();
+    }
+}
@@ -0,0 +1,329 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import fr.opensagres.poi.xwpf.converter.xhtml.SimpleContentHandler;
+import fr.opensagres.poi.xwpf.converter.xhtml.XHTMLConverter;
+import fr.opensagres.poi.xwpf.converter.xhtml.XHTMLOptions;
+
+/**
+ * Benchmarks of the XHTML serializer used by the docx to XHTML converter. The SAX events emitted by the converter are
+ * recorded once and replayed into the buffered {@link SimpleContentHandler} and into the previous implementation
+ * which wrote each token to the output stream with {@link String#getBytes()}. The "null" sink measures the
+ * serialization alone, the "file" sink adds the cost of the writes to an unbuffered {@link FileOutputStream}.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class XHTMLSerializerBenchmark
+{
+
+    @Param( { "small", "medium", "huge" } )
+    public String size;
+
+    @Param( { "0", "2" } )
+    public int indent;
+
+    @Param( { "null", "file" } )
+    public String sink;
+
+    private SAXRecorder events;
+
+    private File file;
+
+    @Setup
+    public void setup()
+        throws Exception
+    {
+        // DocxBig.docx is seen as a zip bomb by POI
+        ZipSecureFile.setMinInflateRatio( 0 );
+        XWPFDocument document = new XWPFDocument( new ByteArrayInputStream( Samples.load( Samples.getDocx( size ) ) ) );
+        events = new SAXRecorder();
+        ( (XHTMLConverter) XHTMLConverter.getInstance() ).convert( document, events, XHTMLOptions.create() );
+        file = File.createTempFile( "xdocreport-benchmark", ".html" );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        file.delete();
+    }
+
+    @Benchmark
+    public long buffered()
+        throws Exception
+    {
+        OutputStream out = createOutputStream();
+        try
+        {
+            events.replay( new SimpleContentHandler( out, getIndent() ) );
+        }
+        finally
+        {
+            out.close();
+        }
+        return file.length();
+    }
+
+    @Benchmark
+    public long unbuffered()
+        throws Exception
+    {
+        OutputStream out = createOutputStream();
+        try
+        {
+            events.replay( new UnbufferedContentHandler( out, getIndent() ) );
+        }
+        finally
+        {
+            out.close();
+        }
+        return file.length();
+    }
+
+    private OutputStream createOutputStream()
+        throws IOException
+    {
+        return "file".equals( sink ) ? new FileOutputStream( file ) : new NullOutputStream();
+    }
+
+    private Integer getIndent()
+    {
+        return indent > 0 ? indent : null;
+    }
+
+    /**
+     * Records the events of the converter.
+     */
+    private static class SAXRecorder
+        extends DefaultHandler
+    {
+
+        private static final int START = 0;
+
+        private static final int END = 1;
+
+        private static final int CHARACTERS = 2;
+
+        private final List<Object[]> events = new ArrayList<Object[]>();
+
+        @Override
+        public void startElement( String uri, String localName, String name, Attributes attributes )
+        {
+            events.add( new Object[] { START, uri, localName, name, new AttributesImpl( attributes ) } );
+        }
+
+        @Override
+        public void endElement( String uri, String localName, String name )
+        {
+            events.add( new Object[] { END, uri, localName, name } );
+        }
+
+        @Override
+        public void characters( char[] ch, int start, int length )
+        {
+            char[] characters = new char[length];
+            System.arraycopy( ch, start, characters, 0, length );
+            events.add( new Object[] { CHARACTERS, characters } );
+        }
+
+        public void replay( ContentHandler handler )
+            throws SAXException
+        {
+            handler.startDocument();
+            for ( Object[] event : events )
+            {
+                switch ( (Integer) event[0] )
+                {
+                    case START:
+                        handler.startElement( (String) event[1], (String) event[2], (String) event[3],
+                                              (Attributes) event[4] );
+                        break;
+                    case END:
+                        handler.endElement( (String) event[1], (String) event[2], (String) event[3] );
+                        break;
+                    default:
+                        char[] characters = (char[]) event[1];
+                        handler.characters( characters, 0, characters.length );
+                }
+            }
+            handler.endDocument();
+        }
+    }
+
+    /**
+     * Previous implementation of {@link SimpleContentHandler} (output stream only), kept as the baseline.
+     */
+    private static class UnbufferedContentHandler
+        extends DefaultHandler
+    {
+
+        private final OutputStream out;
+
+        private final Integer indent;
+
+        private final StringBuilder currentCharacters = new StringBuilder();
+
+        private boolean startingElement;
+
+        private int nbElements;
+
+        private boolean firstElement = true;
+
+        public UnbufferedContentHandler( OutputStream out, Integer indent )
+        {
+            this.out = out;
+            this.indent = indent;
+        }
+
+        @Override
+        public void startElement( String uri, String localName, String name, Attributes attributes )
+            throws SAXException
+        {
+            if ( startingElement )
+            {
+                write( ">" );
+            }
+            if ( currentCharacters.length() > 0 )
+            {
+                write( currentCharacters.toString() );
+                currentCharacters.setLength( 0 );
+            }
+            doIndentIfNeeded();
+            write( "<" );
+            write( localName );
+            for ( int i = 0; i < attributes.getLength(); i++ )
+            {
+                write( " " );
+                write( attributes.getLocalName( i ) );
+                write( "=\"" );
+                write( attributes.getValue( i ) );
+                write( "\"" );
+            }
+            startingElement = true;
+            firstElement = false;
+            nbElements++;
+        }
+
+        private void doIndentIfNeeded()
+            throws SAXException
+        {
+            if ( indent == null || firstElement )
+            {
+                return;
+            }
+            StringBuilder content = new StringBuilder( "\n" );
+            for ( int i = 0; i < nbElements; i++ )
+            {
+                for ( int j = 0; j < indent; j++ )
+                {
+                    content.append( ' ' );
+                }
+            }
+            write( content.toString() );
+        }
+
+        @Override
+        public void endElement( String uri, String localName, String name )
+            throws SAXException
+        {
+            nbElements--;
+            if ( currentCharacters.length() > 0 )
+            {
+                write( currentCharacters.toString() );
+                currentCharacters.setLength( 0 );
+            }
+            if ( startingElement )
+            {
+                write( "/>" );
+                startingElement = false;
+            }
+            else
+            {
+                doIndentIfNeeded();
+                write( "</" );
+                write( localName );
+                write( ">" );
+            }
+        }
+
+        @Override
+        public void characters( char[] ch, int start, int length )
+            throws SAXException
+        {
+            if ( startingElement )
+            {
+                write( ">" );
+            }
+            startingElement = false;
+            currentCharacters.append( ch, start, length );
+        }
+
+        private void write( String content )
+            throws SAXException
+        {
+            try
+            {
+                out.write( content.getBytes() );
+            }
+            catch ( IOException e )
+            {
+                throw new SAXException( e );
+            }
+        }
+    }
+}
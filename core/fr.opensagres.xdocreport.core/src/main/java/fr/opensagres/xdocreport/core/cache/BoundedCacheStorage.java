@@ -0,0 +1,290 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.core.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe {@link ICacheStorage} implementation bounded by a maximum weight : the weight of each entry is computed
+ * with a {@link ICacheWeigher} (1 by entry if no weigher is given) and when the total weight exceeds the maximum
+ * weight, the least recently used entries are evicted. Hits, misses and evictions are counted.
+ * 
+ * @param <K>
+ * @param <V>
+ */
+public class BoundedCacheStorage<K, V>
+    implements ICacheStorage<K, V>
+{
+
+    private final long maximumWeight;
+
+    private final ICacheWeigher<? super K, ? super V> weigher;
+
+    /**
+     * Entries ordered from the least recently used to the most recently used.
+     */
+    private final LinkedHashMap<K, WeightedValue<V>> map;
+
+    private long weight;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    public BoundedCacheStorage( long maximumWeight )
+    {
+        this( maximumWeight, null );
+    }
+
+    public BoundedCacheStorage( long maximumWeight, ICacheWeigher<? super K, ? super V> weigher )
+    {
+        if ( maximumWeight < 0 )
+        {
+            throw new IllegalArgumentException( "Maximum weight cannot be negative." );
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.map = new LinkedHashMap<K, WeightedValue<V>>( 16, 0.75f, true );
+    }
+
+    public synchronized V get( K key )
+    {
+        WeightedValue<V> value = map.get( key );
+        if ( value == null )
+        {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return value.value;
+    }
+
+    public void put( K key, V value )
+    {
+        // compute the weight outside the lock
+        long valueWeight = weigh( key, value );
+        synchronized ( this )
+        {
+            WeightedValue<V> oldValue = map.put( key, new WeightedValue<V>( value, valueWeight ) );
+            if ( oldValue != null )
+            {
+                weight -= oldValue.weight;
+            }
+            weight += valueWeight;
+            evictIfNeeded( key );
+        }
+    }
+
+    public V putIfAbsent( K key, V value )
+    {
+        long valueWeight = weigh( key, value );
+        synchronized ( this )
+        {
+            WeightedValue<V> oldValue = map.get( key );
+            if ( oldValue != null )
+            {
+                return oldValue.value;
+            }
+            map.put( key, new WeightedValue<V>( value, valueWeight ) );
+            weight += valueWeight;
+            evictIfNeeded( key );
+            return null;
+        }
+    }
+
+    private long weigh( K key, V value )
+    {
+        long valueWeight = weigher != null ? weigher.weigh( key, value ) : 1;
+        if ( valueWeight < 0 )
+        {
+            throw new IllegalArgumentException( "Weight of the cache entry " + key + " cannot be negative." );
+        }
+        return valueWeight;
+    }
+
+    /**
+     * Evict the least recently used entries while the total weight exceeds the maximum weight. The given entry which
+     * has been just added is never evicted.
+     * 
+     * @param addedKey
+     */
+    private void evictIfNeeded( K addedKey )
+    {
+        Iterator<Map.Entry<K, WeightedValue<V>>> entries = map.entrySet().iterator();
+        while ( weight > maximumWeight && entries.hasNext() )
+        {
+            Map.Entry<K, WeightedValue<V>> entry = entries.next();
+            if ( entry.getKey().equals( addedKey ) )
+            {
+                // the added entry is the most recently used entry
+                break;
+            }
+            weight -= entry.getValue().weight;
+            entries.remove();
+            evictionCount++;
+        }
+    }
+
+    public synchronized void remove( K key )
+    {
+        WeightedValue<V> oldValue = map.remove( key );
+        if ( oldValue != null )
+        {
+            weight -= oldValue.weight;
+        }
+    }
+
+    public synchronized void clear()
+    {
+        map.clear();
+        weight = 0;
+    }
+
+    public synchronized boolean containsKey( K key )
+    {
+        return map.containsKey( key );
+    }
+
+    /**
+     * Returns a snapshot of the cached values.
+     */
+    public synchronized Collection<V> values()
+    {
+        Collection<V> values = new ArrayList<V>( map.size() );
+        for ( WeightedValue<V> value : map.values() )
+        {
+            values.add( value.value );
+        }
+        return values;
+    }
+
+    /**
+     * Returns the maximum weight of the cache.
+     * 
+     * @return
+     */
+    public long getMaximumWeight()
+    {
+        return maximumWeight;
+    }
+
+    /**
+     * Returns the total weight of the cached entries.
+     * 
+     * @return
+     */
+    public synchronized long getWeight()
+    {
+        return weight;
+    }
+
+    /**
+     * Returns the number of cached entries.
+     * 
+     * @return
+     */
+    public synchronized int size()
+    {
+        return map.size();
+    }
+
+    /**
+     * Returns the number of {@link #get(Object)} which have found the entry.
+     * 
+     * @return
+     */
+    public synchronized long getHitCount()
+    {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of {@link #get(Object)} which have not found the entry.
+     * 
+     * @return
+     */
+    public synchronized long getMissCount()
+    {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of entries evicted because the maximum weight was exceeded.
+     * 
+     * @return
+     */
+    public synchronized long getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the ratio of {@link #get(Object)} which have found the entry (1 if there was no request).
+     * 
+     * @return
+     */
+    public synchronized double getHitRate()
+    {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Reset the hit, miss and eviction counts (the cached entries are kept).
+     */
+    public synchronized void resetStatistics()
+    {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "BoundedCacheStorage [size=" + map.size() + ", weight=" + weight + ", maximumWeight=" + maximumWeight
+            + ", hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount + "]";
+    }
+
+    private static class WeightedValue<V>
+    {
+
+        private final V value;
+
+        private final long weight;
+
+        public WeightedValue( V value, long weight )
+        {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.core.cache;
+
+/**
+ * {@link ICacheStorageFactoryDiscovery} which creates {@link BoundedCacheStorage}. To use it, declare this class in
+ * the file META-INF/services/fr.opensagres.xdocreport.core.cache.ICacheStorageFactoryDiscovery or set it with
+ * {@link CacheStorageRegistry#setCacheStorageFactory(ICacheStorageFactoryDiscovery)}. The maximum weight of the caches
+ * (when the weigher computes the size in bytes) can be set with the system property
+ * {@link #MAXIMUM_WEIGHT_PROPERTY}.
+ */
+public class BoundedCacheStorageFactoryDiscovery
+    implements ICacheStorageFactoryDiscovery
+{
+
+    public static final String MAXIMUM_WEIGHT_PROPERTY = "xdocreport.cache.maximumWeight";
+
+    /**
+     * Default maximum weight (256 MB).
+     */
+    public static final long DEFAULT_MAXIMUM_WEIGHT = 256L * 1024 * 1024;
+
+    private final long maximumWeight;
+
+    public BoundedCacheStorageFactoryDiscovery()
+    {
+        this( Long.getLong( MAXIMUM_WEIGHT_PROPERTY, DEFAULT_MAXIMUM_WEIGHT ) );
+    }
+
+    public BoundedCacheStorageFactoryDiscovery( long maximumWeight )
+    {
+        this.maximumWeight = maximumWeight;
+    }
+
+    public String getId()
+    {
+        return "bounded";
+    }
+
+    public String getDescription()
+    {
+        return "Thread-safe cache bounded by a maximum weight with LRU eviction.";
+    }
+
+    public <K, V> ICacheStorage<K, V> createCache( ICacheWeigher<? super K, ? super V> weigher )
+    {
+        return new BoundedCacheStorage<K, V>( maximumWeight, weigher );
+    }
+}
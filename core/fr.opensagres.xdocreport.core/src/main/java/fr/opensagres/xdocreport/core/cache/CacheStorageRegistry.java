@@ -35,6 +35,8 @@ public class CacheStorageRegistry
 
     private static final CacheStorageRegistry INSTANCE = new CacheStorageRegistry();
 
+    private volatile ICacheStorageFactoryDiscovery cacheStorageFactory;
+
     public CacheStorageRegistry()
     {
         super( ICacheStorageFactoryDiscovery.class );
@@ -48,16 +50,53 @@ public class CacheStorageRegistry
 
     protected boolean registerInstance( ICacheStorageFactoryDiscovery instance )
     {
+        if ( cacheStorageFactory == null )
+        {
+            cacheStorageFactory = instance;
+            return true;
+        }
         return false;
     }
 
     protected void doDispose()
     {
+        this.cacheStorageFactory = null;
+    }
 
+    /**
+     * Set the factory used to create the cache storages.
+     * 
+     * @param cacheStorageFactory the factory and null to use {@link MapCacheStorage}.
+     */
+    public void setCacheStorageFactory( ICacheStorageFactoryDiscovery cacheStorageFactory )
+    {
+        initializeIfNeeded();
+        this.cacheStorageFactory = cacheStorageFactory;
     }
 
     public <K, V> ICacheStorage<K, V> createCache()
     {
+        return createCache( null );
+    }
+
+    /**
+     * Create a cache storage with the registered {@link ICacheStorageFactoryDiscovery} or a {@link MapCacheStorage}
+     * if there is no factory.
+     * 
+     * @param weigher the weigher of the cache entries (null if entries have not a weight).
+     * @return
+     */
+    public <K, V> ICacheStorage<K, V> createCache( ICacheWeigher<? super K, ? super V> weigher )
+    {
+        initializeIfNeeded();
+        if ( cacheStorageFactory != null )
+        {
+            ICacheStorage<K, V> cache = cacheStorageFactory.createCache( weigher );
+            if ( cache != null )
+            {
+                return cache;
+            }
+        }
         return new MapCacheStorage<K, V>();
     }
 }
@@ -32,6 +32,25 @@ public interface ICacheStorage<K, V>
 
     void put( K key, V value );
 
+    /**
+     * Put the given value if there is no value for the given key. The default implementation is not atomic, storages
+     * which are thread-safe should override it.
+     * 
+     * @param key
+     * @param value
+     * @return the existing value and null if the given value was put.
+     */
+    default V putIfAbsent( K key, V value )
+    {
+        V existing = get( key );
+        if ( existing != null )
+        {
+            return existing;
+        }
+        put( key, value );
+        return null;
+    }
+
     void remove( K key );
 
     void clear();
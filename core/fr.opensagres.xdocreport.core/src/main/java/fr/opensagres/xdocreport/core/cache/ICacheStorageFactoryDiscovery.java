@@ -26,7 +26,21 @@ package fr.opensagres.xdocreport.core.cache;
 
 import fr.opensagres.xdocreport.core.discovery.IBaseDiscovery;
 
+/**
+ * Discovery which creates the {@link ICacheStorage} used by the registries (see
+ * {@link CacheStorageRegistry#createCache(ICacheWeigher)}).
+ */
 public interface ICacheStorageFactoryDiscovery extends IBaseDiscovery
 {
 
+    /**
+     * Create a cache storage.
+     * 
+     * @param weigher the weigher of the cache entries (null if entries have not a weight).
+     * @return the cache storage and null to use the default {@link MapCacheStorage}.
+     */
+    default <K, V> ICacheStorage<K, V> createCache( ICacheWeigher<? super K, ? super V> weigher )
+    {
+        return null;
+    }
 }
@@ -49,11 +49,11 @@ package fr.opensagres.xdocreport.core.cache;
  * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * {@link ICacheStorage} implementation with {@link Map};
+ * Thread-safe {@link ICacheStorage} implementation with {@link Map};
  * 
  * @param <K>
  * @param <V>
@@ -62,7 +62,7 @@ public class MapCacheStorage<K, V>
     implements ICacheStorage<K, V>
 {
 
-    private Map<K, V> map = new HashMap<K, V>();
+    private final Map<K, V> map = new ConcurrentHashMap<K, V>();
 
     public V get( K key )
     {
@@ -74,6 +74,11 @@ public class MapCacheStorage<K, V>
         map.put( key, value );
     }
 
+    public V putIfAbsent( K key, V value )
+    {
+        return map.putIfAbsent( key, value );
+    }
+
     public void remove( K key )
     {
         map.remove( key );
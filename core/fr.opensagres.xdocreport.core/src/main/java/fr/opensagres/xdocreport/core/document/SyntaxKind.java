@@ -30,5 +30,5 @@ package fr.opensagres.xdocreport.core.document;
 public enum SyntaxKind
 {
 
-    NoEscape, Html, GWiki, MediaWiki, MarkDown
+    NoEscape, Html, GWiki, MediaWiki, MarkDown, StreamingHtml
 }
@@ -0,0 +1,238 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.core.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import fr.opensagres.xdocreport.core.io.internal.ZipWriter;
+
+/**
+ * {@link XDocArchive} which writes the zip directly in an output stream :
+ * <ol>
+ * <li>{@link #start()} writes the 'mimetype' entry and the entries which are not streamed (images, fonts, XML entries
+ * which are not merged...).</li>
+ * <li>each streamed entry (ex : XML entries merged with the template engine) is written directly in the zip when it is
+ * written with {@link #getEntryOutputStream(String)} or {@link #getEntryWriter(String)}, without caching the content
+ * of the entry.</li>
+ * <li>{@link #finish()} writes the other entries (ex : images added by the image registry) and closes the zip.</li>
+ * </ol>
+ * An entry which is already written in the zip cannot be modified (and a streamed entry cannot be read once it was
+ * written). Streamed entries are always deflated (with the compression level of the {@link ZipOutputOptions}) and the
+ * parallel mode of the options is not used.
+ */
+public class StreamingXDocArchive
+    extends XDocArchive
+{
+
+    private final ZipWriter zipWriter;
+
+    private final ZipOutputOptions options;
+
+    /**
+     * Entry names which are written directly in the zip.
+     */
+    private final Set<String> streamedEntryNames;
+
+    /**
+     * Entry names which are already written in the zip.
+     */
+    private final Set<String> writtenEntryNames;
+
+    /**
+     * Name of the streamed entry which is being written.
+     */
+    private String currentEntryName;
+
+    private boolean started;
+
+    public StreamingXDocArchive( XDocArchive archive, Set<String> streamedEntryNames, OutputStream outputStream )
+    {
+        this( archive, streamedEntryNames, outputStream, null );
+    }
+
+    public StreamingXDocArchive( XDocArchive archive, Set<String> streamedEntryNames, OutputStream outputStream,
+                                 ZipOutputOptions options )
+    {
+        super.shareEntries( archive );
+        this.options = options != null ? options : ZipOutputOptions.create();
+        this.streamedEntryNames = streamedEntryNames;
+        this.writtenEntryNames = new HashSet<String>();
+        this.zipWriter = new ZipWriter( outputStream );
+        this.started = false;
+    }
+
+    /**
+     * Write the 'mimetype' entry and the entries which are not streamed in the zip.
+     * 
+     * @throws IOException
+     */
+    public void start()
+        throws IOException
+    {
+        // ODT spec requires 'mimetype' to be the first entry
+        writeEntryIfNeeded( MIMETYPE_ENTRY_NAME );
+        for ( String entryName : getEntryNames() )
+        {
+            if ( !streamedEntryNames.contains( entryName ) )
+            {
+                writeEntryIfNeeded( entryName );
+            }
+        }
+        started = true;
+    }
+
+    /**
+     * Write the entries which are not written in the zip and close the zip.
+     * 
+     * @throws IOException
+     */
+    public void finish()
+        throws IOException
+    {
+        for ( String entryName : getEntryNames() )
+        {
+            writeEntryIfNeeded( entryName );
+        }
+        zipWriter.close();
+    }
+
+    private void writeEntryIfNeeded( String entryName )
+        throws IOException
+    {
+        if ( writtenEntryNames.contains( entryName ) || !hasEntry( entryName ) )
+        {
+            return;
+        }
+        writeZipEntry( zipWriter, this, entryName, options );
+        writtenEntryNames.add( entryName );
+    }
+
+    @Override
+    public OutputStream getEntryOutputStream( String entryName )
+    {
+        if ( writtenEntryNames.contains( entryName ) )
+        {
+            throw new IllegalStateException( "Cannot modify entry name=" + entryName
+                + " which is already written in the zip." );
+        }
+        if ( started && currentEntryName == null && streamedEntryNames.contains( entryName ) )
+        {
+            // write the content of the entry directly in the zip
+            currentEntryName = entryName;
+            return new ZipEntryOutputStream( entryName );
+        }
+        return super.getEntryOutputStream( entryName );
+    }
+
+    @Override
+    public void setFileEntry( String entryName, File file )
+    {
+        if ( writtenEntryNames.contains( entryName ) )
+        {
+            throw new IllegalStateException( "Cannot modify entry name=" + entryName
+                + " which is already written in the zip." );
+        }
+        super.setFileEntry( entryName, file );
+    }
+
+    @Override
+    public InputStream getEntryInputStream( String entryName )
+    {
+        if ( writtenEntryNames.contains( entryName ) && streamedEntryNames.contains( entryName ) )
+        {
+            throw new IllegalStateException( "Cannot read entry name=" + entryName
+                + " which is already streamed in the zip." );
+        }
+        return super.getEntryInputStream( entryName );
+    }
+
+    /**
+     * {@link OutputStream} which writes the content of an entry directly in the zip.
+     */
+    private class ZipEntryOutputStream
+        extends OutputStream
+    {
+
+        private final String entryName;
+
+        private OutputStream out;
+
+        private boolean closed;
+
+        public ZipEntryOutputStream( String entryName )
+        {
+            this.entryName = entryName;
+        }
+
+        private void openIfNeeded()
+            throws IOException
+        {
+            if ( closed )
+            {
+                throw new IOException( "Stream of the entry name=" + entryName + " is closed." );
+            }
+            if ( out == null )
+            {
+                out = zipWriter.openEntry( entryName, options.getLevel( entryName ) );
+            }
+        }
+
+        @Override
+        public void write( int b )
+            throws IOException
+        {
+            openIfNeeded();
+            out.write( b );
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len )
+            throws IOException
+        {
+            openIfNeeded();
+            out.write( b, off, len );
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            if ( closed )
+            {
+                return;
+            }
+            openIfNeeded();
+            closed = true;
+            out.close();
+            writtenEntryNames.add( entryName );
+            currentEntryName = null;
+        }
+    }
+}
@@ -26,25 +26,39 @@ package fr.opensagres.xdocreport.core.io;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 import fr.opensagres.xdocreport.core.EncodingConstants;
 import fr.opensagres.xdocreport.core.io.internal.OutputStream2InputStream;
 import fr.opensagres.xdocreport.core.io.internal.OutputStreamWriterCancelable;
+import fr.opensagres.xdocreport.core.io.internal.RawZipEntry;
+import fr.opensagres.xdocreport.core.io.internal.ZipWriter;
 import fr.opensagres.xdocreport.core.utils.StringUtils;
 
 /**
@@ -52,25 +66,50 @@ import fr.opensagres.xdocreport.core.utils.StringUtils;
  * zip to transform content stream with {@link IXDocPreprocessor} and {@link ITemplateEngine}.
  */
 public class XDocArchive
-    implements IEntryInputStreamProvider, IEntryReaderProvider, IEntryWriterProvider, IEntryOutputStreamProvider
+    implements IEntryInputStreamProvider, IEntryReaderProvider, IEntryWriterProvider, IEntryOutputStreamProvider,
+    IFileEntryProvider
 {
 
-    private static final String MIMETYPE_ENTRY_NAME = "mimetype";
+    static final String MIMETYPE_ENTRY_NAME = "mimetype";
+
+    private static final ZipOutputOptions DEFAULT_ZIP_OPTIONS = ZipOutputOptions.create();
+
+    /**
+     * Content of the cache entries which are stored in a file (see {@link #fileEntries}).
+     */
+    private static final byte[] FILE_ENTRY_CONTENT = new byte[0];
 
     /**
      * Cache entries of the original XML document (odt, docx....). This Map contains a key as entry name (ex : for docx
-     * word/document.xml) and the content of the XML file as array bytes.
+     * word/document.xml) and the content of the XML file as array bytes. Those array bytes are never modified (they
+     * are replaced when an entry is written) because they can be shared with copies of this archive.
      */
     private Map<String, byte[]> cacheEntries = new LinkedHashMap<String, byte[]>();
 
     /**
-     * Cache entries info.
+     * Cache entries info (concurrent because a preprocessed archive is read by the threads which merge the report).
+     */
+    private Map<String, IEntryInfo> cacheEntriesInfo = new ConcurrentHashMap<String, IEntryInfo>();
+
+    /**
+     * Original content (compressed content if the entry is deflated) of the entries loaded from a zip which are not
+     * modified. Those entries are written as is in the zip without inflating and deflating it again.
      */
-    private Map<String, IEntryInfo> cacheEntriesInfo = new LinkedHashMap<String, IEntryInfo>();
+    private Map<String, RawZipEntry> rawEntries = null;
+
+    /**
+     * Entries which content is a file (ex : images added by the image registry). The file is read when the zip is
+     * written.
+     */
+    private Map<String, File> fileEntries = null;
 
     private Map<String, Long> lastModifiedEntries;
 
-    private Map<String, Set<String>> cacheEntriesWilcard = null;
+    /**
+     * Entry names per wildcard (concurrent because a preprocessed archive is read by the threads which merge the
+     * report).
+     */
+    private final Map<String, Set<String>> cacheEntriesWilcard = new ConcurrentHashMap<String, Set<String>>();
 
     public XDocArchive()
     {
@@ -99,13 +138,44 @@ public class XDocArchive
         return cacheEntries.keySet();
     }
 
-    public Set<String> getEntryNames( final String wildcard )
+    /**
+     * Returns the total size in bytes of the content kept by the XML document archive: the (uncompressed) entries,
+     * the files of the file entries and the original zip content kept to write the unmodified entries.
+     * 
+     * @return
+     */
+    public long getSize()
     {
-        if ( cacheEntriesWilcard == null )
+        long size = 0;
+        for ( byte[] content : cacheEntries.values() )
+        {
+            size += content.length;
+        }
+        if ( rawEntries != null && !rawEntries.isEmpty() )
         {
-            cacheEntriesWilcard = new HashMap<String, Set<String>>();
+            // the raw entries loaded from a zip share the bytes of the whole zip which are kept as long as one of
+            // them is referenced
+            Set<byte[]> rawData = Collections.newSetFromMap( new IdentityHashMap<byte[], Boolean>() );
+            for ( RawZipEntry rawEntry : rawEntries.values() )
+            {
+                if ( rawData.add( rawEntry.getData() ) )
+                {
+                    size += rawEntry.getData().length;
+                }
+            }
         }
+        if ( fileEntries != null )
+        {
+            for ( File file : fileEntries.values() )
+            {
+                size += file.length();
+            }
+        }
+        return size;
+    }
 
+    public Set<String> getEntryNames( final String wildcard )
+    {
         Set<String> entryNamesWithWildcard = cacheEntriesWilcard.get( wildcard );
         if ( entryNamesWithWildcard != null )
         {
@@ -170,6 +240,7 @@ public class XDocArchive
      * 
      * @param entryName
      * @return
+     * @throws UncheckedIOException if the entry is a file which cannot be read.
      */
     public InputStream getEntryInputStream( String entryName )
     {
@@ -177,6 +248,19 @@ public class XDocArchive
         {
             return null;
         }
+        File file = getFileEntry( entryName );
+        if ( file != null )
+        {
+            try
+            {
+                return new FileInputStream( file );
+            }
+            catch ( FileNotFoundException e )
+            {
+                // the entry exists, the file was removed after it was set
+                throw new UncheckedIOException( "Cannot read the file of the entry name=" + entryName, e );
+            }
+        }
         return new ByteArrayInputStream( (byte[]) cacheEntries.get( entryName ) );
     }
 
@@ -207,6 +291,43 @@ public class XDocArchive
         return new EntryByteArrayOutputStream( entryName );
     }
 
+    /**
+     * Set the given file as content of the given entry. The file is not read before the zip is written with
+     * {@link #writeZip(XDocArchive, OutputStream, ZipOutputOptions)} and it is never loaded entirely in the heap : its
+     * content is transferred from the file channel to the zip. When the entry is stored (see
+     * {@link ZipOutputOptions#stored(String...)}) and the zip is written in a {@link java.io.FileOutputStream}, the
+     * content is not copied in the heap at all.
+     * 
+     * @param entryName
+     * @param file
+     * @throws IllegalArgumentException if the file doesn't exist.
+     */
+    public void setFileEntry( String entryName, File file )
+    {
+        if ( !file.isFile() )
+        {
+            throw new IllegalArgumentException( "File " + file + " doesn't exist for the entry name=" + entryName );
+        }
+        cacheEntries.put( entryName, FILE_ENTRY_CONTENT );
+        if ( fileEntries == null )
+        {
+            fileEntries = new HashMap<String, File>();
+        }
+        fileEntries.put( entryName, file );
+        entryModified( entryName );
+    }
+
+    /**
+     * Returns the file of the given entry and null if the content of the entry is not a file.
+     * 
+     * @param entryName
+     * @return
+     */
+    private File getFileEntry( String entryName )
+    {
+        return fileEntries != null ? fileEntries.get( entryName ) : null;
+    }
+
     /**
      * Returns an {@link Writer} from the cache entries for writing the content of the given entry.
      * 
@@ -220,6 +341,13 @@ public class XDocArchive
 
     /**
      * Create a copy of the {@link XDocArchive}.
+     * <p>
+     * The copy is a copy-on-write archive : the content of each entry is shared with this archive and is never
+     * modified, because writing an entry (with {@link #getEntryOutputStream(String)} or
+     * {@link #getEntryWriter(String)}) replaces the content of the entry when the stream is closed. So only entries
+     * which are written (merged XML entries, images, post processed entries...) are materialized in the copy, and
+     * the other entries (images, fonts, untouched XML entries...) are not duplicated.
+     * </p>
      * 
      * @return
      */
@@ -227,17 +355,26 @@ public class XDocArchive
     {
         // Create new instance of XDocArchive
         XDocArchive archiveCopy = new XDocArchive();
-        // Loop for cache entries
-        for ( Map.Entry<String, byte[]> entry : cacheEntries.entrySet() )
+        archiveCopy.shareEntries( this );
+        return archiveCopy;
+    }
+
+    /**
+     * Share the cache entries of the given archive with this archive (byte arrays of the entries are immutable).
+     * 
+     * @param archive
+     */
+    void shareEntries( XDocArchive archive )
+    {
+        cacheEntries.putAll( archive.cacheEntries );
+        if ( archive.rawEntries != null )
         {
-            String name = entry.getKey();
-            byte[] entryData = entry.getValue();
-            byte[] entryDataCopy = new byte[entryData.length];
-            System.arraycopy( entryData, 0, entryDataCopy, 0, entryData.length );
-            // modify the cache entries in the new XDocArchive
-            archiveCopy.cacheEntries.put( name, entryDataCopy );
+            rawEntries = new HashMap<String, RawZipEntry>( archive.rawEntries );
+        }
+        if ( archive.fileEntries != null )
+        {
+            fileEntries = new HashMap<String, File>( archive.fileEntries );
         }
-        return archiveCopy;
     }
 
     /**
@@ -275,7 +412,8 @@ public class XDocArchive
 
     /**
      * Read zip from input stream and returns an instance of {@link XDocArchive} which cache each entry from the zip
-     * into a Map.
+     * into a Map. The original content of the zip is kept too, to write the entries which are not modified without
+     * inflating and deflating it again.
      * 
      * @param sourceStream stream of odt, docx file.
      * @return
@@ -291,10 +429,13 @@ public class XDocArchive
         // 1) Create instance of XDocArchive which cache each entry of the Zip.
         XDocArchive archive = null;
         ZipInputStream zipInputStream = null;
+        Map<String, RawZipEntry> rawEntries = null;
         try
         {
             // 2) Load Zip
-            zipInputStream = new ZipInputStream( sourceStream );
+            byte[] zip = IOUtils.toByteArray( sourceStream );
+            rawEntries = RawZipEntry.readEntries( zip );
+            zipInputStream = new ZipInputStream( new ByteArrayInputStream( zip ) );
             // 3) Loop for each entry of the zip and add to the XDocArchive to
             // cache
             // it.
@@ -324,9 +465,40 @@ public class XDocArchive
         {
             throw new IOException( "InputStream is not a zip." );
         }
+        // 7) Keep the original content of the entries
+        if ( rawEntries != null )
+        {
+            archive.setRawEntries( rawEntries );
+        }
         return archive;
     }
 
+    /**
+     * Set the original content of the entries which are loaded from a zip. An original content is ignored if it
+     * doesn't match the cached entry.
+     * 
+     * @param rawEntries
+     */
+    private void setRawEntries( Map<String, RawZipEntry> rawEntries )
+    {
+        this.rawEntries = new HashMap<String, RawZipEntry>();
+        CRC32 crc = new CRC32();
+        for ( Map.Entry<String, byte[]> entry : cacheEntries.entrySet() )
+        {
+            RawZipEntry rawEntry = rawEntries.get( entry.getKey() );
+            byte[] content = entry.getValue();
+            if ( rawEntry != null && rawEntry.getSize() == content.length )
+            {
+                crc.reset();
+                crc.update( content );
+                if ( crc.getValue() == rawEntry.getCrc() )
+                {
+                    this.rawEntries.put( entry.getKey(), rawEntry );
+                }
+            }
+        }
+    }
+
     /**
      * Set the given input stream in the given entry of the document archive.
      * 
@@ -364,6 +536,20 @@ public class XDocArchive
         {
             throw new IOException( "Cannot find entry name=" + entryName + " in the document archive." );
         }
+        File file = archive.getFileEntry( entryName );
+        if ( file != null )
+        {
+            InputStream input = new FileInputStream( file );
+            try
+            {
+                IOUtils.copy( input, outputStream );
+            }
+            finally
+            {
+                IOUtils.closeQuietly( input );
+            }
+            return;
+        }
         outputStream.write( archive.cacheEntries.get( entryName ) );
     }
 
@@ -377,61 +563,218 @@ public class XDocArchive
     public static void writeZip( XDocArchive archive, OutputStream outputStream )
         throws IOException
     {
-        ZipOutputStream zipOutputStream = new ZipOutputStream( outputStream );
+        writeZip( archive, outputStream, null );
+    }
+
+    /**
+     * Write XML document archive in the given output stream with the given options (compression level, stored
+     * entries, parallel compression).
+     * 
+     * @param archive
+     * @param outputStream
+     * @param options the zip options and null to use the default options.
+     * @throws IOException
+     */
+    public static void writeZip( XDocArchive archive, OutputStream outputStream, ZipOutputOptions options )
+        throws IOException
+    {
+        if ( options == null )
+        {
+            options = DEFAULT_ZIP_OPTIONS;
+        }
+        ZipWriter zipWriter = new ZipWriter( outputStream );
         Set<String> entryNames = archive.getEntryNames();
 
-        // ODT spec requires 'mimetype' to be the first entry
-        writeZipEntry( zipOutputStream, archive, MIMETYPE_ENTRY_NAME, ZipEntry.STORED );
+        // Deflate the large entries in parallel, they are written after in the order of the archive.
+        Map<String, Future<RawZipEntry>> deflatedEntries =
+            options.isParallel() ? deflateEntries( archive, options ) : null;
+        try
+        {
+            // ODT spec requires 'mimetype' to be the first entry
+            writeZipEntry( zipWriter, archive, MIMETYPE_ENTRY_NAME, options );
 
-        for ( String entryName : entryNames )
+            for ( String entryName : entryNames )
+            {
+                if ( !MIMETYPE_ENTRY_NAME.equals( entryName ) )
+                {
+                    Future<RawZipEntry> deflatedEntry =
+                        deflatedEntries != null ? deflatedEntries.remove( entryName ) : null;
+                    if ( deflatedEntry != null )
+                    {
+                        getDeflatedEntry( deflatedEntry ).write( zipWriter, entryName );
+                    }
+                    else
+                    {
+                        writeZipEntry( zipWriter, archive, entryName, options );
+                    }
+                }
+            }
+        }
+        finally
         {
-            if ( !MIMETYPE_ENTRY_NAME.equals( entryName ) )
+            if ( deflatedEntries != null )
             {
-                writeZipEntry( zipOutputStream, archive, entryName, ZipEntry.DEFLATED );
+                for ( Future<RawZipEntry> deflatedEntry : deflatedEntries.values() )
+                {
+                    deflatedEntry.cancel( false );
+                }
             }
         }
-        zipOutputStream.close();
+        zipWriter.close();
     }
 
     /**
-     * Write zip entry.
+     * Submit the deflate of the modified entries which are larger than the parallel threshold of the given options.
      * 
-     * @param zipOutputStream
+     * @param archive
+     * @param options
+     * @return
+     */
+    private static Map<String, Future<RawZipEntry>> deflateEntries( XDocArchive archive, ZipOutputOptions options )
+    {
+        Map<String, Future<RawZipEntry>> deflatedEntries = new HashMap<String, Future<RawZipEntry>>();
+        for ( Map.Entry<String, byte[]> entry : archive.cacheEntries.entrySet() )
+        {
+            final String entryName = entry.getKey();
+            final byte[] content = entry.getValue();
+            if ( content != FILE_ENTRY_CONTENT && content.length >= options.getParallelThreshold()
+                && !MIMETYPE_ENTRY_NAME.equals( entryName )
+                && !options.isStored( entryName )
+                && ( archive.rawEntries == null || !archive.rawEntries.containsKey( entryName ) ) )
+            {
+                final int level = options.getLevel( entryName );
+                deflatedEntries.put( entryName, options.getExecutor().submit( new Callable<RawZipEntry>()
+                {
+                    public RawZipEntry call()
+                    {
+                        return RawZipEntry.deflate( content, level );
+                    }
+                } ) );
+            }
+        }
+        return deflatedEntries;
+    }
+
+    private static RawZipEntry getDeflatedEntry( Future<RawZipEntry> deflatedEntry )
+        throws IOException
+    {
+        try
+        {
+            return deflatedEntry.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( e.getMessage() );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException )
+            {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            throw new IOException( cause );
+        }
+    }
+
+    /**
+     * Write zip entry with the method and the compression level of the given options ('mimetype' is always stored).
+     * 
+     * @param zipWriter
+     * @param archive
+     * @param entryName
+     * @param options
+     * @throws IOException
+     */
+    static void writeZipEntry( ZipWriter zipWriter, XDocArchive archive, String entryName, ZipOutputOptions options )
+        throws IOException
+    {
+        if ( MIMETYPE_ENTRY_NAME.equals( entryName ) || options.isStored( entryName ) )
+        {
+            writeZipEntry( zipWriter, archive, entryName, ZipEntry.STORED, Deflater.NO_COMPRESSION );
+        }
+        else
+        {
+            writeZipEntry( zipWriter, archive, entryName, ZipEntry.DEFLATED, options.getLevel( entryName ) );
+        }
+    }
+
+    /**
+     * Write zip entry. If the entry was not modified since the zip was loaded, the original content of the entry is
+     * written as is (without inflating and deflating it again).
+     * 
+     * @param zipWriter
      * @param archive
      * @param entryName
      * @param method
+     * @param level
      * @throws IOException
      */
-    private static void writeZipEntry( ZipOutputStream zipOutputStream, XDocArchive archive, String entryName,
-                                       int method )
+    static void writeZipEntry( ZipWriter zipWriter, XDocArchive archive, String entryName, int method, int level )
         throws IOException
     {
-        InputStream entryInputStream = archive.getEntryInputStream( entryName );
-        if ( entryInputStream == null )
+        byte[] content = archive.cacheEntries.get( entryName );
+        if ( content == null )
         {
             return;
         }
-        ZipEntry zipEntry = new ZipEntry( entryName );
-
-        zipEntry.setMethod( method );
-        if ( method == ZipEntry.STORED )
+        File file = archive.getFileEntry( entryName );
+        if ( file != null )
+        {
+            writeFileZipEntry( zipWriter, entryName, file, method, level );
+            return;
+        }
+        RawZipEntry rawEntry = archive.rawEntries != null ? archive.rawEntries.get( entryName ) : null;
+        if ( rawEntry != null && ( method == ZipEntry.DEFLATED || rawEntry.getMethod() == method ) )
         {
-            byte[] inputBytes = IOUtils.toByteArray( entryInputStream );
-            CRC32 crc = new CRC32();
-            crc.update( inputBytes );
-            zipEntry.setCrc( crc.getValue() );
-            zipEntry.setSize( inputBytes.length );
-            zipEntry.setCompressedSize( inputBytes.length );
-            zipOutputStream.putNextEntry( zipEntry );
-            IOUtils.write( inputBytes, zipOutputStream );
+            // the entry was not modified, write the original content
+            rawEntry.write( zipWriter, entryName );
+        }
+        else if ( method == ZipEntry.STORED )
+        {
+            zipWriter.writeStoredEntry( entryName, content );
         }
         else
         {
-            zipOutputStream.putNextEntry( zipEntry );
-            IOUtils.copy( entryInputStream, zipOutputStream );
+            zipWriter.writeDeflatedEntry( entryName, content, level );
+        }
+    }
+
+    /**
+     * Write zip entry with the content of the given file, transferred from the file channel.
+     * 
+     * @param zipWriter
+     * @param entryName
+     * @param file
+     * @param method
+     * @param level
+     * @throws IOException
+     */
+    private static void writeFileZipEntry( ZipWriter zipWriter, String entryName, File file, int method, int level )
+        throws IOException
+    {
+        FileInputStream input = new FileInputStream( file );
+        try
+        {
+            FileChannel channel = input.getChannel();
+            if ( method == ZipEntry.STORED )
+            {
+                zipWriter.writeStoredEntry( entryName, channel );
+            }
+            else
+            {
+                zipWriter.writeDeflatedEntry( entryName, channel, level );
+            }
+        }
+        finally
+        {
+            IOUtils.closeQuietly( input );
         }
-        IOUtils.closeQuietly( entryInputStream );
-        zipOutputStream.closeEntry();
     }
 
     /**
@@ -468,12 +811,26 @@ public class XDocArchive
         {
             // stream is closed, modify the cache
             cacheEntries.put( entryName, toByteArray() );
-            if ( isTrackLastModified() )
+            if ( fileEntries != null )
             {
-                lastModifiedEntries.put( entryName, System.currentTimeMillis() );
+                fileEntries.remove( entryName );
             }
-            cacheEntriesWilcard = null;
+            entryModified( entryName );
+        }
+    }
+
+    private void entryModified( String entryName )
+    {
+        if ( rawEntries != null )
+        {
+            // the original content of the entry is obsolete
+            rawEntries.remove( entryName );
+        }
+        if ( isTrackLastModified() )
+        {
+            lastModifiedEntries.put( entryName, System.currentTimeMillis() );
         }
+        cacheEntriesWilcard.clear();
     }
 
     private boolean isTrackLastModified()
@@ -533,7 +890,11 @@ public class XDocArchive
         if ( info == null )
         {
             info = new XDocArchiveEntryInfo( entryName );
-            cacheEntriesInfo.put( entryName, info );
+            IEntryInfo existingInfo = cacheEntriesInfo.putIfAbsent( entryName, info );
+            if ( existingInfo != null )
+            {
+                info = existingInfo;
+            }
         }
         return info;
     }
@@ -550,11 +911,22 @@ public class XDocArchive
             cacheEntriesInfo.clear();
         }
         cacheEntriesInfo = null;
+        cacheEntriesWilcard.clear();
         if ( lastModifiedEntries != null )
         {
             lastModifiedEntries.clear();
         }
         lastModifiedEntries = null;
+        if ( rawEntries != null )
+        {
+            rawEntries.clear();
+        }
+        rawEntries = null;
+        if ( fileEntries != null )
+        {
+            fileEntries.clear();
+        }
+        fileEntries = null;
     }
 
 }
@@ -0,0 +1,238 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.core.io;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+
+/**
+ * Options used to write the zip of a {@link XDocArchive} (see
+ * {@link XDocArchive#writeZip(XDocArchive, java.io.OutputStream, ZipOutputOptions)}) :
+ * <ul>
+ * <li>the compression level of the entries, by default and by entry type (file extension).</li>
+ * <li>the entry types which must be stored without compression (ex : PNG, JPEG images which are already
+ * compressed).</li>
+ * <li>the parallel mode which compresses the large entries with an executor (by default the common
+ * {@link ForkJoinPool}) and writes them in the zip in the order of the archive.</li>
+ * </ul>
+ * Entries which are not modified since the zip was loaded are always written with their original content.
+ * 
+ * <pre>
+ * ZipOutputOptions options = ZipOutputOptions.create().level( Deflater.BEST_SPEED ).storeCompressedImages().parallel();
+ * </pre>
+ */
+public class ZipOutputOptions
+{
+
+    /**
+     * Extensions of the image formats which are already compressed.
+     */
+    private static final String[] COMPRESSED_IMAGES_EXTENSIONS = { "png", "jpg", "jpeg", "gif" };
+
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 64 * 1024;
+
+    private int level;
+
+    private final Map<String, Integer> levels;
+
+    private final Set<String> storedExtensions;
+
+    private ExecutorService executor;
+
+    private int parallelThreshold;
+
+    private ZipOutputOptions()
+    {
+        this.level = Deflater.DEFAULT_COMPRESSION;
+        this.levels = new HashMap<String, Integer>();
+        this.storedExtensions = new HashSet<String>();
+        this.executor = null;
+        this.parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    }
+
+    public static ZipOutputOptions create()
+    {
+        return new ZipOutputOptions();
+    }
+
+    /**
+     * Set the default compression level (see {@link Deflater}) of the entries.
+     * 
+     * @param level
+     * @return this instance
+     */
+    public ZipOutputOptions level( int level )
+    {
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * Set the compression level (see {@link Deflater}) of the entries with the given extension (ex : "xml").
+     * 
+     * @param extension
+     * @param level
+     * @return this instance
+     */
+    public ZipOutputOptions level( String extension, int level )
+    {
+        this.levels.put( extension.toLowerCase(), level );
+        return this;
+    }
+
+    /**
+     * Store without compression the entries with the given extensions (ex : "png").
+     * 
+     * @param extensions
+     * @return this instance
+     */
+    public ZipOutputOptions stored( String... extensions )
+    {
+        for ( String extension : extensions )
+        {
+            this.storedExtensions.add( extension.toLowerCase() );
+        }
+        return this;
+    }
+
+    /**
+     * Store without compression the images which are already compressed (PNG, JPEG, GIF).
+     * 
+     * @return this instance
+     */
+    public ZipOutputOptions storeCompressedImages()
+    {
+        return stored( COMPRESSED_IMAGES_EXTENSIONS );
+    }
+
+    /**
+     * Compress the large entries in parallel with the common {@link ForkJoinPool}.
+     * 
+     * @return this instance
+     */
+    public ZipOutputOptions parallel()
+    {
+        return parallel( ForkJoinPool.commonPool() );
+    }
+
+    /**
+     * Compress the large entries in parallel with the given executor.
+     * 
+     * @param executor
+     * @return this instance
+     */
+    public ZipOutputOptions parallel( ExecutorService executor )
+    {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Set the minimum size (in bytes) of an entry to compress it in parallel.
+     * 
+     * @param parallelThreshold
+     * @return this instance
+     */
+    public ZipOutputOptions parallelThreshold( int parallelThreshold )
+    {
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    /**
+     * Returns the compression level of the given entry.
+     * 
+     * @param entryName
+     * @return
+     */
+    public int getLevel( String entryName )
+    {
+        if ( !levels.isEmpty() )
+        {
+            Integer entryLevel = levels.get( getExtension( entryName ) );
+            if ( entryLevel != null )
+            {
+                return entryLevel;
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Returns true if the given entry must be stored without compression and false otherwise.
+     * 
+     * @param entryName
+     * @return
+     */
+    public boolean isStored( String entryName )
+    {
+        return !storedExtensions.isEmpty() && storedExtensions.contains( getExtension( entryName ) );
+    }
+
+    /**
+     * Returns true if the large entries must be compressed in parallel and false otherwise.
+     * 
+     * @return
+     */
+    public boolean isParallel()
+    {
+        return executor != null;
+    }
+
+    /**
+     * Returns the executor used to compress the large entries in parallel and null if parallel mode is disabled.
+     * 
+     * @return
+     */
+    public ExecutorService getExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * Returns the minimum size (in bytes) of an entry to compress it in parallel.
+     * 
+     * @return
+     */
+    public int getParallelThreshold()
+    {
+        return parallelThreshold;
+    }
+
+    private static String getExtension( String entryName )
+    {
+        int index = entryName.lastIndexOf( '.' );
+        if ( index == -1 || index < entryName.lastIndexOf( '/' ) )
+        {
+            return "";
+        }
+        return entryName.substring( index + 1 ).toLowerCase();
+    }
+}
@@ -0,0 +1,278 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.core.io.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import fr.opensagres.xdocreport.core.EncodingConstants;
+import fr.opensagres.xdocreport.core.utils.StringUtils;
+
+/**
+ * Original content of a zip entry, as it is stored in the zip (compressed content if the entry is deflated), with the
+ * CRC-32 and the size of the uncompressed content. It is used to write an entry which was not modified without
+ * inflating and deflating it again (see {@link ZipWriter#writeEntry(String, int, long, long, byte[], int, int)}).
+ */
+public class RawZipEntry
+{
+
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int CENTRAL_FILE_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+    private static final int ENCRYPTED_FLAG = 0x01;
+
+    private final int method;
+
+    private final long crc;
+
+    private final long size;
+
+    private final byte[] data;
+
+    private final int offset;
+
+    private final int compressedSize;
+
+    private RawZipEntry( int method, long crc, long size, byte[] data, int offset, int compressedSize )
+    {
+        this.method = method;
+        this.crc = crc;
+        this.size = size;
+        this.data = data;
+        this.offset = offset;
+        this.compressedSize = compressedSize;
+    }
+
+    /**
+     * Returns the method ({@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}) used to store the entry.
+     * 
+     * @return
+     */
+    public int getMethod()
+    {
+        return method;
+    }
+
+    /**
+     * Returns the CRC-32 of the uncompressed content.
+     * 
+     * @return
+     */
+    public long getCrc()
+    {
+        return crc;
+    }
+
+    /**
+     * Returns the size of the uncompressed content.
+     * 
+     * @return
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the array which contains the stored content of the entry.
+     * 
+     * @return
+     */
+    public byte[] getData()
+    {
+        return data;
+    }
+
+    /**
+     * Returns the start offset of the stored content of the entry in {@link #getData()}.
+     * 
+     * @return
+     */
+    public int getOffset()
+    {
+        return offset;
+    }
+
+    /**
+     * Returns the size of the stored content of the entry.
+     * 
+     * @return
+     */
+    public int getCompressedSize()
+    {
+        return compressedSize;
+    }
+
+    /**
+     * Write this entry with the given name in the given zip writer.
+     * 
+     * @param zipWriter
+     * @param name
+     * @throws IOException
+     */
+    public void write( ZipWriter zipWriter, String name )
+        throws IOException
+    {
+        zipWriter.writeEntry( name, method, crc, size, data, offset, compressedSize );
+    }
+
+    /**
+     * Deflate the given content with the given compression level and returns the deflated entry. This method doesn't
+     * share any state, so several entries can be deflated in parallel and written after in the zip writer.
+     * 
+     * @param content the uncompressed content.
+     * @param level the compression level (see {@link Deflater}).
+     * @return
+     */
+    public static RawZipEntry deflate( byte[] content, int level )
+    {
+        CRC32 crc = new CRC32();
+        crc.update( content );
+        Deflater deflater = new Deflater( level, true );
+        try
+        {
+            deflater.setInput( content );
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream( Math.max( 64, content.length / 2 ) );
+            byte[] buffer = new byte[8192];
+            while ( !deflater.finished() )
+            {
+                int length = deflater.deflate( buffer );
+                out.write( buffer, 0, length );
+            }
+            byte[] data = out.toByteArray();
+            return new RawZipEntry( ZipEntry.DEFLATED, crc.getValue(), content.length, data, 0, data.length );
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Read the central directory of the given zip and returns the original content of each entry stored or deflated
+     * by entry name. Returns null if the zip cannot be read (ZIP64, unexpected structure...).
+     * 
+     * @param zip the content of the zip.
+     * @return
+     */
+    public static Map<String, RawZipEntry> readEntries( byte[] zip )
+    {
+        try
+        {
+            int endOfCentralDirectory = findEndOfCentralDirectory( zip );
+            if ( endOfCentralDirectory == -1 )
+            {
+                return null;
+            }
+            int nbEntries = readShort( zip, endOfCentralDirectory + 10 );
+            long centralDirectoryOffset = readInt( zip, endOfCentralDirectory + 16 );
+            if ( nbEntries == 0xFFFF || centralDirectoryOffset == 0xFFFFFFFFL )
+            {
+                // ZIP64
+                return null;
+            }
+            Map<String, RawZipEntry> entries = new HashMap<String, RawZipEntry>();
+            int pos = (int) centralDirectoryOffset;
+            for ( int i = 0; i < nbEntries; i++ )
+            {
+                if ( readInt( zip, pos ) != CENTRAL_FILE_HEADER_SIGNATURE )
+                {
+                    return null;
+                }
+                int flag = readShort( zip, pos + 8 );
+                int method = readShort( zip, pos + 10 );
+                long crc = readInt( zip, pos + 16 );
+                long compressedSize = readInt( zip, pos + 20 );
+                long size = readInt( zip, pos + 24 );
+                int nameLength = readShort( zip, pos + 28 );
+                int extraLength = readShort( zip, pos + 30 );
+                int commentLength = readShort( zip, pos + 32 );
+                long localHeaderOffset = readInt( zip, pos + 42 );
+                String name = new String( zip, pos + 46, nameLength, EncodingConstants.UTF_8 );
+                pos += 46 + nameLength + extraLength + commentLength;
+
+                if ( ( flag & ENCRYPTED_FLAG ) != 0 || ( method != ZipEntry.STORED && method != ZipEntry.DEFLATED )
+                    || compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL )
+                {
+                    continue;
+                }
+                int local = (int) localHeaderOffset;
+                if ( readInt( zip, local ) != LOCAL_FILE_HEADER_SIGNATURE )
+                {
+                    return null;
+                }
+                int dataOffset = local + 30 + readShort( zip, local + 26 ) + readShort( zip, local + 28 );
+                if ( dataOffset + compressedSize > zip.length )
+                {
+                    return null;
+                }
+                if ( name.indexOf( "\\" ) != -1 )
+                {
+                    name = StringUtils.replaceAll( name, "\\", "/" );
+                }
+                entries.put( name, new RawZipEntry( method, crc, size, zip, dataOffset, (int) compressedSize ) );
+            }
+            return entries;
+        }
+        catch ( ArrayIndexOutOfBoundsException e )
+        {
+            // Unexpected zip structure
+            return null;
+        }
+    }
+
+    private static int findEndOfCentralDirectory( byte[] zip )
+    {
+        // the end of central directory record (22 bytes) is followed by a comment (65535 bytes max)
+        int min = Math.max( 0, zip.length - 22 - 0xFFFF );
+        for ( int pos = zip.length - 22; pos >= min; pos-- )
+        {
+            if ( readInt( zip, pos ) == END_OF_CENTRAL_DIRECTORY_SIGNATURE )
+            {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private static int readShort( byte[] b, int off )
+    {
+        return ( b[off] & 0xFF ) | ( b[off + 1] & 0xFF ) << 8;
+    }
+
+    private static long readInt( byte[] b, int off )
+    {
+        return ( readShort( b, off ) | (long) readShort( b, off + 2 ) << 16 ) & 0xFFFFFFFFL;
+    }
+}
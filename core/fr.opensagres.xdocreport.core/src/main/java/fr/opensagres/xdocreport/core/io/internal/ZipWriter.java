@@ -0,0 +1,552 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.core.io.internal;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import fr.opensagres.xdocreport.core.EncodingConstants;
+
+/**
+ * Minimal zip writer which, contrary to {@link java.util.zip.ZipOutputStream}, is able to write an entry with content
+ * which is already compressed (ex : the original compressed content of an entry which was not modified), without
+ * inflating and deflating it again.
+ * <p>
+ * ZIP64 is not supported : a {@link ZipException} is thrown if the zip contains more than 65535 entries or if it is
+ * bigger than 4GB.
+ * </p>
+ */
+public class ZipWriter
+{
+
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+
+    private static final int CENTRAL_FILE_HEADER_SIGNATURE = 0x02014b50;
+
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+    private static final int VERSION = 20;
+
+    private static final int DATA_DESCRIPTOR_FLAG = 0x08;
+
+    private static final int UTF8_FLAG = 0x800;
+
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+
+    private final long dosTime;
+
+    private final List<Entry> entries;
+
+    private final Set<String> entryNames;
+
+    private final byte[] header;
+
+    private long written;
+
+    private boolean entryOpened;
+
+    private boolean finished;
+
+    public ZipWriter( OutputStream out )
+    {
+        this.out = out;
+        this.dosTime = toDosTime( System.currentTimeMillis() );
+        this.entries = new ArrayList<Entry>();
+        this.entryNames = new HashSet<String>();
+        this.header = new byte[46];
+    }
+
+    /**
+     * Write an entry with the given content which is already stored with the given method (compressed content if
+     * method is {@link ZipEntry#DEFLATED}).
+     * 
+     * @param name the entry name.
+     * @param method {@link ZipEntry#STORED} or {@link ZipEntry#DEFLATED}.
+     * @param crc the CRC-32 of the uncompressed content.
+     * @param size the size of the uncompressed content.
+     * @param data the content stored with the given method.
+     * @param off the start offset of the content.
+     * @param len the length of the content.
+     * @throws IOException
+     */
+    public void writeEntry( String name, int method, long crc, long size, byte[] data, int off, int len )
+        throws IOException
+    {
+        Entry entry = startEntry( name, method, 0 );
+        entry.crc = crc;
+        entry.size = size;
+        entry.compressedSize = len;
+        writeLocalFileHeader( entry );
+        writeBytes( data, off, len );
+        entries.add( entry );
+    }
+
+    /**
+     * Write an entry with the given uncompressed content without compressing it.
+     * 
+     * @param name the entry name.
+     * @param content the uncompressed content.
+     * @throws IOException
+     */
+    public void writeStoredEntry( String name, byte[] content )
+        throws IOException
+    {
+        CRC32 crc = new CRC32();
+        crc.update( content );
+        writeEntry( name, ZipEntry.STORED, crc.getValue(), content.length, content, 0, content.length );
+    }
+
+    /**
+     * Write an entry with the given uncompressed content by compressing it with the given level.
+     * 
+     * @param name the entry name.
+     * @param content the uncompressed content.
+     * @param level the compression level (see {@link Deflater}).
+     * @throws IOException
+     */
+    public void writeDeflatedEntry( String name, byte[] content, int level )
+        throws IOException
+    {
+        OutputStream entryOut = openEntry( name, level );
+        entryOut.write( content );
+        entryOut.close();
+    }
+
+    /**
+     * Write an entry with the content of the given file channel without compressing it. The CRC-32 must be written
+     * before the content, so the file is read a first time to compute it, then the content is transferred from the
+     * channel to the output stream. The transfer is done without copy in the heap only when the output stream of this
+     * writer is itself a {@link FileOutputStream}. Other streams (servlet, buffered streams...) receive the content
+     * through the heap buffer of {@link Channels#newChannel(OutputStream)}. A {@link ZipException} is thrown if the
+     * size of the file changes between the two reads.
+     * 
+     * @param name the entry name.
+     * @param channel the channel of the uncompressed content.
+     * @throws IOException
+     */
+    public void writeStoredEntry( String name, FileChannel channel )
+        throws IOException
+    {
+        long size = checkSize( channel.size() );
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+        long position = 0;
+        while ( position < size )
+        {
+            buffer.clear();
+            int read = channel.read( buffer, position );
+            if ( read <= 0 )
+            {
+                throw new ZipException( "Unexpected end of file, file was modified while it is written." );
+            }
+            crc.update( buffer.array(), 0, read );
+            position += read;
+        }
+        Entry entry = startEntry( name, ZipEntry.STORED, 0 );
+        entry.crc = crc.getValue();
+        entry.size = size;
+        entry.compressedSize = size;
+        writeLocalFileHeader( entry );
+        out.flush();
+        WritableByteChannel target =
+            out instanceof FileOutputStream ? ( (FileOutputStream) out ).getChannel() : Channels.newChannel( out );
+        transfer( channel, size, target );
+        written += size;
+        if ( channel.size() != size )
+        {
+            throw new ZipException( "File was modified while it is written." );
+        }
+        entries.add( entry );
+    }
+
+    /**
+     * Write an entry with the content of the given file channel by compressing it with the given level.
+     * 
+     * @param name the entry name.
+     * @param channel the channel of the uncompressed content.
+     * @param level the compression level (see {@link Deflater}).
+     * @throws IOException
+     */
+    public void writeDeflatedEntry( String name, FileChannel channel, int level )
+        throws IOException
+    {
+        OutputStream entryOut = openEntry( name, level );
+        transfer( channel, channel.size(), Channels.newChannel( entryOut ) );
+        entryOut.close();
+    }
+
+    private static void transfer( FileChannel channel, long size, WritableByteChannel target )
+        throws IOException
+    {
+        long position = 0;
+        while ( position < size )
+        {
+            long transferred = channel.transferTo( position, size - position, target );
+            if ( transferred <= 0 )
+            {
+                throw new ZipException( "Unexpected end of file, file was modified while it is written." );
+            }
+            position += transferred;
+        }
+    }
+
+    /**
+     * Open an entry which is compressed with the given level while it is written. The returned stream must be closed
+     * before writing another entry.
+     * 
+     * @param name the entry name.
+     * @param level the compression level (see {@link Deflater}).
+     * @return the stream to write the uncompressed content of the entry.
+     * @throws IOException
+     */
+    public OutputStream openEntry( String name, int level )
+        throws IOException
+    {
+        Entry entry = startEntry( name, ZipEntry.DEFLATED, DATA_DESCRIPTOR_FLAG );
+        writeLocalFileHeader( entry );
+        entryOpened = true;
+        return new DeflatedEntryOutputStream( entry, level );
+    }
+
+    /**
+     * Write the central directory. The underlying stream is not closed.
+     * 
+     * @throws IOException
+     */
+    public void finish()
+        throws IOException
+    {
+        if ( finished )
+        {
+            return;
+        }
+        checkNoOpenedEntry();
+        long centralDirectoryOffset = written;
+        for ( Entry entry : entries )
+        {
+            writeCentralFileHeader( entry );
+        }
+        long centralDirectorySize = written - centralDirectoryOffset;
+        checkSize( written );
+        writeInt( header, 0, END_OF_CENTRAL_DIRECTORY_SIGNATURE );
+        writeShort( header, 4, 0 );
+        writeShort( header, 6, 0 );
+        writeShort( header, 8, entries.size() );
+        writeShort( header, 10, entries.size() );
+        writeInt( header, 12, centralDirectorySize );
+        writeInt( header, 16, centralDirectoryOffset );
+        writeShort( header, 20, 0 );
+        writeBytes( header, 0, 22 );
+        out.flush();
+        finished = true;
+    }
+
+    /**
+     * Write the central directory and close the underlying stream.
+     * 
+     * @throws IOException
+     */
+    public void close()
+        throws IOException
+    {
+        try
+        {
+            finish();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private Entry startEntry( String name, int method, int flag )
+        throws IOException
+    {
+        if ( finished )
+        {
+            throw new ZipException( "Zip is already finished." );
+        }
+        checkNoOpenedEntry();
+        if ( !entryNames.add( name ) )
+        {
+            throw new ZipException( "duplicate entry: " + name );
+        }
+        if ( entries.size() >= MAX_ENTRIES )
+        {
+            throw new ZipException( "ZIP64 is not supported: too many entries." );
+        }
+        checkSize( written );
+        Entry entry = new Entry();
+        entry.name = name.getBytes( EncodingConstants.UTF_8 );
+        entry.method = method;
+        entry.flag = flag;
+        for ( int i = 0; i < entry.name.length; i++ )
+        {
+            if ( entry.name[i] < 0 )
+            {
+                // non ASCII name
+                entry.flag |= UTF8_FLAG;
+                break;
+            }
+        }
+        entry.offset = written;
+        return entry;
+    }
+
+    private void checkNoOpenedEntry()
+        throws ZipException
+    {
+        if ( entryOpened )
+        {
+            throw new ZipException( "Previous entry is not closed." );
+        }
+    }
+
+    private void writeLocalFileHeader( Entry entry )
+        throws IOException
+    {
+        boolean dataDescriptor = ( entry.flag & DATA_DESCRIPTOR_FLAG ) != 0;
+        writeInt( header, 0, LOCAL_FILE_HEADER_SIGNATURE );
+        writeShort( header, 4, VERSION );
+        writeShort( header, 6, entry.flag );
+        writeShort( header, 8, entry.method );
+        writeInt( header, 10, dosTime );
+        writeInt( header, 14, dataDescriptor ? 0 : entry.crc );
+        writeInt( header, 18, dataDescriptor ? 0 : checkSize( entry.compressedSize ) );
+        writeInt( header, 22, dataDescriptor ? 0 : checkSize( entry.size ) );
+        writeShort( header, 26, entry.name.length );
+        writeShort( header, 28, 0 );
+        writeBytes( header, 0, 30 );
+        writeBytes( entry.name, 0, entry.name.length );
+    }
+
+    private void writeDataDescriptor( Entry entry )
+        throws IOException
+    {
+        writeInt( header, 0, DATA_DESCRIPTOR_SIGNATURE );
+        writeInt( header, 4, entry.crc );
+        writeInt( header, 8, checkSize( entry.compressedSize ) );
+        writeInt( header, 12, checkSize( entry.size ) );
+        writeBytes( header, 0, 16 );
+    }
+
+    private void writeCentralFileHeader( Entry entry )
+        throws IOException
+    {
+        writeInt( header, 0, CENTRAL_FILE_HEADER_SIGNATURE );
+        writeShort( header, 4, VERSION );
+        writeShort( header, 6, VERSION );
+        writeShort( header, 8, entry.flag );
+        writeShort( header, 10, entry.method );
+        writeInt( header, 12, dosTime );
+        writeInt( header, 16, entry.crc );
+        writeInt( header, 20, entry.compressedSize );
+        writeInt( header, 24, entry.size );
+        writeShort( header, 28, entry.name.length );
+        writeShort( header, 30, 0 );
+        writeShort( header, 32, 0 );
+        writeShort( header, 34, 0 );
+        writeShort( header, 36, 0 );
+        writeInt( header, 38, 0 );
+        writeInt( header, 42, entry.offset );
+        writeBytes( header, 0, 46 );
+        writeBytes( entry.name, 0, entry.name.length );
+    }
+
+    private void writeBytes( byte[] b, int off, int len )
+        throws IOException
+    {
+        out.write( b, off, len );
+        written += len;
+    }
+
+    private static long checkSize( long size )
+        throws ZipException
+    {
+        if ( size >= MAX_SIZE )
+        {
+            throw new ZipException( "ZIP64 is not supported: zip is too big." );
+        }
+        return size;
+    }
+
+    private static void writeShort( byte[] b, int off, int v )
+    {
+        b[off] = (byte) v;
+        b[off + 1] = (byte) ( v >>> 8 );
+    }
+
+    private static void writeInt( byte[] b, int off, long v )
+    {
+        b[off] = (byte) v;
+        b[off + 1] = (byte) ( v >>> 8 );
+        b[off + 2] = (byte) ( v >>> 16 );
+        b[off + 3] = (byte) ( v >>> 24 );
+    }
+
+    private static long toDosTime( long time )
+    {
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis( time );
+        int year = c.get( Calendar.YEAR );
+        if ( year < 1980 )
+        {
+            return ( 1 << 21 ) | ( 1 << 16 );
+        }
+        return ( year - 1980 ) << 25 | ( c.get( Calendar.MONTH ) + 1 ) << 21 | c.get( Calendar.DAY_OF_MONTH ) << 16
+            | c.get( Calendar.HOUR_OF_DAY ) << 11 | c.get( Calendar.MINUTE ) << 5 | c.get( Calendar.SECOND ) >> 1;
+    }
+
+    /**
+     * Entry written in the zip.
+     */
+    private static class Entry
+    {
+        byte[] name;
+
+        int method;
+
+        int flag;
+
+        long crc;
+
+        long size;
+
+        long compressedSize;
+
+        long offset;
+    }
+
+    /**
+     * Stream which compresses the content of an entry in the zip.
+     */
+    private class DeflatedEntryOutputStream
+        extends OutputStream
+    {
+
+        private final Entry entry;
+
+        private final Deflater deflater;
+
+        private final DeflaterOutputStream deflaterOut;
+
+        private final CRC32 crc;
+
+        private long size;
+
+        private boolean closed;
+
+        public DeflatedEntryOutputStream( Entry entry, int level )
+        {
+            this.entry = entry;
+            this.deflater = new Deflater( level, true );
+            this.deflaterOut = new DeflaterOutputStream( new OutputStream()
+            {
+                @Override
+                public void write( int b )
+                    throws IOException
+                {
+                    write( new byte[] { (byte) b }, 0, 1 );
+                }
+
+                @Override
+                public void write( byte[] b, int off, int len )
+                    throws IOException
+                {
+                    writeBytes( b, off, len );
+                }
+            }, deflater, 8192 );
+            this.crc = new CRC32();
+        }
+
+        @Override
+        public void write( int b )
+            throws IOException
+        {
+            write( new byte[] { (byte) b }, 0, 1 );
+        }
+
+        @Override
+        public void write( byte[] b, int off, int len )
+            throws IOException
+        {
+            if ( closed )
+            {
+                throw new IOException( "Stream closed." );
+            }
+            deflaterOut.write( b, off, len );
+            crc.update( b, off, len );
+            size += len;
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            if ( closed )
+            {
+                return;
+            }
+            closed = true;
+            try
+            {
+                deflaterOut.finish();
+                entry.crc = crc.getValue();
+                entry.size = size;
+                entry.compressedSize = deflater.getBytesWritten();
+            }
+            finally
+            {
+                deflater.end();
+            }
+            writeDataDescriptor( entry );
+            entries.add( entry );
+            entryOpened = false;
+        }
+    }
+}
@@ -40,7 +40,7 @@ public abstract class AbstractRegistry<Discovery extends IBaseDiscovery>
      */
     private static final Logger LOGGER = LogUtils.getLogger( AbstractRegistry.class.getName() );
 
-    private boolean initialized;
+    private volatile boolean initialized;
 
     private final Class<Discovery> registryType;
 
@@ -58,34 +58,41 @@ public abstract class AbstractRegistry<Discovery extends IBaseDiscovery>
     {
         if ( !initialized )
         {
-            onStartInitialization();
-            // getClass().getClassLoader() to work under OSGi context
-
-            Iterator<Discovery> discoveries =
-                JDKServiceLoader.lookupProviders( registryType, getClass().getClassLoader() );
-            if ( LOGGER.isLoggable( Level.FINE ) )
+            // registries are shared singletons, initialize them only once when several threads use them
+            synchronized ( this )
             {
-                LOGGER.fine( "discoveries found ? " + discoveries.hasNext() );
-            }
-
-            while ( discoveries.hasNext() )
-            {
-                Discovery instance = discoveries.next();
-                try
+                if ( !initialized )
                 {
-                    boolean result = registerInstance( instance );
+                    onStartInitialization();
+                    // getClass().getClassLoader() to work under OSGi context
+
+                    Iterator<Discovery> discoveries =
+                        JDKServiceLoader.lookupProviders( registryType, getClass().getClassLoader() );
                     if ( LOGGER.isLoggable( Level.FINE ) )
                     {
-                        LOGGER.fine( "Registered Discovery instance  " + instance + " " + result );
+                        LOGGER.fine( "discoveries found ? " + discoveries.hasNext() );
                     }
-                }
-                catch ( Throwable e )
-                {
-                    LOGGER.log( Level.WARNING, "Error while registration of Discovery instance  " + instance, e );
+
+                    while ( discoveries.hasNext() )
+                    {
+                        Discovery instance = discoveries.next();
+                        try
+                        {
+                            boolean result = registerInstance( instance );
+                            if ( LOGGER.isLoggable( Level.FINE ) )
+                            {
+                                LOGGER.fine( "Registered Discovery instance  " + instance + " " + result );
+                            }
+                        }
+                        catch ( Throwable e )
+                        {
+                            LOGGER.log( Level.WARNING, "Error while registration of Discovery instance  " + instance, e );
+                        }
+                    }
+                    onEndInitialization();
+                    initialized = true;
                 }
             }
-            onEndInitialization();
-            initialized = true;
         }
     }
 
@@ -123,4 +130,4 @@ public abstract class AbstractRegistry<Discovery extends IBaseDiscovery>
     }
 
     protected abstract void doDispose();
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -290,6 +290,65 @@ public final class Base64Utility
         return out;
     }
 
+    /**
+     * Returns the length of the base64 representation of the given number of bytes.
+     * 
+     * @param l the number of bytes to encode.
+     * @return the number of base64 chars.
+     */
+    public static int encodedLength( int l )
+    {
+        return ( l + 2 ) / 3 * 4;
+    }
+
+    /**
+     * Encodes the bytes of the given array in base64 directly in the given char array (which must have
+     * {@link #encodedLength(int)} chars available) to avoid intermediate copies when the base64 representation is a
+     * part of a bigger content (ex : data URI).
+     * 
+     * @param id the bytes to encode.
+     * @param o the offset of the first byte to encode.
+     * @param l the number of bytes to encode.
+     * @param out the char array where base64 chars must be written.
+     * @param windex the index of the first char to write.
+     * @return the index after the last written char.
+     */
+    public static int encode( byte[] id, int o, int l, char[] out, int windex )
+    {
+        int rindex = o;
+        int rest = l;
+
+        while ( rest >= 3 )
+        {
+            int i = ( ( id[rindex] & 0xff ) << 16 ) + ( ( id[rindex + 1] & 0xff ) << 8 ) + ( id[rindex + 2] & 0xff );
+
+            out[windex++] = BCS[i >> 18];
+            out[windex++] = BCS[( i >> 12 ) & 0x3f];
+            out[windex++] = BCS[( i >> 6 ) & 0x3f];
+            out[windex++] = BCS[i & 0x3f];
+            rindex += 3;
+            rest -= 3;
+        }
+
+        if ( rest == 1 )
+        {
+            int i = id[rindex] & 0xff;
+            out[windex++] = BCS[i >> 2];
+            out[windex++] = BCS[( i << 4 ) & 0x3f];
+            out[windex++] = PAD;
+            out[windex++] = PAD;
+        }
+        else if ( rest == 2 )
+        {
+            int i = ( ( id[rindex] & 0xff ) << 8 ) + ( id[rindex + 1] & 0xff );
+            out[windex++] = BCS[i >> 10];
+            out[windex++] = BCS[( i >> 4 ) & 0x3f];
+            out[windex++] = BCS[( i << 2 ) & 0x3f];
+            out[windex++] = PAD;
+        }
+        return windex;
+    }
+
     //
     // Outputs base64 representation of the specified byte array
     // to a byte stream.
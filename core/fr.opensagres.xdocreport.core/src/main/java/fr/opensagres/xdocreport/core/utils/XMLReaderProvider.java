@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.core.utils;
+
+import java.io.IOException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Provider of namespace aware SAX {@link XMLReader} configured to avoid XXE security issue (no load of external DTD
+ * and entities).
+ * <p>
+ * Creating a {@link XMLReader} (service lookup of the SAX implementation, parser configuration) is costly compared to
+ * the parse of the small XML contents of XDocReport (text styling, *.rels). So each thread keeps one reader which is
+ * reused by the next parse of the thread. A reader is reset (handlers) before being reused and a parse which is
+ * called by a content handler while a parse is in progress uses another reader.
+ * </p>
+ */
+public class XMLReaderProvider
+{
+
+    private static final String LOAD_EXTERNAL_DTD_FEATURE =
+        "http://apache.org/xml/features/nonvalidating/load-external-dtd";
+
+    private static final String EXTERNAL_GENERAL_ENTITIES_FEATURE =
+        "http://xml.org/sax/features/external-general-entities";
+
+    private static final String EXTERNAL_PARAMETER_ENTITIES_FEATURE =
+        "http://xml.org/sax/features/external-parameter-entities";
+
+    private static final DefaultHandler NULL_HANDLER = new DefaultHandler();
+
+    private static final SAXParserFactory FACTORY;
+
+    static
+    {
+        FACTORY = SAXParserFactory.newInstance();
+        FACTORY.setNamespaceAware( true );
+    }
+
+    private static final ThreadLocal<XMLReader> IDLE_READER = new ThreadLocal<XMLReader>();
+
+    /**
+     * Parse the given XML input with the given content handler.
+     * 
+     * @param input
+     * @param contentHandler
+     * @throws SAXException
+     * @throws IOException
+     */
+    public static void parse( InputSource input, ContentHandler contentHandler )
+        throws SAXException, IOException
+    {
+        XMLReader xmlReader = acquire();
+        boolean reusable = false;
+        try
+        {
+            xmlReader.setContentHandler( contentHandler );
+            xmlReader.parse( input );
+            reusable = true;
+        }
+        finally
+        {
+            if ( reusable )
+            {
+                // a reader which has failed is not reused.
+                release( xmlReader );
+            }
+        }
+    }
+
+    /**
+     * Returns the reader of the current thread if it's not used and a new reader otherwise. The reader must be given
+     * back with {@link #release(XMLReader)} after the parse.
+     * 
+     * @return
+     * @throws SAXException
+     */
+    public static XMLReader acquire()
+        throws SAXException
+    {
+        XMLReader xmlReader = IDLE_READER.get();
+        if ( xmlReader != null )
+        {
+            IDLE_READER.set( null );
+            return xmlReader;
+        }
+        return createXMLReader();
+    }
+
+    /**
+     * Reset the given reader and keep it for the next parse of the current thread.
+     * 
+     * @param xmlReader
+     */
+    public static void release( XMLReader xmlReader )
+    {
+        if ( xmlReader == null )
+        {
+            return;
+        }
+        // don't keep the handlers (and the model) of the last parse.
+        xmlReader.setContentHandler( NULL_HANDLER );
+        if ( xmlReader.getDTDHandler() != null )
+        {
+            xmlReader.setDTDHandler( NULL_HANDLER );
+        }
+        if ( xmlReader.getEntityResolver() != null )
+        {
+            xmlReader.setEntityResolver( NULL_HANDLER );
+        }
+        if ( xmlReader.getErrorHandler() != null )
+        {
+            xmlReader.setErrorHandler( NULL_HANDLER );
+        }
+        if ( IDLE_READER.get() == null )
+        {
+            IDLE_READER.set( xmlReader );
+        }
+    }
+
+    /**
+     * Create a new namespace aware {@link XMLReader} which doesn't load external DTD and entities.
+     * 
+     * @return
+     * @throws SAXException
+     */
+    public static XMLReader createXMLReader()
+        throws SAXException
+    {
+        XMLReader xmlReader = null;
+        try
+        {
+            // SAXParserFactory is not thread-safe
+            synchronized ( FACTORY )
+            {
+                xmlReader = FACTORY.newSAXParser().getXMLReader();
+            }
+        }
+        catch ( ParserConfigurationException e )
+        {
+            throw new SAXException( e );
+        }
+        // To avoid xxe security issue
+        setFeature( xmlReader, LOAD_EXTERNAL_DTD_FEATURE, false );
+        setFeature( xmlReader, EXTERNAL_GENERAL_ENTITIES_FEATURE, false );
+        setFeature( xmlReader, EXTERNAL_PARAMETER_ENTITIES_FEATURE, false );
+        return xmlReader;
+    }
+
+    private static void setFeature( XMLReader xmlReader, String name, boolean value )
+        throws SAXNotSupportedException
+    {
+        try
+        {
+            xmlReader.setFeature( name, value );
+        }
+        catch ( SAXNotRecognizedException e )
+        {
+            // the feature is specific to another SAX implementation, ignore it.
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.core.cache;
+
+import junit.framework.TestCase;
+
+public class BoundedCacheStorageTestCase
+    extends TestCase
+{
+
+    private static final ICacheWeigher<String, String> LENGTH_WEIGHER = new ICacheWeigher<String, String>()
+    {
+        public long weigh( String key, String value )
+        {
+            return value.length();
+        }
+    };
+
+    public void testEvictLeastRecentlyUsed()
+    {
+        BoundedCacheStorage<String, String> cache = new BoundedCacheStorage<String, String>( 10, LENGTH_WEIGHER );
+        cache.put( "a", "aaaa" );
+        cache.put( "b", "bbbb" );
+        // "a" becomes the most recently used entry
+        assertEquals( "aaaa", cache.get( "a" ) );
+        cache.put( "c", "cccc" );
+
+        assertTrue( cache.containsKey( "a" ) );
+        assertFalse( cache.containsKey( "b" ) );
+        assertTrue( cache.containsKey( "c" ) );
+        assertEquals( 8, cache.getWeight() );
+        assertEquals( 1, cache.getEvictionCount() );
+    }
+
+    public void testEntryLargerThanMaximumWeight()
+    {
+        BoundedCacheStorage<String, String> cache = new BoundedCacheStorage<String, String>( 10, LENGTH_WEIGHER );
+        cache.put( "a", "aaaa" );
+        cache.put( "b", "bbbbbbbbbbbbbbbb" );
+
+        // the added entry is kept, the others are evicted
+        assertFalse( cache.containsKey( "a" ) );
+        assertEquals( "bbbbbbbbbbbbbbbb", cache.get( "b" ) );
+        assertEquals( 1, cache.size() );
+    }
+
+    public void testReplaceAndRemove()
+    {
+        BoundedCacheStorage<String, String> cache = new BoundedCacheStorage<String, String>( 10, LENGTH_WEIGHER );
+        cache.put( "a", "aaaa" );
+        cache.put( "a", "aa" );
+        assertEquals( 2, cache.getWeight() );
+        cache.remove( "a" );
+        assertEquals( 0, cache.getWeight() );
+        assertTrue( cache.values().isEmpty() );
+    }
+
+    public void testStats()
+    {
+        BoundedCacheStorage<String, String> cache = new BoundedCacheStorage<String, String>( 2 );
+        cache.put( "a", "a" );
+        cache.get( "a" );
+        cache.get( "a" );
+        cache.get( "b" );
+        cache.put( "b", "b" );
+        cache.put( "c", "c" );
+
+        assertEquals( 2, cache.getHitCount() );
+        assertEquals( 1, cache.getMissCount() );
+        assertEquals( 1, cache.getEvictionCount() );
+        assertEquals( 2.0 / 3, cache.getHitRate(), 0.0001 );
+
+        cache.resetStatistics();
+        assertEquals( 0, cache.getHitCount() );
+        assertEquals( 0, cache.getMissCount() );
+        assertEquals( 0, cache.getEvictionCount() );
+        assertEquals( 2, cache.size() );
+    }
+}
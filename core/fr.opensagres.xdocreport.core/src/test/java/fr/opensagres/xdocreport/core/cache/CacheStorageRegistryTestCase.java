@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.core.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class CacheStorageRegistryTestCase
+    extends TestCase
+{
+
+    /**
+     * A factory written before {@link ICacheStorageFactoryDiscovery#createCache(ICacheWeigher)} existed.
+     */
+    private static class LegacyCacheStorageFactory
+        implements ICacheStorageFactoryDiscovery
+    {
+        public String getId()
+        {
+            return "legacy";
+        }
+
+        public String getDescription()
+        {
+            return null;
+        }
+    }
+
+    /**
+     * A storage written before {@link ICacheStorage#putIfAbsent(Object, Object)} existed.
+     */
+    private static class LegacyCacheStorage
+        implements ICacheStorage<String, String>
+    {
+        private final Map<String, String> map = new HashMap<String, String>();
+
+        public String get( String key )
+        {
+            return map.get( key );
+        }
+
+        public void put( String key, String value )
+        {
+            map.put( key, value );
+        }
+
+        public void remove( String key )
+        {
+            map.remove( key );
+        }
+
+        public void clear()
+        {
+            map.clear();
+        }
+
+        public boolean containsKey( String key )
+        {
+            return map.containsKey( key );
+        }
+
+        public Collection<String> values()
+        {
+            return map.values();
+        }
+    }
+
+    public void testLegacyFactoryFallsBackToMapCacheStorage()
+    {
+        CacheStorageRegistry registry = new CacheStorageRegistry();
+        registry.setCacheStorageFactory( new LegacyCacheStorageFactory() );
+        assertTrue( registry.createCache() instanceof MapCacheStorage );
+    }
+
+    public void testDefaultPutIfAbsent()
+    {
+        ICacheStorage<String, String> cache = new LegacyCacheStorage();
+        assertNull( cache.putIfAbsent( "a", "1" ) );
+        assertEquals( "1", cache.putIfAbsent( "a", "2" ) );
+        assertEquals( "1", cache.get( "a" ) );
+    }
+}
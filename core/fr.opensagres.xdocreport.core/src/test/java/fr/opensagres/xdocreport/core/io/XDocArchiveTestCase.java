@@ -24,14 +24,30 @@
  */
 package fr.opensagres.xdocreport.core.io;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
 
 import junit.framework.TestCase;
+import fr.opensagres.xdocreport.core.io.internal.RawZipEntry;
 import fr.opensagres.xdocreport.core.logging.LogUtils;
 
 /**
@@ -132,6 +148,238 @@ public class XDocArchiveTestCase
         contentWriter.close();
     }
 
+    public void testCreateCopy()
+        throws IOException
+    {
+        InputStream input = XDocArchiveTestCase.class.getResourceAsStream( "empty.odt" );
+        XDocArchive archive = XDocArchive.readZip( input );
+        String content = IOUtils.toString( archive.getEntryReader( "content.xml" ) );
+
+        XDocArchive copy = archive.createCopy();
+        assertEquals( archive.getEntryNames(), copy.getEntryNames() );
+        assertEquals( content, IOUtils.toString( copy.getEntryReader( "content.xml" ) ) );
+
+        // modify the copy, the original archive must not change
+        Writer contentWriter = copy.getEntryWriter( "content.xml" );
+        contentWriter.write( "bla bla bla" );
+        contentWriter.close();
+        assertEquals( "bla bla bla", IOUtils.toString( copy.getEntryReader( "content.xml" ) ) );
+        assertEquals( content, IOUtils.toString( archive.getEntryReader( "content.xml" ) ) );
+
+        // dispose the copy, the original archive must not change
+        copy.dispose();
+        assertFalse( archive.getEntryNames().isEmpty() );
+        assertEquals( content, IOUtils.toString( archive.getEntryReader( "content.xml" ) ) );
+    }
+
+    public void testWriteZip()
+        throws IOException
+    {
+        byte[] odt = IOUtils.toByteArray( XDocArchiveTestCase.class.getResourceAsStream( "empty.odt" ) );
+        XDocArchive archive = XDocArchive.readZip( new ByteArrayInputStream( odt ) );
+
+        // the original zip content kept to write the unmodified entries is counted once in the size
+        long entriesSize = 0;
+        for ( String entryName : archive.getEntryNames() )
+        {
+            entriesSize += IOUtils.toByteArray( archive.getEntryInputStream( entryName ) ).length;
+        }
+        assertEquals( entriesSize + odt.length, archive.getSize() );
+
+        // modify the content.xml entry
+        XDocArchive copy = archive.createCopy();
+        Writer contentWriter = copy.getEntryWriter( "content.xml" );
+        contentWriter.write( "bla bla bla" );
+        contentWriter.close();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XDocArchive.writeZip( copy, out );
+        byte[] zip = out.toByteArray();
+
+        // check the content of the written zip
+        XDocArchive result = XDocArchive.readZip( new ByteArrayInputStream( zip ) );
+        assertEquals( archive.getEntryNames(), result.getEntryNames() );
+        assertEquals( "mimetype", result.getEntryNames().iterator().next() );
+        for ( String entryName : archive.getEntryNames() )
+        {
+            String expected =
+                "content.xml".equals( entryName ) ? "bla bla bla"
+                                : IOUtils.toString( archive.getEntryReader( entryName ) );
+            assertEquals( expected, IOUtils.toString( result.getEntryReader( entryName ) ) );
+        }
+
+        // check that the not modified entries are written with the original content
+        Map<String, RawZipEntry> originalEntries = RawZipEntry.readEntries( odt );
+        Map<String, RawZipEntry> writtenEntries = RawZipEntry.readEntries( zip );
+        assertEquals( ZipEntry.STORED, writtenEntries.get( "mimetype" ).getMethod() );
+        for ( String entryName : archive.getEntryNames() )
+        {
+            RawZipEntry originalEntry = originalEntries.get( entryName );
+            RawZipEntry writtenEntry = writtenEntries.get( entryName );
+            if ( !"content.xml".equals( entryName ) && originalEntry.getMethod() == writtenEntry.getMethod() )
+            {
+                assertEquals( originalEntry.getCrc(), writtenEntry.getCrc() );
+                assertEquals( originalEntry.getCompressedSize(), writtenEntry.getCompressedSize() );
+                for ( int i = 0; i < originalEntry.getCompressedSize(); i++ )
+                {
+                    assertEquals( originalEntry.getData()[originalEntry.getOffset() + i],
+                                  writtenEntry.getData()[writtenEntry.getOffset() + i] );
+                }
+            }
+        }
+    }
+
+    public void testWriteZipWithOptions()
+        throws IOException
+    {
+        byte[] odt = IOUtils.toByteArray( XDocArchiveTestCase.class.getResourceAsStream( "empty.odt" ) );
+        XDocArchive archive = XDocArchive.readZip( new ByteArrayInputStream( odt ) );
+
+        // add large entries (compressed in parallel) and an image (stored)
+        XDocArchive copy = archive.createCopy();
+        byte[] image = new byte[1000];
+        for ( int i = 0; i < image.length; i++ )
+        {
+            image[i] = (byte) i;
+        }
+        OutputStream imageStream = copy.getEntryOutputStream( "Pictures/image.png" );
+        imageStream.write( image );
+        imageStream.close();
+        for ( int i = 0; i < 5; i++ )
+        {
+            Writer writer = copy.getEntryWriter( "large" + i + ".xml" );
+            for ( int j = 0; j < 10000; j++ )
+            {
+                writer.write( "<p>" + i + " " + j + "</p>" );
+            }
+            writer.close();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        byte[] zip;
+        try
+        {
+            ZipOutputOptions options =
+                ZipOutputOptions.create().level( "xml", Deflater.BEST_SPEED )
+                    .storeCompressedImages().parallel( executor ).parallelThreshold( 1024 );
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            XDocArchive.writeZip( copy, out, options );
+            zip = out.toByteArray();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // check the content and the order of the written zip ('mimetype' is the first entry)
+        XDocArchive result = XDocArchive.readZip( new ByteArrayInputStream( zip ) );
+        List<String> expectedEntryNames = new ArrayList<String>( copy.getEntryNames() );
+        expectedEntryNames.remove( "mimetype" );
+        expectedEntryNames.add( 0, "mimetype" );
+        assertEquals( expectedEntryNames, new ArrayList<String>( result.getEntryNames() ) );
+        for ( String entryName : copy.getEntryNames() )
+        {
+            assertTrue( entryName, Arrays.equals( IOUtils.toByteArray( copy.getEntryInputStream( entryName ) ),
+                                                  IOUtils.toByteArray( result.getEntryInputStream( entryName ) ) ) );
+        }
+        Map<String, RawZipEntry> writtenEntries = RawZipEntry.readEntries( zip );
+        assertEquals( ZipEntry.STORED, writtenEntries.get( "mimetype" ).getMethod() );
+        assertEquals( ZipEntry.STORED, writtenEntries.get( "Pictures/image.png" ).getMethod() );
+        assertEquals( ZipEntry.DEFLATED, writtenEntries.get( "large0.xml" ).getMethod() );
+    }
+
+    public void testWriteZipWithFileEntries()
+        throws IOException
+    {
+        byte[] odt = IOUtils.toByteArray( XDocArchiveTestCase.class.getResourceAsStream( "empty.odt" ) );
+        XDocArchive archive = XDocArchive.readZip( new ByteArrayInputStream( odt ) );
+
+        File dir = new File( "target/XDocArchiveTestCase" );
+        dir.mkdirs();
+        byte[] image = new byte[100000];
+        for ( int i = 0; i < image.length; i++ )
+        {
+            image[i] = (byte) ( i * 7 );
+        }
+        File imageFile = new File( dir, "image.png" );
+        File dataFile = new File( dir, "data.bin" );
+        OutputStream out = new FileOutputStream( imageFile );
+        out.write( image );
+        out.close();
+        out = new FileOutputStream( dataFile );
+        out.write( image, 0, 1000 );
+        out.close();
+
+        XDocArchive copy = archive.createCopy();
+        copy.setFileEntry( "Pictures/image.png", imageFile );
+        copy.setFileEntry( "Pictures/data.bin", dataFile );
+        assertTrue( copy.hasEntry( "Pictures/image.png" ) );
+        assertFalse( archive.hasEntry( "Pictures/image.png" ) );
+        assertTrue( Arrays.equals( image, IOUtils.toByteArray( copy.getEntryInputStream( "Pictures/image.png" ) ) ) );
+        assertEquals( archive.getSize() + 101000, copy.getSize() );
+
+        // write the zip in a file (file entries are transferred between the channels) and in memory
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        File zipFile = new File( dir, "result.odt" );
+        ByteArrayOutputStream zipOut = new ByteArrayOutputStream();
+        try
+        {
+            ZipOutputOptions options =
+                ZipOutputOptions.create().storeCompressedImages().parallel( executor ).parallelThreshold( 0 );
+            out = new FileOutputStream( zipFile );
+            XDocArchive.writeZip( copy, out, options );
+            XDocArchive.writeZip( copy, zipOut, options );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        InputStream zipInput = new FileInputStream( zipFile );
+        byte[] zipFromFile = IOUtils.toByteArray( zipInput );
+        zipInput.close();
+        for ( byte[] zip : Arrays.asList( zipFromFile, zipOut.toByteArray() ) )
+        {
+            XDocArchive result = XDocArchive.readZip( new ByteArrayInputStream( zip ) );
+            assertEquals( copy.getEntryNames(), result.getEntryNames() );
+            for ( String entryName : copy.getEntryNames() )
+            {
+                assertTrue( entryName, Arrays.equals( IOUtils.toByteArray( copy.getEntryInputStream( entryName ) ),
+                                                      IOUtils.toByteArray( result.getEntryInputStream( entryName ) ) ) );
+            }
+            Map<String, RawZipEntry> writtenEntries = RawZipEntry.readEntries( zip );
+            assertEquals( ZipEntry.STORED, writtenEntries.get( "Pictures/image.png" ).getMethod() );
+            assertEquals( ZipEntry.DEFLATED, writtenEntries.get( "Pictures/data.bin" ).getMethod() );
+        }
+
+        // replace the file entry
+        out = copy.getEntryOutputStream( "Pictures/image.png" );
+        out.write( 1 );
+        out.close();
+        assertEquals( 1, IOUtils.toByteArray( copy.getEntryInputStream( "Pictures/image.png" ) ).length );
+
+        // a file entry must be an existing file
+        try
+        {
+            copy.setFileEntry( "Pictures/unknown.png", new File( dir, "unknown.png" ) );
+            fail( "IllegalArgumentException expected" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertFalse( copy.hasEntry( "Pictures/unknown.png" ) );
+        }
+        assertTrue( dataFile.delete() );
+        try
+        {
+            copy.getEntryInputStream( "Pictures/data.bin" );
+            fail( "UncheckedIOException expected" );
+        }
+        catch ( UncheckedIOException e )
+        {
+            // the file was removed after the entry was set
+        }
+    }
+
     /**
      * docx with entry name with '\'.
      * 
@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.core.utils;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class XMLReaderProviderTestCase
+    extends TestCase
+{
+
+    public void testReaderIsReused()
+        throws SAXException
+    {
+        XMLReader reader = XMLReaderProvider.acquire();
+        XMLReaderProvider.release( reader );
+        assertSame( reader, XMLReaderProvider.acquire() );
+        // the reader is used, another reader is created
+        assertNotSame( reader, XMLReaderProvider.acquire() );
+        XMLReaderProvider.release( reader );
+    }
+
+    public void testNestedParse()
+        throws SAXException, IOException
+    {
+        final StringBuilder text = new StringBuilder();
+        XMLReaderProvider.parse( new InputSource( new StringReader( "<a><b/></a>" ) ), new DefaultHandler()
+        {
+            @Override
+            public void startElement( String uri, String localName, String qName, Attributes attributes )
+                throws SAXException
+            {
+                text.append( localName );
+                if ( "b".equals( localName ) )
+                {
+                    try
+                    {
+                        XMLReaderProvider.parse( new InputSource( new StringReader( "<c>d</c>" ) ),
+                                                 new DefaultHandler()
+                                                 {
+                                                     @Override
+                                                     public void characters( char[] ch, int start, int length )
+                                                     {
+                                                         text.append( ch, start, length );
+                                                     }
+                                                 } );
+                    }
+                    catch ( IOException e )
+                    {
+                        throw new SAXException( e );
+                    }
+                }
+            }
+        } );
+        assertEquals( "abd", text.toString() );
+    }
+
+    public void testExternalEntityIsNotLoaded()
+        throws SAXException, IOException
+    {
+        File file = File.createTempFile( "xxe", ".txt" );
+        file.deleteOnExit();
+        FileWriter writer = new FileWriter( file );
+        try
+        {
+            writer.write( "secret" );
+        }
+        finally
+        {
+            writer.close();
+        }
+        String xml =
+            "<!DOCTYPE a [<!ENTITY xxe SYSTEM \"" + file.toURI() + "\">]><a>&xxe;</a>";
+        final StringBuilder text = new StringBuilder();
+        XMLReaderProvider.parse( new InputSource( new StringReader( xml ) ), new DefaultHandler()
+        {
+            @Override
+            public void characters( char[] ch, int start, int length )
+            {
+                text.append( ch, start, length );
+            }
+        } );
+        assertEquals( "", text.toString() );
+    }
+}
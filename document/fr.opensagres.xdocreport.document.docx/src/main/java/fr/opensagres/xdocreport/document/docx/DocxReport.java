@@ -36,14 +36,13 @@ import static fr.opensagres.xdocreport.document.docx.DocxConstants.WORD_RELS_XML
 import static fr.opensagres.xdocreport.document.docx.DocxConstants.WORD_STYLES_XML_ENTRY;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 import fr.opensagres.xdocreport.converter.MimeMapping;
@@ -53,6 +52,8 @@ import fr.opensagres.xdocreport.core.io.IEntryOutputStreamProvider;
 import fr.opensagres.xdocreport.core.io.IEntryReaderProvider;
 import fr.opensagres.xdocreport.core.io.IEntryWriterProvider;
 import fr.opensagres.xdocreport.core.io.XDocArchive;
+import fr.opensagres.xdocreport.core.utils.StringUtils;
+import fr.opensagres.xdocreport.core.utils.XMLReaderProvider;
 import fr.opensagres.xdocreport.document.AbstractXDocReport;
 import fr.opensagres.xdocreport.document.docx.images.DocxImageRegistry;
 import fr.opensagres.xdocreport.document.docx.preprocessor.DefaultStyle;
@@ -88,6 +89,12 @@ public class DocxReport
         WORD_ENDNOTES_XML_ENTRY,
         WORD_NUMBERING_XML_ENTRY };
 
+    private static final String HYPERLINKS_STATE = "hyperlinks";
+
+    private static final String FOOTNOTES_STATE = "footnotes";
+
+    private static final String ENDNOTES_STATE = "endnotes";
+
     private Set<String> allEntryNamesHyperlinks;
 
     private Set<String> modifiedEntryNamesHyperlinks;
@@ -162,8 +169,8 @@ public class DocxReport
             try
             {
                 HyperlinkContentHandler contentHandler = new HyperlinkContentHandler();
-                SAXParser saxParser = SAXParserFactory.newInstance().newSAXParser();
-				saxParser.parse(preprocessedArchive.getEntryInputStream(relsEntryName), contentHandler);
+                XMLReaderProvider.parse( new InputSource( preprocessedArchive.getEntryInputStream( relsEntryName ) ),
+                                         contentHandler );
                 if ( contentHandler.getHyperlinks() != null )
                 {
                     // Current *.xml.rels document has hyperlinks, store it in
@@ -184,10 +191,6 @@ public class DocxReport
             {
                 throw new XDocReportException( e );
             }
-			catch (ParserConfigurationException e)
-			{
-                throw new XDocReportException( e );
-			}
         }
         // Default style
         sharedContext.put( DocxContextHelper.DEFAULT_STYLE_KEY, defaultStyle );
@@ -219,6 +222,42 @@ public class DocxReport
         }
     }
 
+    @Override
+    protected boolean savePreprocessingState( Properties state )
+    {
+        // Entries with dynamic hyperlink and notes are used by the process
+        StringBuilder hyperlinks = new StringBuilder();
+        for ( String entryName : modifiedEntryNamesHyperlinks )
+        {
+            if ( hyperlinks.length() > 0 )
+            {
+                hyperlinks.append( ',' );
+            }
+            hyperlinks.append( entryName );
+        }
+        state.setProperty( HYPERLINKS_STATE, hyperlinks.toString() );
+        state.setProperty( FOOTNOTES_STATE, String.valueOf( initialFootNoteInfoMap != null ) );
+        state.setProperty( ENDNOTES_STATE, String.valueOf( initialEndNoteInfoMap != null ) );
+        return true;
+    }
+
+    @Override
+    protected void restorePreprocessingState( Properties state )
+        throws XDocReportException
+    {
+        super.restorePreprocessingState( state );
+        modifiedEntryNamesHyperlinks = new HashSet<String>();
+        String hyperlinks = state.getProperty( HYPERLINKS_STATE );
+        if ( StringUtils.isNotEmpty( hyperlinks ) )
+        {
+            modifiedEntryNamesHyperlinks.addAll( Arrays.asList( hyperlinks.split( "," ) ) );
+        }
+        initialFootNoteInfoMap =
+            Boolean.parseBoolean( state.getProperty( FOOTNOTES_STATE ) ) ? new InitialNoteInfoMap() : null;
+        initialEndNoteInfoMap =
+            Boolean.parseBoolean( state.getProperty( ENDNOTES_STATE ) ) ? new InitialNoteInfoMap() : null;
+    }
+
     @Override
     protected void onBeforeProcessTemplateEngine( IContext context, XDocArchive outputArchive )
         throws XDocReportException
@@ -248,6 +287,17 @@ public class DocxReport
         }
     }
 
+    @Override
+    protected boolean isIndependentXMLEntry( String entryName )
+    {
+        if ( initialFootNoteInfoMap != null || initialEndNoteInfoMap != null )
+        {
+            // footnotes/endnotes registries are shared by all the entries
+            return false;
+        }
+        return super.isIndependentXMLEntry( entryName );
+    }
+
     @Override
     protected void onAfterProcessTemplateEngine( IContext context, XDocArchive outputArchive )
         throws XDocReportException
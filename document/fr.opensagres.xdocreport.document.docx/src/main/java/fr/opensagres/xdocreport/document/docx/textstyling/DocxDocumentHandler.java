@@ -32,6 +32,7 @@ import fr.opensagres.xdocreport.document.docx.preprocessor.sax.numbering.Numberi
 import fr.opensagres.xdocreport.document.docx.template.DocxContextHelper;
 import fr.opensagres.xdocreport.document.preprocessor.sax.BufferedElement;
 import fr.opensagres.xdocreport.document.textstyling.AbstractDocumentHandler;
+import fr.opensagres.xdocreport.document.textstyling.ICacheableDocumentHandler;
 import fr.opensagres.xdocreport.document.textstyling.properties.Color;
 import fr.opensagres.xdocreport.document.textstyling.properties.ContainerProperties;
 import fr.opensagres.xdocreport.document.textstyling.properties.HeaderProperties;
@@ -46,6 +47,7 @@ import fr.opensagres.xdocreport.document.textstyling.properties.TextAlignment;
 import fr.opensagres.xdocreport.template.IContext;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Stack;
 
 /**
@@ -53,6 +55,7 @@ import java.util.Stack;
  */
 public class DocxDocumentHandler
     extends AbstractDocumentHandler
+    implements ICacheableDocumentHandler
 {
 
     private boolean bolding;
@@ -89,6 +92,8 @@ public class DocxDocumentHandler
 
     private int addLineBreak;
 
+    private boolean cacheable;
+
     public DocxDocumentHandler( BufferedElement parent, IContext context, String entryName )
     {
         super( parent, context, entryName );
@@ -97,6 +102,17 @@ public class DocxDocumentHandler
         this.numberingRegistry = getNumberingRegistry( context );
         this.insideHeader = false;
         this.paragraphWasInserted = false;
+        this.cacheable = true;
+    }
+
+    public Object getStyleContext()
+    {
+        return Arrays.asList( styleGen, defaultStyle );
+    }
+
+    public boolean isCacheable()
+    {
+        return cacheable;
     }
 
     public void startDocument()
@@ -586,6 +602,8 @@ public class DocxDocumentHandler
         {
             int abstractNumId = styleGen.getAbstractNumIdForList( true, defaultStyle );
             int numId = getNumberingRegistry().addNum( abstractNumId, getMaxNumId(), true ).getNumId();
+            // the num id is registered in the numbering of the document.
+            cacheable = false;
             // numbersStack.push( numId );
             currentNumId = numId;
         }
@@ -606,6 +624,8 @@ public class DocxDocumentHandler
         {
             int abstractNumId = styleGen.getAbstractNumIdForList( false, defaultStyle );
             int numId = getNumberingRegistry().addNum( abstractNumId, getMaxNumId(), false ).getNumId();
+            // the num id is registered in the numbering of the document.
+            cacheable = false;
             // numbersStack.push( numId );
             currentNumId = numId;
         }
@@ -658,6 +678,8 @@ public class DocxDocumentHandler
             // 2) Update the hyperlink registry to modifiy the Hyperlink Relationship in the _rels/document.xml.rels
             HyperlinkRegistry registry = getHyperlinkRegistry();
             String rId = registry.registerHyperlink( ref );
+            // the relationship id is registered in the *.rels of the document.
+            cacheable = false;
 
             // 3) Generate w:hyperlink
             String hyperlinkStyleName = styleGen.getHyperLinkStyleId( defaultStyle );
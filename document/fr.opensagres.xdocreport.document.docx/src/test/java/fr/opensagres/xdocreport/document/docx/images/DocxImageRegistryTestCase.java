@@ -24,8 +24,18 @@
  */
 package fr.opensagres.xdocreport.document.docx.images;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 
+import fr.opensagres.xdocreport.core.io.IEntryOutputStreamProvider;
+import fr.opensagres.xdocreport.core.utils.Base64Utility;
+import fr.opensagres.xdocreport.document.images.ByteArrayImageProvider;
+import fr.opensagres.xdocreport.document.images.ImageProviderInfo;
+
 import junit.framework.TestCase;
 
 public class DocxImageRegistryTestCase extends TestCase{
@@ -46,4 +56,39 @@ public class DocxImageRegistryTestCase extends TestCase{
 		result = imageRegistry.getSize(null);
 		assertNull("No error should happen", result);
 	}
+
+	@Test
+	public void testSameImageIsStoredOnce() throws Exception {
+		final List<String> entryNames = new ArrayList<String>();
+		DocxImageRegistry imageRegistry = new DocxImageRegistry(null, null, new IEntryOutputStreamProvider() {
+			public OutputStream getEntryOutputStream(String entryName) {
+				entryNames.add(entryName);
+				return new ByteArrayOutputStream();
+			}
+		}, null);
+
+		byte[] black = Base64Utility.decode("iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAAAAAA6fptVAAAACklEQVR4nGNgAAAAAgABSK+kcQAAAABJRU5ErkJggg==");
+		byte[] white = Base64Utility.decode("iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAAAAAA6fptVAAAACklEQVR4nGP4DwABAQEAsTj2FAAAAABJRU5ErkJggg==");
+
+		ByteArrayImageProvider logo = new ByteArrayImageProvider(black);
+		ImageProviderInfo info1 = imageRegistry.registerImage(logo, "logo", null);
+		// same provider
+		assertSame(info1, imageRegistry.registerImage(logo, "logo", null));
+		// other provider with the same image (ex : one provider per row of a table)
+		ByteArrayImageProvider logo2 = new ByteArrayImageProvider(black.clone());
+		logo2.setSize(10f, 10f);
+		ImageProviderInfo info2 = imageRegistry.registerImage(logo2, "logo", null);
+		assertEquals(info1.getImageId(), info2.getImageId());
+		assertEquals(info1.getImageFileName(), info2.getImageFileName());
+		assertSame(logo2, info2.getImageProvider());
+		// other image
+		ImageProviderInfo info3 = imageRegistry.registerImage(new ByteArrayImageProvider(white), "logo", null);
+		assertFalse(info1.getImageId().equals(info3.getImageId()));
+
+		assertEquals(2, imageRegistry.getImageProviderInfos().size());
+		imageRegistry.postProcess();
+		assertEquals(2, entryNames.size());
+		assertEquals("word/media/xdocreport_0.png", entryNames.get(0));
+		assertEquals("word/media/xdocreport_1.png", entryNames.get(1));
+	}
 }
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.document.docx.textstyling;
+
+import fr.opensagres.xdocreport.document.textstyling.IDocumentHandler;
+import fr.opensagres.xdocreport.document.textstyling.ITextStylingTransformer;
+import fr.opensagres.xdocreport.document.textstyling.html.HTMLTextStylingTransformer;
+import fr.opensagres.xdocreport.document.textstyling.html.StreamingHTMLTextStylingTransformer;
+import junit.framework.Assert;
+import org.junit.Test;
+
+public class StreamingHTMLTextStylingTransformerTestCase
+{
+
+    private static final String[] CONTENTS = { "&auml; &uuml; &eacute;", "&amp;&lt;", "a&amp;lt;b", "x&#233;y&#x41;z",
+        "<b>A&nbsp;B</b>", "<b>text</b>\r\n<i>te\txt</i>", "<p style=\"font-weight:bold;\">text</p>",
+        "<span style=\"color: rgb(255, 0, 0);\">Test</span>", "<span style='font-style:italic'>Test</span>",
+        "<a href=\"http://code.google.com/p/xdocreport/\" >XDocReport</a>",
+        "<h1>Title1</h1>" + "text" + "<p>paragraph</p>", "some <strong>text</strong><p>paragraph1</p><p>paragraph2</p>",
+        "<p style=\"page-break-before:always;\">bla bla bla</p>",
+        "<ol><li>item1</li><li>item2</li></ol>\n<ul><li>item1</li><li>item2</li></ul>xxxx", "a<br/>b<br />c",
+        "<table border=\"1\"><tr><td>A</td><td>B</td></tr></table>", "<u>a</u><s>b</s><sub>c</sub><sup>d</sup>",
+        "<!-- comment -->text<![CDATA[a&b]]>c" };
+
+    @Test
+    public void testSameResultAsHTMLTextStylingTransformer()
+        throws Exception
+    {
+        for ( String content : CONTENTS )
+        {
+            Assert.assertEquals( content, transform( HTMLTextStylingTransformer.INSTANCE, content ),
+                                 transform( StreamingHTMLTextStylingTransformer.INSTANCE, content ) );
+        }
+    }
+
+    @Test
+    public void testNotWellFormedContent()
+        throws Exception
+    {
+        Assert.assertEquals( transform( HTMLTextStylingTransformer.INSTANCE, "<p><b>a<br/>b</b></p>" ),
+                             transform( StreamingHTMLTextStylingTransformer.INSTANCE, "<P><b>a<br>b</p>" ) );
+        Assert.assertEquals( "|<w:r><w:t xml:space=\"preserve\" >a &amp;unknown; 1 </w:t></w:r>"
+            + "<w:r><w:t xml:space=\"preserve\" >&lt; 2</w:t></w:r>|",
+                             transform( StreamingHTMLTextStylingTransformer.INSTANCE, "a &unknown; 1 < 2" ) );
+    }
+
+    private static String transform( ITextStylingTransformer transformer, String content )
+        throws Exception
+    {
+        IDocumentHandler handler = new DocxDocumentHandler( null, new MockContext(), "word/document.xml" );
+        transformer.transform( content, handler );
+        return handler.getTextBefore() + "|" + handler.getTextBody() + "|" + handler.getTextEnd();
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.document.docx.textstyling;
+
+import fr.opensagres.xdocreport.document.docx.preprocessor.DefaultStyle;
+import fr.opensagres.xdocreport.document.docx.template.DocxContextHelper;
+import fr.opensagres.xdocreport.document.registry.TextStylingTransformCache;
+import fr.opensagres.xdocreport.document.textstyling.ITextStylingTransformer;
+import fr.opensagres.xdocreport.document.textstyling.ITransformResult;
+import fr.opensagres.xdocreport.document.textstyling.html.HTMLTextStylingTransformer;
+import fr.opensagres.xdocreport.template.IContext;
+import junit.framework.Assert;
+import org.junit.Test;
+
+public class TextStylingTransformCacheTestCase
+{
+
+    private static final ITextStylingTransformer TRANSFORMER = HTMLTextStylingTransformer.INSTANCE;
+
+    @Test
+    public void testCachedResult()
+        throws Exception
+    {
+        TextStylingTransformCache cache = new TextStylingTransformCache( 10000 );
+        IContext context = new MockContext();
+
+        ITransformResult result1 = transform( cache, context, "<p><b>text</b></p>" );
+        ITransformResult result2 = transform( cache, context, "<p><b>text</b></p>" );
+
+        Assert.assertEquals( result1.getTextBody(), result2.getTextBody() );
+        Assert.assertEquals( result1.getTextEnd(), result2.getTextEnd() );
+        Assert.assertEquals( 1, cache.size() );
+        Assert.assertEquals( 1, cache.getHitCount() );
+        Assert.assertEquals( 1, cache.getMissCount() );
+        Assert.assertEquals( 0.5, cache.getHitRate(), 0 );
+    }
+
+    @Test
+    public void testNotCacheableResult()
+        throws Exception
+    {
+        TextStylingTransformCache cache = new TextStylingTransformCache( 10000 );
+        IContext context = new MockContext();
+
+        // the num id of the list and the relationship id of the hyperlink depend on the document.
+        transform( cache, context, "<ol><li>item1</li></ol>" );
+        transform( cache, context, "<ol><li>item1</li></ol>" );
+        transform( cache, context, "<a href=\"http://code.google.com/p/xdocreport/\" >XDocReport</a>" );
+
+        Assert.assertEquals( 0, cache.size() );
+        Assert.assertEquals( 0, cache.getHitCount() );
+        Assert.assertEquals( 3, cache.getNotCacheableCount() );
+    }
+
+    @Test
+    public void testStyleContext()
+        throws Exception
+    {
+        TextStylingTransformCache cache = new TextStylingTransformCache( 10000 );
+        IContext context1 = new MockContext();
+        DocxContextHelper.putDefaultStyle( context1, new DefaultStyle() );
+        IContext context2 = new MockContext();
+        DocxContextHelper.putDefaultStyle( context2, new DefaultStyle() );
+
+        transform( cache, context1, "<h1>Title</h1>" );
+        transform( cache, context2, "<h1>Title</h1>" );
+        transform( cache, context1, "<h1>Title</h1>" );
+
+        Assert.assertEquals( 2, cache.size() );
+        Assert.assertEquals( 1, cache.getHitCount() );
+    }
+
+    @Test
+    public void testEviction()
+        throws Exception
+    {
+        TextStylingTransformCache cache = new TextStylingTransformCache( 100 );
+        IContext context = new MockContext();
+
+        transform( cache, context, "<b>text1</b>" );
+        transform( cache, context, "<b>text2</b>" );
+
+        Assert.assertEquals( 1, cache.size() );
+        Assert.assertEquals( 1, cache.getEvictionCount() );
+    }
+
+    private static ITransformResult transform( TextStylingTransformCache cache, IContext context, String content )
+        throws Exception
+    {
+        return cache.transform( TRANSFORMER, content, "Html", "docx",
+                                new DocxDocumentHandler( null, context, "word/document.xml" ) );
+    }
+}
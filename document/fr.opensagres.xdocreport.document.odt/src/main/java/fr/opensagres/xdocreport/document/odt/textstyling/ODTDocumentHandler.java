@@ -26,6 +26,7 @@ package fr.opensagres.xdocreport.document.odt.textstyling;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Stack;
 
@@ -33,7 +34,9 @@ import fr.opensagres.xdocreport.core.utils.StringUtils;
 import fr.opensagres.xdocreport.document.odt.template.ODTContextHelper;
 import fr.opensagres.xdocreport.document.preprocessor.sax.BufferedElement;
 import fr.opensagres.xdocreport.document.textstyling.AbstractDocumentHandler;
+import fr.opensagres.xdocreport.document.textstyling.ICacheableDocumentHandler;
 import fr.opensagres.xdocreport.document.textstyling.IDocumentHandler.TextLocation;
+import fr.opensagres.xdocreport.document.textstyling.properties.ContainerProperties;
 import fr.opensagres.xdocreport.document.textstyling.properties.HeaderProperties;
 import fr.opensagres.xdocreport.document.textstyling.properties.ListItemProperties;
 import fr.opensagres.xdocreport.document.textstyling.properties.ListProperties;
@@ -46,6 +49,7 @@ import fr.opensagres.xdocreport.template.IContext;
 
 public class ODTDocumentHandler
     extends AbstractDocumentHandler
+    implements ICacheableDocumentHandler
 {
     private Stack<Boolean> paragraphsStack;
 
@@ -63,12 +67,25 @@ public class ODTDocumentHandler
 
     private boolean closeHeader;
 
+    private boolean cacheable;
+
     public ODTDocumentHandler( BufferedElement parent, IContext context, String entryName )
     {
         super( parent, context, entryName );
         styleGen = ODTContextHelper.getStylesGenerator( context );
         this.paragraphWasInserted = false;
         this.closeHeader = false;
+        this.cacheable = true;
+    }
+
+    public Object getStyleContext()
+    {
+        return Arrays.asList( styleGen.getClass(), ODTContextHelper.getDefaultStyle( getContext() ) );
+    }
+
+    public boolean isCacheable()
+    {
+        return cacheable;
     }
 
     public void startDocument()
@@ -300,7 +317,7 @@ public class ODTDocumentHandler
             }
             else
             {
-                styleName = styleGen.getTextStyleName( properties );
+                styleName = getTextStyleName( properties );
             }
         }
         internalStartParagraph( containerIsList, styleName );
@@ -473,7 +490,17 @@ public class ODTDocumentHandler
     public void startSpan( SpanProperties properties )
         throws IOException
     {
-        internalStartSpan( styleGen.getTextStyleName( properties ), true );
+        internalStartSpan( getTextStyleName( properties ), true );
+    }
+
+    private String getTextStyleName( ContainerProperties properties )
+    {
+        if ( properties != null )
+        {
+            // the style of the properties is added to the dynamic styles of the document.
+            cacheable = false;
+        }
+        return styleGen.getTextStyleName( properties );
     }
 
     public void endSpan()
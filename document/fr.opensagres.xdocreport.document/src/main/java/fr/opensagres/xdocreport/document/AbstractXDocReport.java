@@ -33,9 +33,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -47,7 +55,9 @@ import fr.opensagres.xdocreport.core.XDocReportException;
 import fr.opensagres.xdocreport.core.io.IEntryOutputStreamProvider;
 import fr.opensagres.xdocreport.core.io.IEntryReaderProvider;
 import fr.opensagres.xdocreport.core.io.IEntryWriterProvider;
+import fr.opensagres.xdocreport.core.io.StreamingXDocArchive;
 import fr.opensagres.xdocreport.core.io.XDocArchive;
+import fr.opensagres.xdocreport.core.io.ZipOutputOptions;
 import fr.opensagres.xdocreport.core.logging.LogUtils;
 import fr.opensagres.xdocreport.core.utils.StringUtils;
 import fr.opensagres.xdocreport.document.dump.DumperOptions;
@@ -56,6 +66,7 @@ import fr.opensagres.xdocreport.document.dump.IDumper;
 import fr.opensagres.xdocreport.document.images.DefaultImageHandler;
 import fr.opensagres.xdocreport.document.images.IImageRegistry;
 import fr.opensagres.xdocreport.document.preprocessor.IXDocPreprocessor;
+import fr.opensagres.xdocreport.document.preprocessor.PreprocessedArchiveCache;
 import fr.opensagres.xdocreport.document.preprocessor.sax.BufferedElement;
 import fr.opensagres.xdocreport.document.registry.TextStylingRegistry;
 import fr.opensagres.xdocreport.document.registry.XDocReportRegistry;
@@ -100,12 +111,14 @@ public abstract class AbstractXDocReport
     /**
      * Zipped XML Document (odt, docx) which is the original XML Document..
      */
-    private XDocArchive originalArchive = null;
+    private volatile XDocArchive originalArchive = null;
 
     /**
-     * Zipped XML Document (odt, docx) which is the original XML Document preprocessed.
+     * Zipped XML Document (odt, docx) which is the original XML Document preprocessed. Preprocessing is done on a copy
+     * of the archive which is published with this field once the preprocessing is done, so the archive is never
+     * modified after it was published.
      */
-    private XDocArchive preprocessedArchive = null;
+    private volatile XDocArchive preprocessedArchive = null;
 
     /**
      * XML entries which define XML document to merge with Java model with template engine.
@@ -120,13 +133,38 @@ public abstract class AbstractXDocReport
     /**
      * True if preprocessing was done et false otherwise.
      */
-    private boolean preprocessed;
+    private volatile boolean preprocessed;
+
+    /**
+     * Lock used to preprocess the document archive only once when several threads process the report.
+     */
+    private final Object preprocessingLock = new Object();
+
+    /**
+     * On-disk cache of the preprocessed archive (null if preprocessed archive is not cached).
+     */
+    private transient PreprocessedArchiveCache preprocessedArchiveCache;
 
     /**
      * Cache or not for original document archive.
      */
     private boolean cacheOriginalDocument = false;
 
+    /**
+     * True if the generated zip must be streamed in the output stream and false otherwise.
+     */
+    private boolean streamingOutput = false;
+
+    /**
+     * Options used to write the zip of the generated document (null for default options).
+     */
+    private ZipOutputOptions zipOutputOptions = null;
+
+    /**
+     * Executor used to merge the independent XML entries in parallel (null to merge them sequentially).
+     */
+    private transient Executor processExecutor = null;
+
     /**
      * Custom data.
      */
@@ -137,7 +175,7 @@ public abstract class AbstractXDocReport
     /**
      * Map of {@link BufferedElement} used for text styling to
      */
-    private Map<String, BufferedElement> elementsCache;
+    private volatile Map<String, BufferedElement> elementsCache;
 
     protected AbstractXDocReport()
     {
@@ -171,10 +209,6 @@ public abstract class AbstractXDocReport
     public void load( InputStream sourceStream )
         throws IOException, XDocReportException
     {
-        if ( preprocessed )
-        {
-            preprocessed = false;
-        }
         // Load zipped XML Document (odt, docx...)
         setDocumentArchive( XDocArchive.readZip( sourceStream ) );
     }
@@ -187,20 +221,25 @@ public abstract class AbstractXDocReport
     public void setDocumentArchive( XDocArchive documentArchive )
         throws IOException, XDocReportException
     {
-        this.lastModified = System.currentTimeMillis();
-        this.preprocessed = false;
-        if ( cacheOriginalDocument )
-        {
-            this.originalArchive = documentArchive;
-            this.preprocessedArchive = documentArchive.createCopy();
-        }
-        else
+        synchronized ( preprocessingLock )
         {
-            this.originalArchive = null;
-            this.preprocessedArchive = documentArchive;
+            this.lastModified = System.currentTimeMillis();
+            // the archive is preprocessed before it is published : a process executed at the same time uses the
+            // previous preprocessed archive and never the new archive which is not preprocessed.
+            XDocArchive archive = cacheOriginalDocument ? documentArchive.createCopy() : documentArchive;
+            this.originalArchive = cacheOriginalDocument ? documentArchive : null;
+            if ( templateEngine != null )
+            {
+                // Execute preprocessor and modify the copy of the original zipped XML Document
+                preprocess( archive );
+            }
+            else
+            {
+                // template engine is not set, so preprocessing will be done by the first process
+                this.preprocessed = false;
+                this.preprocessedArchive = archive;
+            }
         }
-        // Execute preprocessor and modify the original zipped XML Document
-        doPreprocessorIfNeeded();
     }
 
     /*
@@ -320,7 +359,8 @@ public abstract class AbstractXDocReport
     /**
      * Execute processors registered to modify entry names of the original document archive. Processors use
      * {@link FieldsMetadata} and {@link IDocumentFormatter} (coming from {@link ITemplateEngine#getDocumentFormatter()}
-     * to manage lazy loop for table row.
+     * to manage lazy loop for table row. Preprocessing is done only once (even if several threads process the report
+     * at the same time) on a copy of the archive which is published when preprocessing is done.
      * 
      * @throws XDocReportException
      * @throws IOException
@@ -333,50 +373,83 @@ public abstract class AbstractXDocReport
             // preprocessing is already done
             return;
         }
-        if ( templateEngine == null )
+        synchronized ( preprocessingLock )
         {
-            // template engine is not set, so preprocessing cannot be done
-            return;
+            if ( preprocessed )
+            {
+                // preprocessing was done by another thread
+                return;
+            }
+            if ( templateEngine == null || preprocessedArchive == null )
+            {
+                // template engine is not set, so preprocessing cannot be done
+                return;
+            }
+            // preprocess a copy of the archive to never modify a published archive
+            preprocess( preprocessedArchive.createCopy() );
+        }
+    }
+
+    /**
+     * Preprocess the given archive which is not published and publish it with the preprocessed flag once the
+     * preprocessing is done. This method must be called with the preprocessing lock.
+     * 
+     * @param archive
+     * @throws XDocReportException
+     * @throws IOException
+     */
+    private void preprocess( XDocArchive archive )
+        throws XDocReportException, IOException
+    {
+        String cacheKey = null;
+        if ( preprocessedArchiveCache != null )
+        {
+            // search the preprocessed archive in the cache
+            cacheKey = computePreprocessingCacheKey( archive );
+            if ( cacheKey != null && restorePreprocessedArchive( cacheKey ) )
+            {
+                return;
+            }
         }
+        Map<String, BufferedElement> elementsCache = null;
         Map<String, Object> sharedContext = new HashMap<String, Object>();
         if ( fieldsMetadata != null && fieldsMetadata.getFieldsAsTextStyling().size() > 0 )
         {
             elementsCache = new HashMap<String, BufferedElement>();
             sharedContext.put( DocumentContextHelper.ELEMENTS_KEY, elementsCache );
         }
-        onBeforePreprocessing( sharedContext, preprocessedArchive );
+        onBeforePreprocessing( sharedContext, archive );
         try
         {
             IDocumentFormatter formatter = internalGetTemplateEngine().getDocumentFormatter();
-            
+
             // Loop for each preprocessor registered
             for ( Entry<String, Collection<IXDocPreprocessor>> entry : preprocessors.entrySet() )
             {
                 String preprocessorName = entry.getKey();
                 Collection<IXDocPreprocessor> entryPreprocessors = entry.getValue();
-                if ( preprocessedArchive.hasEntry( preprocessorName ) )
+                if ( archive.hasEntry( preprocessorName ) )
                 {
                     for ( IXDocPreprocessor preprocessor : entryPreprocessors )
                     {
                         // XML Document contains a XML file which must be
                         // preprocessed
-                        preprocessor.preprocess( preprocessorName, preprocessedArchive, fieldsMetadata, formatter,
+                        preprocessor.preprocess( preprocessorName, archive, fieldsMetadata, formatter,
                                                  sharedContext );
                     }
                 }
                 else
                 {
                     // Test if it's wilcard?
-                    Set<String> entriesNameFromWilcard = preprocessedArchive.getEntryNames( preprocessorName );
+                    Set<String> entriesNameFromWilcard = archive.getEntryNames( preprocessorName );
                     if ( entriesNameFromWilcard.size() > 0 )
                     {
                         for ( String entryNameFromWilcard : entriesNameFromWilcard )
                         {
                             for ( IXDocPreprocessor preprocessor : entryPreprocessors )
                             {
-                                preprocessor.preprocess( entryNameFromWilcard, preprocessedArchive, fieldsMetadata,
-
-                                formatter, sharedContext );
+                                preprocessor.preprocess( entryNameFromWilcard, archive, fieldsMetadata,
+                                                         formatter, sharedContext );
                             }
                         }
                     }
@@ -386,7 +459,7 @@ public abstract class AbstractXDocReport
                         entryPreprocessors = entry.getValue();
                         for ( IXDocPreprocessor preprocessor : entryPreprocessors )
                         {
-                            if ( preprocessor.create( preprocessorName, preprocessedArchive, fieldsMetadata, formatter,
+                            if ( preprocessor.create( preprocessorName, archive, fieldsMetadata, formatter,
                                                       sharedContext ) )
                             {
                                 break;
@@ -398,12 +471,104 @@ public abstract class AbstractXDocReport
         }
         finally
         {
-            onAfterPreprocessing( sharedContext, preprocessedArchive );
-            // Preprocessing is done
-            preprocessed = true;
+            onAfterPreprocessing( sharedContext, archive );
+            // Preprocessing is done, publish the preprocessed archive
+            this.elementsCache = elementsCache;
+            this.preprocessedArchive = archive;
+            this.preprocessed = true;
             sharedContext.clear();
             sharedContext = null;
         }
+        if ( cacheKey != null && elementsCache == null )
+        {
+            // store the preprocessed archive in the cache (preprocessing with text styling cannot be cached because
+            // elements cache is not stored)
+            storePreprocessedArchive( cacheKey, archive );
+        }
+    }
+
+    private String computePreprocessingCacheKey( XDocArchive archive )
+        throws IOException
+    {
+        StringBuilder preprocessing = new StringBuilder( getClass().getName() );
+        for ( Entry<String, Collection<IXDocPreprocessor>> entry : preprocessors.entrySet() )
+        {
+            preprocessing.append( '|' ).append( entry.getKey() );
+            for ( IXDocPreprocessor preprocessor : entry.getValue() )
+            {
+                preprocessing.append( ',' ).append( preprocessor.getClass().getName() );
+            }
+        }
+        return PreprocessedArchiveCache.computeKey( archive, fieldsMetadata, templateEngine,
+                                                    preprocessing.toString() );
+    }
+
+    private boolean restorePreprocessedArchive( String cacheKey )
+        throws XDocReportException
+    {
+        XDocArchive cachedArchive = null;
+        Properties state = new Properties();
+        try
+        {
+            cachedArchive = preprocessedArchiveCache.get( cacheKey, state );
+        }
+        catch ( IOException e )
+        {
+            LOGGER.log( Level.WARNING, "Error while reading the preprocessed archive " + cacheKey + " from the cache", e );
+            preprocessedArchiveCache.remove( cacheKey );
+        }
+        if ( cachedArchive == null )
+        {
+            return false;
+        }
+        restorePreprocessingState( state );
+        this.elementsCache = null;
+        this.preprocessedArchive = cachedArchive;
+        this.preprocessed = true;
+        return true;
+    }
+
+    private void storePreprocessedArchive( String cacheKey, XDocArchive archive )
+    {
+        Properties state = new Properties();
+        if ( !savePreprocessingState( state ) )
+        {
+            return;
+        }
+        try
+        {
+            preprocessedArchiveCache.put( cacheKey, archive, state );
+        }
+        catch ( IOException e )
+        {
+            LOGGER.log( Level.WARNING, "Error while writing the preprocessed archive " + cacheKey + " in the cache", e );
+        }
+    }
+
+    /**
+     * Save the state of the preprocessing which is not stored in the preprocessed archive (ex : information computed
+     * by the preprocessors and used by the process) in the given properties, to store it in the
+     * {@link PreprocessedArchiveCache}.
+     * 
+     * @param state
+     * @return true if the state can be stored in the properties and false if the preprocessed archive cannot be cached.
+     */
+    protected boolean savePreprocessingState( Properties state )
+    {
+        return true;
+    }
+
+    /**
+     * Restore the state of the preprocessing saved with {@link #savePreprocessingState(Properties)} when the
+     * preprocessed archive is read from the {@link PreprocessedArchiveCache}.
+     * 
+     * @param state
+     * @throws XDocReportException
+     */
+    protected void restorePreprocessingState( Properties state )
+        throws XDocReportException
+    {
+        // Do nothing
     }
 
     /**
@@ -508,8 +673,23 @@ public abstract class AbstractXDocReport
             // docx..) only if preprocessing was not done.
             doPreprocessorIfNeeded();
 
-            // 4) Copy original archive to returns
-            outputArchive = internalGetDocumentArchive().createCopy();
+            boolean streaming = streamingOutput && StringUtils.isEmpty( entryName );
+            if ( streaming )
+            {
+                // 4) Create archive to returns which writes the unchanged entries in the ouput stream and which will
+                // write each merged XML entry directly in the ouput stream
+                XDocArchive documentArchive = internalGetDocumentArchive();
+                StreamingXDocArchive streamingArchive =
+                    new StreamingXDocArchive( documentArchive, getXMLEntryNames( documentArchive ), out,
+                                             zipOutputOptions );
+                streamingArchive.start();
+                outputArchive = streamingArchive;
+            }
+            else
+            {
+                // 4) Copy original archive to returns
+                outputArchive = internalGetDocumentArchive().createCopy();
+            }
 
             // 5) Loop for each entries (XML file from the zipped XML
             // document (odt, docx...)
@@ -519,7 +699,12 @@ public abstract class AbstractXDocReport
 
             doPostprocessIfNeeded( outputArchive );
 
-            if ( StringUtils.isNotEmpty( entryName ) )
+            if ( streaming )
+            {
+                // 6) save the other entries (images...) into ouput stream
+                ( (StreamingXDocArchive) outputArchive ).finish();
+            }
+            else if ( StringUtils.isNotEmpty( entryName ) )
             {
                 if ( !outputArchive.hasEntry( entryName ) )
                 {
@@ -531,7 +716,7 @@ public abstract class AbstractXDocReport
             else
             {
                 // 6) save the merged XML document archive into ouput stream
-                XDocArchive.writeZip( outputArchive, out );
+                XDocArchive.writeZip( outputArchive, out, zipOutputOptions );
             }
             // 7) End process report generation
             if ( LOGGER.isLoggable( Level.FINE ) )
@@ -758,32 +943,228 @@ public abstract class AbstractXDocReport
     private void processTemplateEngine( final IContext context, XDocArchive outputArchive )
         throws XDocReportException, IOException
     {
-        String[] xmlEntries = internalGetXMLEntries();
-
         onBeforeProcessTemplateEngine( context, outputArchive );
-        String entryName = null;
-        for ( int i = 0; i < xmlEntries.length; i++ )
+        List<String> entryNames = new ArrayList<String>( getXMLEntryNames( outputArchive ) );
+        if ( isParallelProcess( context ) )
         {
-            entryName = xmlEntries[i];
-            if ( outputArchive.hasEntry( entryName ) )
+            // 5.1) merge the independent XML entries in parallel, the other
+            // entries are merged after.
+            entryNames = processTemplateEngineInParallel( context, outputArchive, entryNames );
+        }
+        for ( String entryName : entryNames )
+        {
+            // 5.2) merge current XML file with Java model from the
+            // context with template engine (freemarker, velocity).
+            templateEngine.process( getId(), entryName, outputArchive, outputArchive, context );
+        }
+        onAfterProcessTemplateEngine( context, outputArchive );
+    }
+
+    /**
+     * Returns true if the XML entries can be merged in parallel and false otherwise. Images and text styling
+     * use registries which are shared by all the entries, so in this case entries are merged sequentially.
+     * 
+     * @param context
+     * @return
+     */
+    private boolean isParallelProcess( IContext context )
+    {
+        if ( processExecutor == null || elementsCache != null )
+        {
+            return false;
+        }
+        if ( fieldsMetadata != null
+            && ( fieldsMetadata.hasFieldsAsImage() || !fieldsMetadata.getFieldsAsTextStyling().isEmpty() ) )
+        {
+            return false;
+        }
+        return DocumentContextHelper.getImageRegistry( context ) == null;
+    }
+
+    /**
+     * Merge the independent XML entries in parallel with the process executor and returns the names of the other
+     * entries which must be merged sequentially after.
+     * <p>
+     * Each entry is merged with its own context (which shares the Java model of the given context) in a private
+     * archive. The output archive is only read while the entries are merged and the merged entries are written in
+     * the output archive at the end with the order of the XML entries, to have a deterministic output.
+     * </p>
+     * <p>
+     * The current thread merges itself the entries which are not yet started by the executor before waiting for the
+     * others, so the process executor can be the pool which executes this process without deadlock.
+     * </p>
+     * 
+     * @param context
+     * @param outputArchive
+     * @param entryNames
+     * @return
+     * @throws XDocReportException
+     * @throws IOException
+     */
+    private List<String> processTemplateEngineInParallel( final IContext context, final XDocArchive outputArchive,
+                                                          List<String> entryNames )
+        throws XDocReportException, IOException
+    {
+        List<String> independentEntryNames = new ArrayList<String>();
+        List<String> dependentEntryNames = new ArrayList<String>();
+        for ( String entryName : entryNames )
+        {
+            if ( !independentEntryNames.contains( entryName ) && isIndependentXMLEntry( entryName ) )
             {
-                // 5.1) merge current XML file with Java model from the
-                // context with template engine (freemarker, velocity).
-                templateEngine.process( getId(), entryName, outputArchive, outputArchive, context );
+                independentEntryNames.add( entryName );
             }
             else
             {
-                // Test if it's wilcard?
-                Set<String> entriesNameFromWilcard = internalGetDocumentArchive().getEntryNames( entryName );
-                for ( String entryNameFromWilcard : entriesNameFromWilcard )
+                dependentEntryNames.add( entryName );
+            }
+        }
+        if ( independentEntryNames.size() < 2 )
+        {
+            return entryNames;
+        }
+
+        // 1) Start a task for each independent entry
+        final String reportId = getId();
+        List<FutureTask<XDocArchive>> tasks = new ArrayList<FutureTask<XDocArchive>>();
+        try
+        {
+            for ( final String entryName : independentEntryNames )
+            {
+                final IContext entryContext = templateEngine.createContext();
+                entryContext.putMap( context.getContextMap() );
+                TemplateContextHelper.putContext( entryContext );
+                FutureTask<XDocArchive> task = new FutureTask<XDocArchive>( new Callable<XDocArchive>()
+                {
+                    public XDocArchive call()
+                        throws Exception
+                    {
+                        XDocArchive entryArchive = new XDocArchive();
+                        templateEngine.process( reportId, entryName, outputArchive, entryArchive, entryContext );
+                        return entryArchive;
+                    }
+                } );
+                tasks.add( task );
+                try
                 {
-                    // 5.2) merge current XML file with Java model from the
-                    // context with template engine (freemarker, velocity).
-                    templateEngine.process( getId(), entryNameFromWilcard, outputArchive, outputArchive, context );
+                    processExecutor.execute( task );
+                }
+                catch ( RejectedExecutionException e )
+                {
+                    // executor is saturated or shutdown, merge the entry in the current thread.
+                    task.run();
                 }
             }
+
+            // 2) Wait for all the tasks, before modifying the output archive. A task which is still queued in the
+            // executor is merged in the current thread (run does nothing if the task is already started or done), to
+            // avoid to wait for a task queued behind the current thread when the executor is a bounded pool.
+            XDocArchive[] entryArchives = new XDocArchive[tasks.size()];
+            Throwable error = null;
+            for ( int i = 0; i < entryArchives.length; i++ )
+            {
+                FutureTask<XDocArchive> task = tasks.get( i );
+                task.run();
+                try
+                {
+                    entryArchives[i] = task.get();
+                }
+                catch ( ExecutionException e )
+                {
+                    if ( error == null )
+                    {
+                        error = e.getCause();
+                    }
+                }
+            }
+            if ( error != null )
+            {
+                if ( error instanceof XDocReportException )
+                {
+                    throw (XDocReportException) error;
+                }
+                if ( error instanceof IOException )
+                {
+                    throw (IOException) error;
+                }
+                if ( error instanceof RuntimeException )
+                {
+                    throw (RuntimeException) error;
+                }
+                if ( error instanceof Error )
+                {
+                    throw (Error) error;
+                }
+                throw new XDocReportException( error );
+            }
+
+            // 3) Write the merged entries in the output archive with the order of the XML entries.
+            for ( int i = 0; i < entryArchives.length; i++ )
+            {
+                String entryName = independentEntryNames.get( i );
+                OutputStream out = outputArchive.getEntryOutputStream( entryName );
+                try
+                {
+                    XDocArchive.writeEntry( entryArchives[i], entryName, out );
+                }
+                finally
+                {
+                    out.close();
+                }
+                entryArchives[i].dispose();
+            }
         }
-        onAfterProcessTemplateEngine( context, outputArchive );
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new XDocReportException( e );
+        }
+        finally
+        {
+            for ( FutureTask<XDocArchive> task : tasks )
+            {
+                task.cancel( true );
+            }
+        }
+        return dependentEntryNames;
+    }
+
+    /**
+     * Returns true if the given XML entry can be merged with the template engine in parallel with the other XML
+     * entries and false otherwise (ex : the entry uses information registered by the merge of other entries). By
+     * default, relationships (*.rels) and META-INF entries are merged after the other entries.
+     * 
+     * @param entryName
+     * @return
+     */
+    protected boolean isIndependentXMLEntry( String entryName )
+    {
+        return !entryName.endsWith( ".rels" ) && !entryName.startsWith( "META-INF/" );
+    }
+
+    /**
+     * Returns the names of the entries of the given archive which are merged with the template engine.
+     * 
+     * @param archive
+     * @return
+     */
+    private Set<String> getXMLEntryNames( XDocArchive archive )
+    {
+        Set<String> entryNames = new LinkedHashSet<String>();
+        String[] xmlEntries = internalGetXMLEntries();
+        for ( int i = 0; i < xmlEntries.length; i++ )
+        {
+            String entryName = xmlEntries[i];
+            if ( archive.hasEntry( entryName ) )
+            {
+                entryNames.add( entryName );
+            }
+            else
+            {
+                // Test if it's wilcard?
+                entryNames.addAll( archive.getEntryNames( entryName ) );
+            }
+        }
+        return entryNames;
     }
 
     /**
@@ -968,18 +1349,61 @@ public abstract class AbstractXDocReport
 
     public void setCacheOriginalDocument( boolean cacheOriginalDocument )
     {
-        this.cacheOriginalDocument = cacheOriginalDocument;
-        if ( cacheOriginalDocument )
+        synchronized ( preprocessingLock )
         {
-            if ( originalArchive == null && preprocessedArchive != null )
+            this.cacheOriginalDocument = cacheOriginalDocument;
+            if ( cacheOriginalDocument )
             {
-                originalArchive = preprocessedArchive.createCopy();
+                if ( originalArchive == null && preprocessedArchive != null )
+                {
+                    originalArchive = preprocessedArchive.createCopy();
+                }
+            }
+            else
+            {
+                originalArchive = null;
             }
         }
-        else
-        {
-            originalArchive = null;
-        }
+    }
+
+    public void setStreamingOutput( boolean streamingOutput )
+    {
+        this.streamingOutput = streamingOutput;
+    }
+
+    public boolean isStreamingOutput()
+    {
+        return streamingOutput;
+    }
+
+    public void setPreprocessedArchiveCache( PreprocessedArchiveCache preprocessedArchiveCache )
+    {
+        this.preprocessedArchiveCache = preprocessedArchiveCache;
+    }
+
+    public PreprocessedArchiveCache getPreprocessedArchiveCache()
+    {
+        return preprocessedArchiveCache;
+    }
+
+    public void setZipOutputOptions( ZipOutputOptions zipOutputOptions )
+    {
+        this.zipOutputOptions = zipOutputOptions;
+    }
+
+    public ZipOutputOptions getZipOutputOptions()
+    {
+        return zipOutputOptions;
+    }
+
+    public void setProcessExecutor( Executor processExecutor )
+    {
+        this.processExecutor = processExecutor;
+    }
+
+    public Executor getProcessExecutor()
+    {
+        return processExecutor;
     }
 
     /**
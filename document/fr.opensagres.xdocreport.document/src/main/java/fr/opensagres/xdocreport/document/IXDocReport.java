@@ -29,6 +29,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import fr.opensagres.xdocreport.converter.IConverter;
 import fr.opensagres.xdocreport.converter.MimeMapping;
@@ -36,9 +37,11 @@ import fr.opensagres.xdocreport.converter.Options;
 import fr.opensagres.xdocreport.converter.XDocConverterException;
 import fr.opensagres.xdocreport.core.XDocReportException;
 import fr.opensagres.xdocreport.core.io.XDocArchive;
+import fr.opensagres.xdocreport.core.io.ZipOutputOptions;
 import fr.opensagres.xdocreport.document.dump.DumperOptions;
 import fr.opensagres.xdocreport.document.dump.IDumper;
 import fr.opensagres.xdocreport.document.preprocessor.IXDocPreprocessor;
+import fr.opensagres.xdocreport.document.preprocessor.PreprocessedArchiveCache;
 import fr.opensagres.xdocreport.document.registry.XDocReportRegistry;
 import fr.opensagres.xdocreport.template.FieldsExtractor;
 import fr.opensagres.xdocreport.template.IContext;
@@ -350,6 +353,119 @@ public interface IXDocReport
      */
     void setCacheOriginalDocument( boolean cacheOriginalDocument );
 
+    /**
+     * Set streaming or not for the generated document. When streaming is enabled,
+     * {@link IXDocReport#process(IContext, OutputStream)} writes the unchanged entries of the document in the output
+     * stream first and then writes each entry merged with the template engine directly in the output stream, instead
+     * of building the whole generated document in memory before writing it. In this mode, an entry which is already
+     * written in the output stream cannot be modified after. The default implementation doesn't support streaming.
+     * 
+     * @param streamingOutput
+     * @throws UnsupportedOperationException if streaming is enabled and the report doesn't support it.
+     */
+    default void setStreamingOutput( boolean streamingOutput )
+    {
+        if ( streamingOutput )
+        {
+            throw new UnsupportedOperationException( "Streaming output is not supported by " + getClass().getName() );
+        }
+    }
+
+    /**
+     * Returns true if the generated document is streamed in the output stream and false otherwise.
+     * 
+     * @return
+     */
+    default boolean isStreamingOutput()
+    {
+        return false;
+    }
+
+    /**
+     * Set the on-disk cache of the preprocessed archive. When the cache is set, the preprocessed archive is read from
+     * the cache if the same document was already preprocessed with the same fields metadata and template engine
+     * (ex : before a restart of the JVM) instead of executing the preprocessors.
+     * 
+     * The default implementation doesn't support the cache.
+     * 
+     * @param preprocessedArchiveCache the cache and null if preprocessed archive must not be cached.
+     * @throws UnsupportedOperationException if a cache is set and the report doesn't support it.
+     */
+    default void setPreprocessedArchiveCache( PreprocessedArchiveCache preprocessedArchiveCache )
+    {
+        if ( preprocessedArchiveCache != null )
+        {
+            throw new UnsupportedOperationException( "Preprocessed archive cache is not supported by "
+                + getClass().getName() );
+        }
+    }
+
+    /**
+     * Returns the on-disk cache of the preprocessed archive and null if preprocessed archive is not cached.
+     * 
+     * @return
+     */
+    default PreprocessedArchiveCache getPreprocessedArchiveCache()
+    {
+        return null;
+    }
+
+    /**
+     * Set the options (compression level, stored entries, parallel compression) used to write the zip of the
+     * generated document by {@link IXDocReport#process(IContext, OutputStream)}. The default implementation supports
+     * only the default options.
+     * 
+     * @param zipOutputOptions the zip options and null to use the default options.
+     * @throws UnsupportedOperationException if options are set and the report doesn't support them.
+     */
+    default void setZipOutputOptions( ZipOutputOptions zipOutputOptions )
+    {
+        if ( zipOutputOptions != null )
+        {
+            throw new UnsupportedOperationException( "Zip output options are not supported by "
+                + getClass().getName() );
+        }
+    }
+
+    /**
+     * Returns the options used to write the zip of the generated document and null if default options are used.
+     * 
+     * @return
+     */
+    default ZipOutputOptions getZipOutputOptions()
+    {
+        return null;
+    }
+
+    /**
+     * Set the executor used by {@link IXDocReport#process(IContext, OutputStream)} to merge the independent XML
+     * entries of the report (document, header, footer, slides...) in parallel with the template engine. The
+     * generated document is the same as with a sequential merge. Entries are always merged sequentially when the
+     * report uses images or text styling. The entries not yet started by the executor are merged by the thread
+     * which calls process, so the executor can be the bounded pool which calls process. The default implementation
+     * merges the entries sequentially.
+     * 
+     * @param processExecutor the executor and null to merge the XML entries sequentially.
+     * @throws UnsupportedOperationException if an executor is set and the report doesn't support it.
+     */
+    default void setProcessExecutor( Executor processExecutor )
+    {
+        if ( processExecutor != null )
+        {
+            throw new UnsupportedOperationException( "Process executor is not supported by " + getClass().getName() );
+        }
+    }
+
+    /**
+     * Returns the executor used to merge the XML entries in parallel and null if entries are merged sequentially.
+     * 
+     * @return
+     */
+    default Executor getProcessExecutor()
+    {
+        return null;
+    }
+
     /**
      * Returns true if report was processed and false otherwise.
      * 
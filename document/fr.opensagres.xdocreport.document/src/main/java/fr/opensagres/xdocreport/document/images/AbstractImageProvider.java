@@ -246,11 +246,40 @@ public abstract class AbstractImageProvider
     {
         if ( imageInfo == null )
         {
-            imageInfo = loadImageInfo();
+            Object key = getImageInfoKey();
+            if ( key == null )
+            {
+                imageInfo = loadImageInfo();
+            }
+            else
+            {
+                ImageInfoCache cache = ImageInfoCache.getInstance();
+                imageInfo = cache.get( key );
+                if ( imageInfo == null )
+                {
+                    imageInfo = loadImageInfo();
+                    if ( imageInfo != null )
+                    {
+                        imageInfo = cache.put( key, imageInfo );
+                    }
+                }
+            }
         }
         return imageInfo;
     }
 
+    /**
+     * Returns the key used to share the image info of this provider in the {@link ImageInfoCache} across the
+     * generated documents and null if the image info must be loaded for each provider. The key must change when the
+     * image changes (ex : last modified date of a file).
+     * 
+     * @return
+     */
+    protected Object getImageInfoKey()
+    {
+        return null;
+    }
+
     /**
      * Reset image info.
      */
@@ -318,5 +347,18 @@ public abstract class AbstractImageProvider
     }
 
     protected abstract boolean doIsValid();
+
+    /**
+     * Returns the key which identifies the image of this provider (ex : the file, the content of the image) and null
+     * if the image cannot be identified without reading it. Image providers which return the same key must write the
+     * same image. This key is used by the image registry to store only once an image which is used several times in
+     * a generated document.
+     * 
+     * @return
+     */
+    public Object getImageKey()
+    {
+        return null;
+    }
     
 }
@@ -24,15 +24,20 @@
  */
 package fr.opensagres.xdocreport.document.images;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import fr.opensagres.xdocreport.core.XDocReportException;
 import fr.opensagres.xdocreport.core.io.IEntryOutputStreamProvider;
 import fr.opensagres.xdocreport.core.io.IEntryReaderProvider;
 import fr.opensagres.xdocreport.core.io.IEntryWriterProvider;
+import fr.opensagres.xdocreport.core.io.IFileEntryProvider;
 import fr.opensagres.xdocreport.core.io.IOUtils;
 import fr.opensagres.xdocreport.document.DocumentContextHelper;
 import fr.opensagres.xdocreport.template.IContext;
@@ -51,6 +56,10 @@ public abstract class AbstractImageRegistry
 
     private List<ImageProviderInfo> imageProviderInfos;
 
+    private Map<IImageProvider, ImageProviderInfo> imageProviderInfosByProvider;
+
+    private Map<Object, ImageProviderInfo> imageProviderInfosByKey;
+
     protected final IEntryReaderProvider readerProvider;
 
     protected final IEntryWriterProvider writerProvider;
@@ -86,12 +95,87 @@ public abstract class AbstractImageRegistry
         {
             return processNullImage( fieldName, imageProvider );
         }
-        // 3) Image provider is OK, create image info.
-        ImageProviderInfo info = createImageProviderInfo( imageProvider );
+        // 3) Image provider is OK, reuse the image info if the image is already registered.
+        ImageProviderInfo info = getRegisteredImageProviderInfo( imageProvider );
+        if ( info != null )
+        {
+            return info;
+        }
+        // 4) Create image info.
+        info = createImageProviderInfo( imageProvider );
         getImageProviderInfos().add( info );
+        registerImageProviderInfo( imageProvider, info );
+        return info;
+    }
+
+    /**
+     * Returns the image info of the given image provider if the provider or an other provider of the same image (see
+     * {@link #getImageKey(IImageProvider)}) is already registered and null otherwise. An image registered several
+     * times is stored once in the generated document and every occurrence references it.
+     * 
+     * @param imageProvider
+     * @return
+     */
+    private ImageProviderInfo getRegisteredImageProviderInfo( IImageProvider imageProvider )
+    {
+        if ( imageProviderInfosByProvider == null )
+        {
+            return null;
+        }
+        ImageProviderInfo info = imageProviderInfosByProvider.get( imageProvider );
+        if ( info != null )
+        {
+            return info;
+        }
+        Object key = getImageKey( imageProvider );
+        if ( key == null )
+        {
+            return null;
+        }
+        ImageProviderInfo sameImageInfo = imageProviderInfosByKey.get( key );
+        if ( sameImageInfo == null )
+        {
+            return null;
+        }
+        // the image is stored with the other provider, but the size of the image comes from this provider.
+        info =
+            new ImageProviderInfo( imageProvider, sameImageInfo.getImageId(), sameImageInfo.getImageBasePath(),
+                                   sameImageInfo.getImageFileName() );
+        imageProviderInfosByProvider.put( imageProvider, info );
         return info;
     }
 
+    private void registerImageProviderInfo( IImageProvider imageProvider, ImageProviderInfo info )
+    {
+        if ( imageProviderInfosByProvider == null )
+        {
+            imageProviderInfosByProvider = new IdentityHashMap<IImageProvider, ImageProviderInfo>();
+            imageProviderInfosByKey = new HashMap<Object, ImageProviderInfo>();
+        }
+        imageProviderInfosByProvider.put( imageProvider, info );
+        Object key = getImageKey( imageProvider );
+        if ( key != null )
+        {
+            imageProviderInfosByKey.put( key, info );
+        }
+    }
+
+    /**
+     * Returns the key which identifies the image of the given provider and null if the image cannot be shared with
+     * other providers.
+     * 
+     * @param imageProvider
+     * @return
+     */
+    protected Object getImageKey( IImageProvider imageProvider )
+    {
+        if ( imageProvider instanceof AbstractImageProvider )
+        {
+            return ( (AbstractImageProvider) imageProvider ).getImageKey();
+        }
+        return null;
+    }
+
     private ImageProviderInfo processNullImage( String fieldName, IImageProvider imageProvider )
         throws XDocReportException
     {
@@ -206,6 +290,8 @@ public abstract class AbstractImageRegistry
             // 2) dispose
             imageProviderInfos.clear();
             imageProviderInfos = null;
+            imageProviderInfosByProvider = null;
+            imageProviderInfosByKey = null;
         }
     }
 
@@ -222,10 +308,18 @@ public abstract class AbstractImageRegistry
         throws XDocReportException
     {
         String entryName = getImageEntryName( imageProviderInfo );
+        IImageProvider imageProvider = imageProviderInfo.getImageProvider();
+        if ( imageProvider instanceof FileChannelImageProvider && outputStreamProvider instanceof IFileEntryProvider )
+        {
+            // the image file is transferred in the zip when it is written, without loading the whole image in the heap.
+            File imageFile = ( (FileChannelImageProvider) imageProvider ).getImageFile();
+            ( (IFileEntryProvider) outputStreamProvider ).setFileEntry( entryName, imageFile );
+            return;
+        }
         OutputStream out = outputStreamProvider.getEntryOutputStream( entryName );
         try
         {
-            imageProviderInfo.getImageProvider().write( out );
+            imageProvider.write( out );
         }
         catch ( IOException e )
         {
@@ -31,6 +31,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Image provider implementation with byte array for image content. This provider is useful when image content can
@@ -133,4 +134,13 @@ public class ByteArrayImageProvider
         return getImageByteArray() != null;
     }
 
+    /**
+     * Returns the content of the image, compared byte per byte.
+     */
+    @Override
+    public Object getImageKey()
+    {
+        return imageByteArray != null ? ByteBuffer.wrap( imageByteArray ) : null;
+    }
+
 }
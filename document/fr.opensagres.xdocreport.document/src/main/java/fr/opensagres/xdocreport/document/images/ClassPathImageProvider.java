@@ -26,6 +26,8 @@ package fr.opensagres.xdocreport.document.images;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
 
 import fr.opensagres.xdocreport.core.document.ImageFormat;
 
@@ -44,6 +46,10 @@ public class ClassPathImageProvider
 
     private final ImageFormat imageFormat;
 
+    private String imageInfoKey;
+
+    private boolean imageInfoKeyResolved;
+
     public ClassPathImageProvider( ClassLoader classLoader, String resourceName )
     {
         this( classLoader, resourceName, false );
@@ -87,4 +93,26 @@ public class ClassPathImageProvider
     {
         return imageFormat;
     }
+
+    @Override
+    public Object getImageKey()
+    {
+        return Arrays.asList( clazz != null ? clazz : classLoader, resourceName );
+    }
+
+    /**
+     * Returns the URL of the resource to not keep the class loader in the cache. The resource is resolved once for
+     * this provider.
+     */
+    @Override
+    protected Object getImageInfoKey()
+    {
+        if ( !imageInfoKeyResolved )
+        {
+            URL url = clazz != null ? clazz.getResource( resourceName ) : classLoader.getResource( resourceName );
+            imageInfoKey = url != null ? url.toExternalForm() : null;
+            imageInfoKeyResolved = true;
+        }
+        return imageInfoKey;
+    }
 }
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.document.images;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import fr.opensagres.xdocreport.core.io.IOUtils;
+
+/**
+ * Image provider implementation for large images (ex : photos) coming from {@link File} which are never loaded
+ * entirely in the heap :
+ * <ul>
+ * <li>when the image is added in a generated document, the image registry sets the file as content of the entry of
+ * the archive, and the file is transferred from its channel to the zip when the zip is written (use
+ * {@link fr.opensagres.xdocreport.core.io.ZipOutputOptions#storeCompressedImages()} to avoid compressing it again).</li>
+ * <li>{@link #write(OutputStream)} transfers the file from its channel to the output stream.</li>
+ * </ul>
+ * The content is not copied in the heap at all only when the target is a {@link FileOutputStream} : other streams
+ * (servlet, buffered streams...) receive it through a small heap buffer.
+ * The file must not be modified until the generated document is written.
+ */
+public class FileChannelImageProvider
+    extends FileImageProvider
+{
+
+    public FileChannelImageProvider( File imageFile )
+    {
+        super( imageFile );
+    }
+
+    public FileChannelImageProvider( File imageFile, boolean useImageSize )
+    {
+        super( imageFile, useImageSize );
+    }
+
+    @Override
+    public void write( OutputStream outputStream )
+        throws IOException
+    {
+        FileInputStream input = new FileInputStream( getImageFile() );
+        try
+        {
+            FileChannel channel = input.getChannel();
+            outputStream.flush();
+            WritableByteChannel target =
+                outputStream instanceof FileOutputStream ? ( (FileOutputStream) outputStream ).getChannel()
+                                : Channels.newChannel( outputStream );
+            long size = channel.size();
+            long position = 0;
+            while ( position < size )
+            {
+                long transferred = channel.transferTo( position, size - position, target );
+                if ( transferred <= 0 )
+                {
+                    throw new EOFException( "Unexpected end of file " + getImageFile()
+                        + ", file was modified while it is written." );
+                }
+                position += transferred;
+            }
+        }
+        finally
+        {
+            IOUtils.closeQuietly( input );
+        }
+    }
+}
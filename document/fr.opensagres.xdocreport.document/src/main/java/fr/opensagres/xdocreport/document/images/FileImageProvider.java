@@ -28,6 +28,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 import fr.opensagres.xdocreport.core.document.ImageFormat;
 
@@ -54,6 +55,16 @@ public class FileImageProvider
         this.imageFormat = ImageFormat.getFormatByResourceName( imageFile.getName() );
     }
 
+    /**
+     * Returns the file of the image.
+     * 
+     * @return
+     */
+    public File getImageFile()
+    {
+        return imageFile;
+    }
+
     @Override
     protected InputStream getInputStream()
         throws IOException
@@ -65,4 +76,22 @@ public class FileImageProvider
     {
         return imageFormat;
     }
+
+    @Override
+    public Object getImageKey()
+    {
+        return imageFile.getAbsoluteFile();
+    }
+
+    @Override
+    protected Object getImageInfoKey()
+    {
+        long lastModified = imageFile.lastModified();
+        if ( lastModified == 0L )
+        {
+            // the file doesn't exist
+            return null;
+        }
+        return Arrays.asList( imageFile.getAbsolutePath(), lastModified, imageFile.length() );
+    }
 }
@@ -72,7 +72,8 @@ public interface IImageRegistry
         throws XDocReportException;
 
     /**
-     * Returns list of image provider info.
+     * Returns list of image provider info of the images to store in the generated document. An image registered
+     * several times is stored once, so it appears once in this list.
      * 
      * @return
      */
@@ -0,0 +1,213 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.document.images;
+
+import fr.opensagres.xdocreport.core.cache.BoundedCacheStorage;
+import fr.opensagres.xdocreport.core.document.ImageFormat;
+
+/**
+ * Process-wide cache of {@link IImageInfo} (width, height, format) used by the image providers which can identify
+ * their image without reading it (see {@link AbstractImageProvider#getImageInfoKey()}), to avoid parsing the header
+ * of the same image (ex : a product photo) for every generated document. The image infos are stored in a
+ * {@link BoundedCacheStorage} which keeps the most recently used image infos and is bounded with
+ * {@link #setMaxSize(int)}.
+ */
+public class ImageInfoCache
+{
+
+    private static final ImageInfoCache INSTANCE = new ImageInfoCache();
+
+    private static final int DEFAULT_MAX_SIZE = 1000;
+
+    public static ImageInfoCache getInstance()
+    {
+        return INSTANCE;
+    }
+
+    private volatile BoundedCacheStorage<Object, IImageInfo> imageInfos;
+
+    private volatile boolean enabled;
+
+    public ImageInfoCache()
+    {
+        this.imageInfos = new BoundedCacheStorage<Object, IImageInfo>( DEFAULT_MAX_SIZE );
+        this.enabled = true;
+    }
+
+    /**
+     * Returns the image info stored with the given key and null if there is no image info for this key.
+     * 
+     * @param key
+     * @return
+     */
+    public IImageInfo get( Object key )
+    {
+        return enabled ? imageInfos.get( key ) : null;
+    }
+
+    /**
+     * Store a copy of the given image info with the given key.
+     * 
+     * @param key
+     * @param imageInfo
+     * @return the stored image info (the image info stored by another thread for the same key if any).
+     */
+    public IImageInfo put( Object key, IImageInfo imageInfo )
+    {
+        IImageInfo cachedImageInfo = new CachedImageInfo( imageInfo );
+        if ( !enabled )
+        {
+            return cachedImageInfo;
+        }
+        IImageInfo existingImageInfo = imageInfos.putIfAbsent( key, cachedImageInfo );
+        return existingImageInfo != null ? existingImageInfo : cachedImageInfo;
+    }
+
+    /**
+     * Set the max number of image infos kept in the cache. The cache and its statistics are cleared.
+     * 
+     * @param maxSize
+     */
+    public void setMaxSize( int maxSize )
+    {
+        this.imageInfos = new BoundedCacheStorage<Object, IImageInfo>( maxSize );
+    }
+
+    public int getMaxSize()
+    {
+        return (int) imageInfos.getMaximumWeight();
+    }
+
+    /**
+     * Enable or disable the cache. When the cache is disabled, image infos are read for each image provider.
+     * 
+     * @param enabled
+     */
+    public void setEnabled( boolean enabled )
+    {
+        this.enabled = enabled;
+        if ( !enabled )
+        {
+            clear();
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Remove all image infos of the cache.
+     */
+    public void clear()
+    {
+        imageInfos.clear();
+    }
+
+    /**
+     * Returns the number of image infos stored in the cache.
+     * 
+     * @return
+     */
+    public int size()
+    {
+        return imageInfos.size();
+    }
+
+    /**
+     * Returns the number of image infos found in the cache.
+     * 
+     * @return
+     */
+    public long getHitCount()
+    {
+        return imageInfos.getHitCount();
+    }
+
+    /**
+     * Returns the number of image infos which were not found in the cache.
+     * 
+     * @return
+     */
+    public long getMissCount()
+    {
+        return imageInfos.getMissCount();
+    }
+
+    /**
+     * Returns the number of image infos removed from the cache because it was full.
+     * 
+     * @return
+     */
+    public long getEvictionCount()
+    {
+        return imageInfos.getEvictionCount();
+    }
+
+    /**
+     * Reset the hit, miss and eviction counts.
+     */
+    public void resetStatistics()
+    {
+        imageInfos.resetStatistics();
+    }
+
+    /**
+     * Immutable copy of an image info ({@link SimpleImageInfo} keeps the stream of the image).
+     */
+    private static class CachedImageInfo
+        implements IImageInfo
+    {
+
+        private final int width;
+
+        private final int height;
+
+        private final ImageFormat mimeType;
+
+        public CachedImageInfo( IImageInfo imageInfo )
+        {
+            this.width = imageInfo.getWidth();
+            this.height = imageInfo.getHeight();
+            this.mimeType = imageInfo.getMimeType();
+        }
+
+        public int getHeight()
+        {
+            return height;
+        }
+
+        public int getWidth()
+        {
+            return width;
+        }
+
+        public ImageFormat getMimeType()
+        {
+            return mimeType;
+        }
+    }
+}
@@ -0,0 +1,419 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.document.preprocessor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.net.URL;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.opensagres.xdocreport.core.EncodingConstants;
+import fr.opensagres.xdocreport.core.io.IOUtils;
+import fr.opensagres.xdocreport.core.io.XDocArchive;
+import fr.opensagres.xdocreport.template.ITemplateEngine;
+import fr.opensagres.xdocreport.template.formatter.FieldMetadata;
+import fr.opensagres.xdocreport.template.formatter.FieldReplacementFormatter;
+import fr.opensagres.xdocreport.template.formatter.FieldsMetadata;
+import fr.opensagres.xdocreport.template.formatter.ICustomFormatter;
+
+/**
+ * On-disk cache of preprocessed {@link XDocArchive}. Each preprocessed archive is stored in a file of the cache
+ * directory (with the state of the preprocessing which is not stored in the archive) and is identified with a key
+ * computed with {@link #computeKey(XDocArchive, FieldsMetadata, ITemplateEngine, String)} from the content of the
+ * original archive, the fields metadata and the template engine. So when a report is loaded after a restart of the
+ * JVM, the preprocessed archive is read from the cache instead of executing again the preprocessors.
+ * <p>
+ * The cache can be shared by several JVM : a file is written in a temporary file and moved after in the cache
+ * directory.
+ * </p>
+ */
+public class PreprocessedArchiveCache
+{
+
+    /**
+     * Version of the format of the cache files, must be increased when the preprocessors are modified.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String FILE_EXTENSION = ".xdoc";
+
+    /**
+     * Version of XDocReport (null if it is unknown, in this case the preprocessed archives are not cached).
+     */
+    private static final String XDOCREPORT_VERSION = getVersion( PreprocessedArchiveCache.class );
+
+    private final File directory;
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    public PreprocessedArchiveCache( File directory )
+    {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the directory of the cache.
+     * 
+     * @return
+     */
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * Returns the preprocessed archive stored with the given key and null if there is no archive for this key.
+     * 
+     * @param key the key of the preprocessed archive.
+     * @param state the properties to fill with the state of the preprocessing.
+     * @return
+     * @throws IOException
+     */
+    public XDocArchive get( String key, Properties state )
+        throws IOException
+    {
+        File file = getFile( key );
+        InputStream input;
+        try
+        {
+            input = new BufferedInputStream( new FileInputStream( file ) );
+        }
+        catch ( FileNotFoundException e )
+        {
+            missCount.incrementAndGet();
+            return null;
+        }
+        try
+        {
+            DataInputStream data = new DataInputStream( input );
+            if ( data.readInt() != FORMAT_VERSION || !key.equals( data.readUTF() ) )
+            {
+                missCount.incrementAndGet();
+                return null;
+            }
+            byte[] stateContent = new byte[data.readInt()];
+            data.readFully( stateContent );
+            state.load( new ByteArrayInputStream( stateContent ) );
+            XDocArchive archive = XDocArchive.readZip( data );
+            hitCount.incrementAndGet();
+            return archive;
+        }
+        finally
+        {
+            IOUtils.closeQuietly( input );
+        }
+    }
+
+    /**
+     * Store the given preprocessed archive with the given key.
+     * 
+     * @param key the key of the preprocessed archive.
+     * @param archive the preprocessed archive.
+     * @param state the state of the preprocessing which is not stored in the archive.
+     * @throws IOException
+     */
+    public void put( String key, XDocArchive archive, Properties state )
+        throws IOException
+    {
+        if ( !directory.exists() && !directory.mkdirs() && !directory.exists() )
+        {
+            throw new IOException( "Cannot create the cache directory " + directory );
+        }
+        File tempFile = File.createTempFile( key, ".tmp", directory );
+        try
+        {
+            DataOutputStream data = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tempFile ) ) );
+            try
+            {
+                data.writeInt( FORMAT_VERSION );
+                data.writeUTF( key );
+                ByteArrayOutputStream stateContent = new ByteArrayOutputStream();
+                state.store( stateContent, null );
+                data.writeInt( stateContent.size() );
+                stateContent.writeTo( data );
+                XDocArchive.writeZip( archive, data );
+            }
+            finally
+            {
+                data.close();
+            }
+            try
+            {
+                Files.move( tempFile.toPath(), getFile( key ).toPath(), StandardCopyOption.ATOMIC_MOVE );
+            }
+            catch ( AtomicMoveNotSupportedException e )
+            {
+                Files.move( tempFile.toPath(), getFile( key ).toPath(), StandardCopyOption.REPLACE_EXISTING );
+            }
+        }
+        finally
+        {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Remove the preprocessed archive stored with the given key.
+     * 
+     * @param key
+     */
+    public void remove( String key )
+    {
+        getFile( key ).delete();
+    }
+
+    /**
+     * Returns the number of preprocessed archives read from the cache.
+     * 
+     * @return
+     */
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of preprocessed archives which were not found in the cache.
+     * 
+     * @return
+     */
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    private File getFile( String key )
+    {
+        return new File( directory, key + FILE_EXTENSION );
+    }
+
+    /**
+     * Compute the key of the preprocessed archive of the given original archive.
+     * 
+     * @param archive the original archive (before preprocessing).
+     * @param fieldsMetadata the fields metadata used by the preprocessors (can be null).
+     * @param templateEngine the template engine used by the preprocessors.
+     * @param preprocessing information about the preprocessing (ex : the preprocessors classes).
+     * @return the key and null if the preprocessed archive cannot be cached (ex : the version of XDocReport is
+     *         unknown or the fields metadata uses custom formatters).
+     * @throws IOException
+     */
+    public static String computeKey( XDocArchive archive, FieldsMetadata fieldsMetadata,
+                                     ITemplateEngine templateEngine, String preprocessing )
+        throws IOException
+    {
+        String templateEngineVersion = getVersion( templateEngine.getClass() );
+        if ( XDOCREPORT_VERSION == null || templateEngineVersion == null )
+        {
+            return null;
+        }
+        MessageDigest digest = createDigest();
+        // 1) Content of the original archive
+        for ( String entryName : archive.getEntryNames() )
+        {
+            update( digest, entryName );
+            byte[] content = IOUtils.toByteArray( archive.getEntryInputStream( entryName ) );
+            updateLength( digest, content.length );
+            digest.update( content );
+        }
+        // 2) Fields metadata
+        if ( !updateFieldsMetadata( digest, fieldsMetadata ) )
+        {
+            return null;
+        }
+        // 3) Template engine kind and version
+        update( digest, templateEngine.getKind() );
+        update( digest, templateEngine.getId() );
+        update( digest, templateEngine.getClass().getName() );
+        update( digest, templateEngineVersion );
+        // 4) Preprocessing
+        update( digest, XDOCREPORT_VERSION );
+        update( digest, preprocessing );
+
+        StringBuilder key = new StringBuilder();
+        for ( byte b : digest.digest() )
+        {
+            key.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) );
+            key.append( Character.forDigit( b & 0xF, 16 ) );
+        }
+        return key.toString();
+    }
+
+    /**
+     * Update the digest with all the fields metadata settings used by the preprocessors.
+     * 
+     * @param digest
+     * @param fieldsMetadata
+     * @return false if the fields metadata uses settings which cannot be digested (custom formatters).
+     */
+    private static boolean updateFieldsMetadata( MessageDigest digest, FieldsMetadata fieldsMetadata )
+    {
+        if ( fieldsMetadata == null )
+        {
+            update( digest, (String) null );
+            return true;
+        }
+        update( digest, fieldsMetadata.getTemplateEngineKind() );
+        update( digest, fieldsMetadata.getBeforeTableToken() );
+        update( digest, fieldsMetadata.getAfterTableToken() );
+        update( digest, fieldsMetadata.getBeforeRowToken() );
+        update( digest, fieldsMetadata.getAfterRowToken() );
+        update( digest, fieldsMetadata.getBeforeTableCellToken() );
+        update( digest, fieldsMetadata.getAfterTableCellToken() );
+        update( digest, fieldsMetadata.isEvaluateEngineOnlyForFields() );
+        update( digest, fieldsMetadata.getBehaviour() );
+        update( digest, fieldsMetadata.isUseImageSize() );
+        List<FieldMetadata> fields = fieldsMetadata.getFields();
+        updateLength( digest, fields.size() );
+        for ( FieldMetadata field : fields )
+        {
+            update( digest, field.getFieldName() );
+            update( digest, field.isListType() );
+            update( digest, field.isImageType() );
+            update( digest, field.getImageName() );
+            update( digest, field.getBehaviour() );
+            update( digest, field.isUseImageSize() );
+            update( digest, field.getSyntaxKind() );
+            update( digest, field.isSyntaxWithDirective() );
+        }
+        List<ICustomFormatter> customFormatters = fieldsMetadata.getCustomFormatter();
+        if ( customFormatters == null )
+        {
+            updateLength( digest, 0 );
+            return true;
+        }
+        updateLength( digest, customFormatters.size() );
+        for ( ICustomFormatter customFormatter : customFormatters )
+        {
+            if ( !( customFormatter instanceof FieldReplacementFormatter ) )
+            {
+                // the result of a custom formatter cannot be known
+                return false;
+            }
+            FieldReplacementFormatter replacementFormatter = (FieldReplacementFormatter) customFormatter;
+            List<String> searchList = replacementFormatter.getSearchList();
+            List<String> replacementList = replacementFormatter.getReplacementList();
+            updateLength( digest, searchList.size() );
+            for ( int i = 0; i < searchList.size(); i++ )
+            {
+                update( digest, searchList.get( i ) );
+                update( digest, replacementList.get( i ) );
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the version of the library of the given class (implementation version of its package and time of its
+     * class file, to change it when a snapshot is rebuilt) and null if it is unknown.
+     * 
+     * @param clazz
+     * @return
+     */
+    private static String getVersion( Class<?> clazz )
+    {
+        String implementationVersion =
+            clazz.getPackage() != null ? clazz.getPackage().getImplementationVersion() : null;
+        long lastModified = 0;
+        URL classFile = clazz.getResource( clazz.getSimpleName() + ".class" );
+        if ( classFile != null )
+        {
+            try
+            {
+                lastModified = classFile.openConnection().getLastModified();
+            }
+            catch ( IOException e )
+            {
+                // ignore the time of the class file
+            }
+        }
+        if ( implementationVersion == null && lastModified == 0 )
+        {
+            return null;
+        }
+        return implementationVersion + "/" + lastModified;
+    }
+
+    private static MessageDigest createDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-256" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static void update( MessageDigest digest, boolean value )
+    {
+        digest.update( (byte) ( value ? 1 : 0 ) );
+    }
+
+    private static void update( MessageDigest digest, Enum<?> value )
+    {
+        update( digest, value != null ? value.name() : null );
+    }
+
+    private static void update( MessageDigest digest, String value )
+    {
+        if ( value == null )
+        {
+            updateLength( digest, -1 );
+            return;
+        }
+        byte[] bytes = value.getBytes( EncodingConstants.UTF_8 );
+        updateLength( digest, bytes.length );
+        digest.update( bytes );
+    }
+
+    private static void updateLength( MessageDigest digest, int length )
+    {
+        digest.update( (byte) ( length >>> 24 ) );
+        digest.update( (byte) ( length >>> 16 ) );
+        digest.update( (byte) ( length >>> 8 ) );
+        digest.update( (byte) length );
+    }
+}
@@ -31,12 +31,11 @@ import java.util.Map;
 
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.XMLReaderFactory;
 
 import fr.opensagres.xdocreport.core.XDocReportException;
 import fr.opensagres.xdocreport.core.io.IOUtils;
 import fr.opensagres.xdocreport.core.io.XDocArchive;
+import fr.opensagres.xdocreport.core.utils.XMLReaderProvider;
 import fr.opensagres.xdocreport.document.preprocessor.AbstractXDocPreprocessor;
 import fr.opensagres.xdocreport.template.formatter.FieldsMetadata;
 import fr.opensagres.xdocreport.template.formatter.IDocumentFormatter;
@@ -55,15 +54,10 @@ public abstract class SAXXDocPreprocessor
     {
         try
         {
-            XMLReader xmlReader = XMLReaderFactory.createXMLReader();
-            //To avoid xxe security issue
-            xmlReader.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-            xmlReader.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            xmlReader.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
             BufferedDocumentContentHandler<?> contentHandler =
                 createBufferedDocumentContentHandler( entryName, fieldsMetadata, formatter, sharedContext );
-            xmlReader.setContentHandler( contentHandler );
-            xmlReader.parse( new InputSource( reader ) );
+            // the reader doesn't load external DTD and entities to avoid xxe security issue
+            XMLReaderProvider.parse( new InputSource( reader ), contentHandler );
             BufferedDocument document = contentHandler.getBufferedDocument();
             if ( document != null )
             {
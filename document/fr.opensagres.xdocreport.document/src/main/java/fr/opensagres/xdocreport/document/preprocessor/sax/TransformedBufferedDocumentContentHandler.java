@@ -174,20 +174,17 @@ public abstract class TransformedBufferedDocumentContentHandler<Document extends
         {
             // characters parsing belong to a row
             // search if it contains fields list from metadata
-            Collection<String> fieldsAsList = fieldsMetadata.getFieldsAsList();
+            Collection<String> fieldsAsList = fieldsMetadata.getFieldsAsListMatcher().findAll( content );
             if ( !currentRow.isLoopTemplateDirectiveInitilalized() )
             {
                 for ( final String fieldName : fieldsAsList )
                 {
-                    if ( content.contains( fieldName ) )
+                    String itemNameList = formatter.extractItemNameList( content, fieldName, forceAsField );
+                    if ( StringUtils.isNotEmpty( itemNameList ) )
                     {
-                        String itemNameList = formatter.extractItemNameList( content, fieldName, forceAsField );
-                        if ( StringUtils.isNotEmpty( itemNameList ) )
-                        {
-                            currentRow.initializeLoopTemplateDirective( itemNameList, formatter, getStartNoParse(),
-                                                                        getEndNoParse() );
-                            break;
-                        }
+                        currentRow.initializeLoopTemplateDirective( itemNameList, formatter, getStartNoParse(),
+                                                                    getEndNoParse() );
+                        break;
                     }
                 }
             }
@@ -196,15 +193,12 @@ public abstract class TransformedBufferedDocumentContentHandler<Document extends
             {
                 for ( final String fieldName : fieldsAsList )
                 {
-                    if ( content.contains( fieldName ) )
+                    String newContent = formatter.formatAsFieldItemList( content, fieldName, forceAsField );
+                    if ( newContent != null )
                     {
-                        String newContent = formatter.formatAsFieldItemList( content, fieldName, forceAsField );
-                        if ( newContent != null )
-                        {
-                            return new ProcessRowResult( newContent, fieldName, currentRow.getItemNameList(),
-                                                         currentRow.getStartLoopDirective(),
-                                                         currentRow.getEndLoopDirective() );
-                        }
+                        return new ProcessRowResult( newContent, fieldName, currentRow.getItemNameList(),
+                                                     currentRow.getStartLoopDirective(),
+                                                     currentRow.getEndLoopDirective() );
                     }
                 }
             }
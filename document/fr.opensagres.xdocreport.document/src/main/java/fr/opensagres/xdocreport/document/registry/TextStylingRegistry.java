@@ -24,7 +24,6 @@
  */
 package fr.opensagres.xdocreport.document.registry;
 
-import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.Map;
@@ -34,6 +33,7 @@ import fr.opensagres.xdocreport.document.DocumentContextHelper;
 import fr.opensagres.xdocreport.document.discovery.ITextStylingDocumentHandlerFactoryDiscovery;
 import fr.opensagres.xdocreport.document.preprocessor.sax.BufferedElement;
 import fr.opensagres.xdocreport.document.textstyling.BasicTransformResult;
+import fr.opensagres.xdocreport.document.textstyling.ICacheableDocumentHandler;
 import fr.opensagres.xdocreport.document.textstyling.IDocumentHandler;
 import fr.opensagres.xdocreport.document.textstyling.ITextStylingTransformer;
 import fr.opensagres.xdocreport.document.textstyling.ITransformResult;
@@ -55,6 +55,8 @@ public class TextStylingRegistry
     private final Map<String, ITextStylingDocumentHandlerFactoryDiscovery> documentHandlers =
         new HashMap<String, ITextStylingDocumentHandlerFactoryDiscovery>();
 
+    private volatile TextStylingTransformCache transformCache;
+
     public TextStylingRegistry()
     {
         super( ITextStylingDocumentHandlerFactoryDiscovery.class );
@@ -107,7 +109,7 @@ public class TextStylingRegistry
                     if ( templateEngine != null )
                     {
                         StringWriter newContent = new StringWriter();
-                        templateEngine.process( entryName, context, new StringReader( initialContent ), newContent );
+                        templateEngine.processSnippet( entryName, context, initialContent, newContent );
                         content = newContent.toString();
                     }
                 }
@@ -116,6 +118,12 @@ public class TextStylingRegistry
                 // (docx, odt, etc).
                 IDocumentHandler visitor = createDocumentHandler( documentKind, elementId, context, entryName );
                 // 3) Process the transformation.
+                TextStylingTransformCache cache = transformCache;
+                if ( cache != null && visitor instanceof ICacheableDocumentHandler )
+                {
+                    return cache.transform( transformer, content, syntaxKind, documentKind,
+                                            (ICacheableDocumentHandler) visitor );
+                }
                 return transformer.transform( content, visitor );
             }
             catch ( Throwable e )
@@ -128,6 +136,26 @@ public class TextStylingRegistry
         return new BasicTransformResult( initialContent );
     }
 
+    /**
+     * Set the cache of the results of transformations (null to disable it). The cache is disabled by default.
+     * 
+     * @param transformCache
+     */
+    public void setTransformCache( TextStylingTransformCache transformCache )
+    {
+        this.transformCache = transformCache;
+    }
+
+    /**
+     * Returns the cache of the results of transformations and null if it's disabled.
+     * 
+     * @return
+     */
+    public TextStylingTransformCache getTransformCache()
+    {
+        return transformCache;
+    }
+
     /**
      * Create an instance of document handler for the given document kind.
      * 
@@ -0,0 +1,273 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.document.registry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import fr.opensagres.xdocreport.core.XDocReportException;
+import fr.opensagres.xdocreport.core.cache.BoundedCacheStorage;
+import fr.opensagres.xdocreport.core.cache.ICacheWeigher;
+import fr.opensagres.xdocreport.document.textstyling.ICacheableDocumentHandler;
+import fr.opensagres.xdocreport.document.textstyling.ITextStylingTransformer;
+import fr.opensagres.xdocreport.document.textstyling.ITransformResult;
+
+/**
+ * Bounded cache of the results of text styling transformations. A result is cached with the syntax kind, the document
+ * kind, the content and the style context of the {@link ICacheableDocumentHandler} and it's reused for the next
+ * transformation of the same content (other rows of a table, next generation of the report, etc.). Results which
+ * depend on a per-document state ({@link ICacheableDocumentHandler#isCacheable()} returns false) are not cached.
+ * <p>
+ * The weight of a cached result is the number of characters of its texts.
+ * </p>
+ * 
+ * @see TextStylingRegistry#setTransformCache(TextStylingTransformCache)
+ */
+public class TextStylingTransformCache
+{
+
+    private static final ICacheWeigher<TransformKey, ITransformResult> WEIGHER =
+        new ICacheWeigher<TransformKey, ITransformResult>()
+        {
+            public long weigh( TransformKey key, ITransformResult value )
+            {
+                return key.content.length() + value.getTextBefore().length() + value.getTextBody().length()
+                    + value.getTextEnd().length();
+            }
+        };
+
+    private final BoundedCacheStorage<TransformKey, ITransformResult> results;
+
+    private final AtomicLong notCacheableCount;
+
+    /**
+     * Create a cache which contains at most the given number of characters.
+     * 
+     * @param maximumWeight the maximum number of characters of the cached contents and results.
+     */
+    public TextStylingTransformCache( long maximumWeight )
+    {
+        this.results = new BoundedCacheStorage<TransformKey, ITransformResult>( maximumWeight, WEIGHER );
+        this.notCacheableCount = new AtomicLong();
+    }
+
+    /**
+     * Returns the cached result of the transformation of the given content or transform the content with the given
+     * transformer and document handler and cache the result if the handler allows it.
+     * 
+     * @param transformer the text styling transformer.
+     * @param content the content to transform.
+     * @param syntaxKind the syntax of the content.
+     * @param documentKind the document kind of the handler.
+     * @param handler the document handler used if the result is not cached.
+     * @return the result of the transformation.
+     * @throws XDocReportException
+     */
+    public ITransformResult transform( ITextStylingTransformer transformer, String content, String syntaxKind,
+                                       String documentKind, ICacheableDocumentHandler handler )
+        throws XDocReportException
+    {
+        TransformKey key = new TransformKey( syntaxKind, documentKind, content, handler.getStyleContext() );
+        ITransformResult result = results.get( key );
+        if ( result != null )
+        {
+            return result;
+        }
+        result = transformer.transform( content, handler );
+        if ( handler.isCacheable() )
+        {
+            // store a copy of the texts, the handler is not kept.
+            results.put( key, new CachedTransformResult( result ) );
+        }
+        else
+        {
+            notCacheableCount.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Remove all the cached results.
+     */
+    public void clear()
+    {
+        results.clear();
+    }
+
+    /**
+     * Returns the number of cached results.
+     * 
+     * @return
+     */
+    public int size()
+    {
+        return results.size();
+    }
+
+    /**
+     * Returns the number of transformations which have used a cached result.
+     * 
+     * @return
+     */
+    public long getHitCount()
+    {
+        return results.getHitCount();
+    }
+
+    /**
+     * Returns the number of transformations which have not found a cached result.
+     * 
+     * @return
+     */
+    public long getMissCount()
+    {
+        return results.getMissCount();
+    }
+
+    /**
+     * Returns the ratio of transformations which have used a cached result (1 if there was no transformation).
+     * 
+     * @return
+     */
+    public double getHitRate()
+    {
+        return results.getHitRate();
+    }
+
+    /**
+     * Returns the number of results evicted because the maximum weight was exceeded.
+     * 
+     * @return
+     */
+    public long getEvictionCount()
+    {
+        return results.getEvictionCount();
+    }
+
+    /**
+     * Returns the number of results which have not been cached because they depend on a per-document state.
+     * 
+     * @return
+     */
+    public long getNotCacheableCount()
+    {
+        return notCacheableCount.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TextStylingTransformCache [size=" + size() + ", hitCount=" + getHitCount() + ", missCount="
+            + getMissCount() + ", notCacheableCount=" + getNotCacheableCount() + ", evictionCount="
+            + getEvictionCount() + "]";
+    }
+
+    private static class TransformKey
+    {
+
+        private final String syntaxKind;
+
+        private final String documentKind;
+
+        private final String content;
+
+        private final Object styleContext;
+
+        private final int hashCode;
+
+        public TransformKey( String syntaxKind, String documentKind, String content, Object styleContext )
+        {
+            this.syntaxKind = syntaxKind;
+            this.documentKind = documentKind;
+            this.content = content;
+            this.styleContext = styleContext;
+            int result = content.hashCode();
+            result = 31 * result + ( syntaxKind != null ? syntaxKind.hashCode() : 0 );
+            result = 31 * result + ( documentKind != null ? documentKind.hashCode() : 0 );
+            result = 31 * result + ( styleContext != null ? styleContext.hashCode() : 0 );
+            this.hashCode = result;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof TransformKey ) )
+            {
+                return false;
+            }
+            TransformKey other = (TransformKey) obj;
+            return hashCode == other.hashCode && content.equals( other.content )
+                && equals( syntaxKind, other.syntaxKind ) && equals( documentKind, other.documentKind )
+                && equals( styleContext, other.styleContext );
+        }
+
+        private static boolean equals( Object o1, Object o2 )
+        {
+            return o1 == null ? o2 == null : o1.equals( o2 );
+        }
+    }
+
+    private static class CachedTransformResult
+        implements ITransformResult
+    {
+
+        private final String textBefore;
+
+        private final String textBody;
+
+        private final String textEnd;
+
+        public CachedTransformResult( ITransformResult result )
+        {
+            this.textBefore = result.getTextBefore();
+            this.textBody = result.getTextBody();
+            this.textEnd = result.getTextEnd();
+        }
+
+        public String getTextBefore()
+        {
+            return textBefore;
+        }
+
+        public String getTextBody()
+        {
+            return textBody;
+        }
+
+        public String getTextEnd()
+        {
+            return textEnd;
+        }
+    }
+}
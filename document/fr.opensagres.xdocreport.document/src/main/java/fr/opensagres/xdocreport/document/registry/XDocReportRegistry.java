@@ -32,14 +32,22 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import fr.opensagres.xdocreport.converter.MimeMapping;
 import fr.opensagres.xdocreport.core.XDocReportException;
 import fr.opensagres.xdocreport.core.cache.CacheStorageRegistry;
 import fr.opensagres.xdocreport.core.cache.ICacheStorage;
+import fr.opensagres.xdocreport.core.cache.ICacheWeigher;
 import fr.opensagres.xdocreport.core.io.IEntryInfo;
 import fr.opensagres.xdocreport.core.io.XDocArchive;
 import fr.opensagres.xdocreport.core.logging.LogUtils;
@@ -47,6 +55,7 @@ import fr.opensagres.xdocreport.core.registry.AbstractRegistry;
 import fr.opensagres.xdocreport.core.utils.StringUtils;
 import fr.opensagres.xdocreport.document.IXDocReport;
 import fr.opensagres.xdocreport.document.discovery.IXDocReportFactoryDiscovery;
+import fr.opensagres.xdocreport.document.preprocessor.PreprocessedArchiveCache;
 import fr.opensagres.xdocreport.template.ITemplateEngine;
 import fr.opensagres.xdocreport.template.TemplateEngineKind;
 import fr.opensagres.xdocreport.template.cache.ITemplateCacheInfoProvider;
@@ -72,6 +81,26 @@ public class XDocReportRegistry
     private static final String FILES_TYPE_ERROR =
         "Impossible to create report for the input stream. The report loader supports only [{0}] files type.";
 
+    /**
+     * Weigh a report with the size in bytes of its document archive, original zip content included (the original
+     * archive shares the content of the entries which are not modified by the preprocessing, so it is not counted). A
+     * report registered before its preprocessing is weighed again by {@link #getReport(String)} once it is
+     * preprocessed, because the preprocessing replaces its document archive.
+     */
+    private static final ICacheWeigher<String, IXDocReport> REPORT_WEIGHER = new ICacheWeigher<String, IXDocReport>()
+    {
+        public long weigh( String reportId, IXDocReport report )
+        {
+            XDocArchive archive = report.getPreprocessedDocumentArchive();
+            return archive != null ? archive.getSize() : 0;
+        }
+    };
+
+    /**
+     * Counter used to generate unique report id when several threads generate an id at the same time.
+     */
+    private static final AtomicLong UNIQUE_ID_COUNTER = new AtomicLong();
+
     private static final XDocReportRegistry INSTANCE = new XDocReportRegistry();
 
     private final Collection<IXDocReportFactoryDiscovery> reportFactoryDiscoveries =
@@ -81,6 +110,24 @@ public class XDocReportRegistry
      * IXDocReport cache.
      */
     private final ICacheStorage<String, IXDocReport> cachedReports;
+
+    /**
+     * Reports which are being loaded by {@link #loadReportIfAbsent(String, IXDocReportLoader)}.
+     */
+    private final ConcurrentMap<String, FutureTask<IXDocReport>> loadingReports =
+        new ConcurrentHashMap<String, FutureTask<IXDocReport>>();
+
+    /**
+     * Cached reports which were not preprocessed when they were registered and must be weighed again once they are
+     * preprocessed. The map is used as lock to update it with the cached reports.
+     */
+    private final ConcurrentMap<String, IXDocReport> reportsToWeigh = new ConcurrentHashMap<String, IXDocReport>();
+
+    /**
+     * On-disk cache of the preprocessed archive of the loaded reports.
+     */
+    private transient PreprocessedArchiveCache preprocessedArchiveCache;
+
     private Timer cleanupTimer;
     public XDocReportRegistry()
     {
@@ -89,13 +136,24 @@ public class XDocReportRegistry
     }
 
     /**
-     * Create the storage cache to store instances of IXDocReport.
+     * Create the storage cache to store instances of IXDocReport. The weight of a report is the size in bytes of its
+     * document archive.
      * 
      * @return
      */
     protected ICacheStorage<String, IXDocReport> createCache()
     {
-        return CacheStorageRegistry.getRegistry().createCache();
+        return CacheStorageRegistry.getRegistry().createCache( REPORT_WEIGHER );
+    }
+
+    /**
+     * Returns the storage cache of the instances of IXDocReport (ex : to get the statistics of a bounded cache).
+     * 
+     * @return
+     */
+    public ICacheStorage<String, IXDocReport> getCacheStorage()
+    {
+        return cachedReports;
     }
 
     public static XDocReportRegistry getRegistry()
@@ -357,6 +415,10 @@ public class XDocReportRegistry
             }
         }
         report.setTemplateEngine( templateEngine );
+        if ( preprocessedArchiveCache != null )
+        {
+            report.setPreprocessedArchiveCache( preprocessedArchiveCache );
+        }
         if ( cacheReport )
         {
             registerReport( report );
@@ -364,6 +426,93 @@ public class XDocReportRegistry
         return report;
     }
 
+    /**
+     * Returns the cached report with the given id or load it with the given loader, preprocess it and cache it if
+     * there is no report with this id. When several threads ask the same report which is not cached, the report is
+     * loaded and preprocessed only once and the other threads wait for it.
+     * 
+     * @param reportId the report id.
+     * @param loader the loader used if the report is not cached.
+     * @return
+     * @throws IOException
+     * @throws XDocReportException
+     */
+    public IXDocReport loadReportIfAbsent( final String reportId, final IXDocReportLoader loader )
+        throws IOException, XDocReportException
+    {
+        if ( StringUtils.isEmpty( reportId ) )
+        {
+            throw new XDocReportException( "Cannot load report. Report id cannot be empty." );
+        }
+        IXDocReport report = getReport( reportId );
+        if ( report != null )
+        {
+            return report;
+        }
+        FutureTask<IXDocReport> task = new FutureTask<IXDocReport>( new Callable<IXDocReport>()
+        {
+            public IXDocReport call()
+                throws Exception
+            {
+                // the report could be cached by another thread since the first check
+                IXDocReport report = getReport( reportId );
+                if ( report != null )
+                {
+                    return report;
+                }
+                report = loader.load();
+                report.setId( reportId );
+                report.preprocess();
+                IXDocReport existingReport = cachedReports.putIfAbsent( reportId, report );
+                return existingReport != null ? existingReport : report;
+            }
+        } );
+        FutureTask<IXDocReport> loadingTask = loadingReports.putIfAbsent( reportId, task );
+        if ( loadingTask == null )
+        {
+            // this thread loads the report
+            loadingTask = task;
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                loadingReports.remove( reportId, task );
+            }
+        }
+        try
+        {
+            return loadingTask.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new XDocReportException( e );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            if ( cause instanceof IOException )
+            {
+                throw (IOException) cause;
+            }
+            if ( cause instanceof XDocReportException )
+            {
+                throw (XDocReportException) cause;
+            }
+            if ( cause instanceof RuntimeException )
+            {
+                throw (RuntimeException) cause;
+            }
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+            throw new XDocReportException( cause );
+        }
+    }
+
     public IXDocReport createReport( InputStream sourceStream )
         throws IOException, XDocReportException
     {
@@ -427,7 +576,7 @@ public class XDocReportRegistry
      *            XDocReportException if report exists with the same id).
      * @throws XDocReportException
      */
-    public synchronized void registerReport( IXDocReport report, boolean force )
+    public void registerReport( IXDocReport report, boolean force )
         throws XDocReportException
     {
         String reportId = report.getId();
@@ -435,11 +584,34 @@ public class XDocReportRegistry
         {
             throw new XDocReportException( "Cannot register report. IXDocReport#getId() cannot be empty." );
         }
-        if ( !force )
+        synchronized ( reportsToWeigh )
         {
-            checkReportId( reportId );
+            if ( force )
+            {
+                cachedReports.put( reportId, report );
+            }
+            else if ( cachedReports.putIfAbsent( reportId, report ) != null )
+            {
+                throw new XDocReportException( getReportIdExistsMessage( reportId ) );
+            }
+            // forget the reports evicted by the cache storage
+            for ( Iterator<String> reportIds = reportsToWeigh.keySet().iterator(); reportIds.hasNext(); )
+            {
+                if ( !cachedReports.containsKey( reportIds.next() ) )
+                {
+                    reportIds.remove();
+                }
+            }
+            if ( report.isPreprocessed() )
+            {
+                reportsToWeigh.remove( reportId );
+            }
+            else
+            {
+                // the report is preprocessed lazily at the first process, which replaces its document archive.
+                reportsToWeigh.put( reportId, report );
+            }
         }
-        cachedReports.put( report.getId(), report );
     }
 
     /**
@@ -451,15 +623,20 @@ public class XDocReportRegistry
     public void checkReportId( String reportId )
         throws XDocReportException
     {
-        if ( cachedReports.containsKey( reportId ) )
+        if ( existsReport( reportId ) )
         {
-            String msg =
-                String.format( "Cannot register report. A report with id=%s already exists in the registry", reportId );
-            LOGGER.warning( msg );
-            throw new XDocReportException( msg );
+            throw new XDocReportException( getReportIdExistsMessage( reportId ) );
         }
     }
 
+    private static String getReportIdExistsMessage( String reportId )
+    {
+        String msg =
+            String.format( "Cannot register report. A report with id=%s already exists in the registry", reportId );
+        LOGGER.warning( msg );
+        return msg;
+    }
+
     /**
      * Returns the report identified with the given id.
      * 
@@ -468,7 +645,36 @@ public class XDocReportRegistry
      */
     public IXDocReport getReport( String reportId )
     {
-        return cachedReports.get( reportId );
+        // the cache storage (ex : ConcurrentHashMap) may not support null key
+        if ( reportId == null )
+        {
+            return null;
+        }
+        IXDocReport report = cachedReports.get( reportId );
+        if ( report != null && report.isPreprocessed() && reportsToWeigh.get( reportId ) == report )
+        {
+            weighPreprocessedReport( reportId, report );
+        }
+        return report;
+    }
+
+    /**
+     * Put again in the cache the given report which was preprocessed since it was registered, to update its weight
+     * with its preprocessed document archive.
+     * 
+     * @param reportId
+     * @param report
+     */
+    private void weighPreprocessedReport( String reportId, IXDocReport report )
+    {
+        synchronized ( reportsToWeigh )
+        {
+            // the report could be unregistered or replaced by another thread since it was got.
+            if ( reportsToWeigh.remove( reportId, report ) && cachedReports.containsKey( reportId ) )
+            {
+                cachedReports.put( reportId, report );
+            }
+        }
     }
 
     /**
@@ -479,7 +685,7 @@ public class XDocReportRegistry
      */
     public boolean existsReport( String reportId )
     {
-        return cachedReports.containsKey( reportId );
+        return reportId != null && cachedReports.containsKey( reportId );
     }
 
     /**
@@ -491,7 +697,11 @@ public class XDocReportRegistry
     {
         if ( existsReport( reportId ) )
         {
-            cachedReports.remove( reportId );
+            synchronized ( reportsToWeigh )
+            {
+                cachedReports.remove( reportId );
+                reportsToWeigh.remove( reportId );
+            }
         }
     }
 
@@ -504,7 +714,7 @@ public class XDocReportRegistry
     {
         if ( report != null )
         {
-            cachedReports.remove( report.getId() );
+            unregisterReport( report.getId() );
         }
     }
 
@@ -552,12 +762,37 @@ public class XDocReportRegistry
 		}, timeout, timeout);
     }
 
+    /**
+     * Set the on-disk cache of the preprocessed archive used by the reports loaded with the registry, to avoid
+     * preprocessing again the same documents after a restart of the JVM.
+     * 
+     * @param preprocessedArchiveCache the cache and null if preprocessed archive must not be cached.
+     */
+    public void setPreprocessedArchiveCache( PreprocessedArchiveCache preprocessedArchiveCache )
+    {
+        this.preprocessedArchiveCache = preprocessedArchiveCache;
+    }
+
+    /**
+     * Returns the on-disk cache of the preprocessed archive used by the reports loaded with the registry.
+     * 
+     * @return
+     */
+    public PreprocessedArchiveCache getPreprocessedArchiveCache()
+    {
+        return preprocessedArchiveCache;
+    }
+
     /**
      * Clear the cached reports.
      */
     public void clear()
     {
-        cachedReports.clear();
+        synchronized ( reportsToWeigh )
+        {
+            cachedReports.clear();
+            reportsToWeigh.clear();
+        }
     }
 
     /**
@@ -588,14 +823,15 @@ public class XDocReportRegistry
      * @param reportId
      * @return
      */
-    public synchronized String generateUniqueReportId( String reportId )
+    public String generateUniqueReportId( String reportId )
     {
-        IXDocReport report = getReport( reportId );
-        if ( report != null )
+        if ( existsReport( reportId ) )
         {
             StringBuilder id = new StringBuilder( reportId );
             id.append( "_" );
             id.append( System.currentTimeMillis() );
+            id.append( "_" );
+            id.append( UNIQUE_ID_COUNTER.incrementAndGet() );
             return id.toString();
         }
         return reportId;
@@ -619,6 +855,7 @@ public class XDocReportRegistry
     	}
         this.reportFactoryDiscoveries.clear();
         this.cachedReports.clear();
+        this.reportsToWeigh.clear();
     }
 
     @Override
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.document.textstyling;
+
+/**
+ * Document handler whose result of transformation can be cached and reused for the same content. The result must
+ * depend only on the transformed content and on the style context returned by {@link #getStyleContext()}.
+ */
+public interface ICacheableDocumentHandler
+    extends IDocumentHandler
+{
+
+    /**
+     * Returns the state of the document used by the handler to generate the content (default style, styles
+     * generator...). This state is a part of the cache key, so it must implement equals/hashCode or be shared by the
+     * documents which have the same styles.
+     * 
+     * @return the style context, or null if the result doesn't depend on the document.
+     */
+    Object getStyleContext();
+
+    /**
+     * Returns true if the result of the transformation can be cached and false if it depends on a per-document state
+     * (numbering ids, hyperlinks relationships, dynamic styles...) which has been updated by the transformation.
+     * 
+     * @return true if the result of the transformation can be cached and false otherwise.
+     */
+    boolean isCacheable();
+}
@@ -0,0 +1,496 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.document.textstyling.html;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import fr.opensagres.xdocreport.core.utils.StringEscapeUtils;
+
+/**
+ * Streaming HTML tokenizer which calls the SAX {@link ContentHandler} (ex : {@link HTMLTextStylingContentHandler})
+ * directly with the elements, attributes and text of a HTML text styling content.
+ * <p>
+ * Contrary to {@link HTMLTextStylingTransformer}, the content is not wrapped in a XML document declaring the HTML 4.0
+ * entities with a DOCTYPE, so there is no DTD to parse for each content. HTML 4.0 entities and character references
+ * are decoded by the tokenizer itself. The tokenizer is lenient :
+ * <ul>
+ * <li>element and attribute names are lower cased.</li>
+ * <li>empty elements (br, img, hr...) can be written without end tag.</li>
+ * <li>an end tag closes the elements which are not closed inside it and an end tag without start tag is ignored.</li>
+ * <li>elements which are not closed at the end of the content are closed.</li>
+ * <li>unknown entities and '&lt;' which doesn't start a tag are kept as text.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * The characters \r, \n, \t are ignored and &amp;nbsp; is replaced with a space like {@link HTMLTextStylingTransformer}
+ * does.
+ * </p>
+ */
+public class HTMLTextStylingTokenizer
+{
+
+    private static final String CDATA_TYPE = "CDATA";
+
+    private static final String[] EMPTY_ELEMENTS =
+        { "area", "base", "br", "col", "hr", "img", "input", "link", "meta", "param", "wbr" };
+
+    private static final int MAX_ENTITY_NAME_LENGTH = 32;
+
+    private final String content;
+
+    private final int length;
+
+    private final ContentHandler contentHandler;
+
+    private final StringBuilder text;
+
+    private final AttributesImpl attributes;
+
+    private final List<String> openElements;
+
+    private char[] buffer;
+
+    private int pos;
+
+    private HTMLTextStylingTokenizer( String content, ContentHandler contentHandler )
+    {
+        this.content = content;
+        this.length = content.length();
+        this.contentHandler = contentHandler;
+        this.text = new StringBuilder();
+        this.attributes = new AttributesImpl();
+        this.openElements = new ArrayList<String>();
+        this.buffer = new char[64];
+        this.pos = 0;
+    }
+
+    /**
+     * Tokenize the given HTML content and call the given content handler.
+     * 
+     * @param content the HTML content.
+     * @param contentHandler the SAX content handler.
+     * @throws SAXException
+     */
+    public static void parse( String content, ContentHandler contentHandler )
+        throws SAXException
+    {
+        new HTMLTextStylingTokenizer( content != null ? content : "", contentHandler ).parse();
+    }
+
+    private void parse()
+        throws SAXException
+    {
+        contentHandler.startDocument();
+        while ( pos < length )
+        {
+            char c = content.charAt( pos );
+            if ( c == '<' )
+            {
+                flushText();
+                parseMarkup();
+            }
+            else if ( c == '&' )
+            {
+                parseEntity();
+            }
+            else
+            {
+                if ( !isIgnoredChar( c ) )
+                {
+                    text.append( c );
+                }
+                pos++;
+            }
+        }
+        flushText();
+        // close the elements which are not closed.
+        for ( int i = openElements.size() - 1; i >= 0; i-- )
+        {
+            endElement( openElements.remove( i ) );
+        }
+        contentHandler.endDocument();
+    }
+
+    private void parseMarkup()
+        throws SAXException
+    {
+        if ( content.startsWith( "<!--", pos ) )
+        {
+            // comment
+            pos = skipAfter( "-->", pos + 4 );
+        }
+        else if ( content.startsWith( "<![CDATA[", pos ) )
+        {
+            // CDATA section
+            int start = pos + 9;
+            int end = content.indexOf( "]]>", start );
+            if ( end == -1 )
+            {
+                end = length;
+            }
+            appendText( start, end );
+            flushText();
+            pos = Math.min( end + 3, length );
+        }
+        else if ( pos + 1 < length && ( content.charAt( pos + 1 ) == '!' || content.charAt( pos + 1 ) == '?' ) )
+        {
+            // DOCTYPE, processing instruction
+            pos = skipAfter( ">", pos + 2 );
+        }
+        else if ( pos + 2 < length && content.charAt( pos + 1 ) == '/' && isNameStartChar( content.charAt( pos + 2 ) ) )
+        {
+            // end tag
+            pos += 2;
+            String name = readName();
+            pos = skipAfter( ">", pos );
+            closeElement( name );
+        }
+        else if ( pos + 1 < length && isNameStartChar( content.charAt( pos + 1 ) ) )
+        {
+            // start tag
+            pos++;
+            parseStartTag();
+        }
+        else
+        {
+            // '<' which doesn't start a tag
+            text.append( '<' );
+            pos++;
+        }
+    }
+
+    private void parseStartTag()
+        throws SAXException
+    {
+        String name = readName();
+        attributes.clear();
+        boolean empty = false;
+        while ( pos < length )
+        {
+            char c = content.charAt( pos );
+            if ( c == '>' )
+            {
+                pos++;
+                break;
+            }
+            if ( c == '/' )
+            {
+                pos++;
+                empty = pos < length && content.charAt( pos ) == '>';
+                continue;
+            }
+            if ( isWhitespace( c ) || !isNameStartChar( c ) )
+            {
+                pos++;
+                continue;
+            }
+            parseAttribute();
+        }
+        contentHandler.startElement( "", name, name, attributes );
+        if ( empty || isEmptyElement( name ) )
+        {
+            endElement( name );
+        }
+        else
+        {
+            openElements.add( name );
+        }
+    }
+
+    private void parseAttribute()
+    {
+        String name = readName();
+        skipWhitespaces();
+        String value = name;
+        if ( pos < length && content.charAt( pos ) == '=' )
+        {
+            pos++;
+            skipWhitespaces();
+            value = readAttributeValue();
+        }
+        if ( attributes.getIndex( name ) == -1 )
+        {
+            attributes.addAttribute( "", name, name, CDATA_TYPE, value );
+        }
+    }
+
+    private String readAttributeValue()
+    {
+        int start;
+        int end;
+        char c = pos < length ? content.charAt( pos ) : ' ';
+        if ( c == '"' || c == '\'' )
+        {
+            start = pos + 1;
+            end = content.indexOf( c, start );
+            if ( end == -1 )
+            {
+                end = length;
+            }
+            pos = Math.min( end + 1, length );
+        }
+        else
+        {
+            start = pos;
+            while ( pos < length && !isWhitespace( content.charAt( pos ) ) && content.charAt( pos ) != '>' )
+            {
+                pos++;
+            }
+            end = pos;
+        }
+        StringBuilder value = new StringBuilder( end - start );
+        for ( int i = start; i < end; i++ )
+        {
+            char ch = content.charAt( i );
+            if ( ch == '&' )
+            {
+                int semicolon = indexOfEntityEnd( i );
+                int entity = semicolon != -1 ? decodeEntity( i + 1, semicolon ) : -1;
+                if ( entity != -1 )
+                {
+                    value.appendCodePoint( entity );
+                    i = semicolon;
+                    continue;
+                }
+            }
+            if ( !isIgnoredChar( ch ) )
+            {
+                value.append( ch );
+            }
+        }
+        return value.toString();
+    }
+
+    private void parseEntity()
+        throws SAXException
+    {
+        int semicolon = indexOfEntityEnd( pos );
+        int entity = semicolon != -1 ? decodeEntity( pos + 1, semicolon ) : -1;
+        if ( entity == -1 )
+        {
+            // unknown entity, keep it as text.
+            text.append( '&' );
+            pos++;
+            return;
+        }
+        if ( content.startsWith( "nbsp;", pos + 1 ) )
+        {
+            // &nbsp; is replaced with a space, like HTMLTextStylingTransformer does.
+            text.append( ' ' );
+        }
+        else if ( content.charAt( pos + 1 ) == '#' || isPredefinedEntity( pos + 1, semicolon ) )
+        {
+            // character reference and XML entity are reported alone like a SAX parser does.
+            flushText();
+            text.appendCodePoint( entity );
+            flushText();
+        }
+        else
+        {
+            // HTML entity is reported with the text which follows it like a SAX parser does.
+            flushText();
+            text.appendCodePoint( entity );
+        }
+        pos = semicolon + 1;
+    }
+
+    /**
+     * Returns the code point of the entity or character reference declared between start and end and -1 if it's not
+     * valid.
+     */
+    private int decodeEntity( int start, int end )
+    {
+        if ( start >= end )
+        {
+            return -1;
+        }
+        if ( content.charAt( start ) == '#' )
+        {
+            try
+            {
+                int codePoint;
+                if ( start + 1 < end && ( content.charAt( start + 1 ) == 'x' || content.charAt( start + 1 ) == 'X' ) )
+                {
+                    codePoint = Integer.parseInt( content.substring( start + 2, end ), 16 );
+                }
+                else
+                {
+                    codePoint = Integer.parseInt( content.substring( start + 1, end ) );
+                }
+                return Character.isValidCodePoint( codePoint ) ? codePoint : -1;
+            }
+            catch ( NumberFormatException e )
+            {
+                return -1;
+            }
+        }
+        String name = content.substring( start, end );
+        if ( "apos".equals( name ) )
+        {
+            return '\'';
+        }
+        return StringEscapeUtils.Entities.HTML40.entityValue( name );
+    }
+
+    private boolean isPredefinedEntity( int start, int end )
+    {
+        String name = content.substring( start, end );
+        return "amp".equals( name ) || "lt".equals( name ) || "gt".equals( name ) || "quot".equals( name )
+            || "apos".equals( name );
+    }
+
+    /**
+     * Returns the index of the ';' which ends the entity started at the given index of '&' and -1 if there is no
+     * entity.
+     */
+    private int indexOfEntityEnd( int ampersand )
+    {
+        int max = Math.min( length, ampersand + MAX_ENTITY_NAME_LENGTH + 2 );
+        for ( int i = ampersand + 1; i < max; i++ )
+        {
+            char c = content.charAt( i );
+            if ( c == ';' )
+            {
+                return i;
+            }
+            if ( !Character.isLetterOrDigit( c ) && c != '#' )
+            {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private String readName()
+    {
+        int start = pos;
+        while ( pos < length && isNameChar( content.charAt( pos ) ) )
+        {
+            pos++;
+        }
+        return content.substring( start, pos ).toLowerCase();
+    }
+
+    private void closeElement( String name )
+        throws SAXException
+    {
+        int index = openElements.lastIndexOf( name );
+        if ( index == -1 )
+        {
+            // end tag without start tag.
+            return;
+        }
+        for ( int i = openElements.size() - 1; i >= index; i-- )
+        {
+            endElement( openElements.remove( i ) );
+        }
+    }
+
+    private void endElement( String name )
+        throws SAXException
+    {
+        contentHandler.endElement( "", name, name );
+    }
+
+    private void appendText( int start, int end )
+    {
+        for ( int i = start; i < end; i++ )
+        {
+            char c = content.charAt( i );
+            if ( !isIgnoredChar( c ) )
+            {
+                text.append( c );
+            }
+        }
+    }
+
+    private void flushText()
+        throws SAXException
+    {
+        int textLength = text.length();
+        if ( textLength == 0 )
+        {
+            return;
+        }
+        if ( buffer.length < textLength )
+        {
+            buffer = new char[Math.max( textLength, buffer.length * 2 )];
+        }
+        text.getChars( 0, textLength, buffer, 0 );
+        text.setLength( 0 );
+        contentHandler.characters( buffer, 0, textLength );
+    }
+
+    private int skipAfter( String end, int from )
+    {
+        int index = content.indexOf( end, from );
+        return index == -1 ? length : index + end.length();
+    }
+
+    private void skipWhitespaces()
+    {
+        while ( pos < length && isWhitespace( content.charAt( pos ) ) )
+        {
+            pos++;
+        }
+    }
+
+    private static boolean isEmptyElement( String name )
+    {
+        for ( String element : EMPTY_ELEMENTS )
+        {
+            if ( element.equals( name ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isIgnoredChar( char c )
+    {
+        return c == '\r' || c == '\n' || c == '\t';
+    }
+
+    private static boolean isWhitespace( char c )
+    {
+        return c == ' ' || isIgnoredChar( c );
+    }
+
+    private static boolean isNameStartChar( char c )
+    {
+        return Character.isLetter( c ) || c == '_' || c == ':';
+    }
+
+    private static boolean isNameChar( char c )
+    {
+        return Character.isLetterOrDigit( c ) || c == '_' || c == ':' || c == '-' || c == '.';
+    }
+}
@@ -29,12 +29,11 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.xml.sax.InputSource;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.XMLReaderFactory;
 
 import fr.opensagres.xdocreport.core.logging.LogUtils;
 import fr.opensagres.xdocreport.core.utils.StringEscapeUtils;
 import fr.opensagres.xdocreport.core.utils.StringUtils;
+import fr.opensagres.xdocreport.core.utils.XMLReaderProvider;
 import fr.opensagres.xdocreport.document.textstyling.AbstractTextStylingTransformer;
 import fr.opensagres.xdocreport.document.textstyling.IDocumentHandler;
 import fr.opensagres.xdocreport.document.textstyling.ITextStylingTransformer;
@@ -80,9 +79,8 @@ public class HTMLTextStylingTransformer
         {
             LOGGER.fine( xml );
         }
-        XMLReader xmlReader = XMLReaderFactory.createXMLReader();
-        xmlReader.setContentHandler( new HTMLTextStylingContentHandler( documentHandler ) );
-        xmlReader.parse( new InputSource( new StringReader( xml ) ) );
+        XMLReaderProvider.parse( new InputSource( new StringReader( xml ) ),
+                                 new HTMLTextStylingContentHandler( documentHandler ) );
     }
 
     protected String generateXhtmlFromContent( String content )
@@ -0,0 +1,49 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.document.textstyling.html;
+
+import fr.opensagres.xdocreport.document.textstyling.IDocumentHandler;
+import fr.opensagres.xdocreport.document.textstyling.ITextStylingTransformer;
+
+/**
+ * HTML text styling transformer which uses the streaming {@link HTMLTextStylingTokenizer} instead of a SAX parser. It
+ * avoids building a XML document with the HTML 4.0 entities DOCTYPE and parsing it for each content.
+ */
+public class StreamingHTMLTextStylingTransformer
+    extends HTMLTextStylingTransformer
+{
+
+    public static final ITextStylingTransformer INSTANCE = new StreamingHTMLTextStylingTransformer();
+
+    @Override
+    protected void doTransform( String content, IDocumentHandler documentHandler )
+        throws Exception
+    {
+        // pre-process content : can be used to integrate a markup based html generator like markdown
+        content = generateXhtmlFromContent( content );
+        HTMLTextStylingTokenizer.parse( content, new HTMLTextStylingContentHandler( documentHandler ) );
+    }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.document.images;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import fr.opensagres.xdocreport.core.io.IOUtils;
+import fr.opensagres.xdocreport.core.io.XDocArchive;
+
+public class FileChannelImageProviderTestCase
+{
+
+    private static final File LOGO = new File( "src/test/resources/fr/opensagres/xdocreport/document/images/logo.png" );
+
+    @Test
+    public void write()
+        throws Exception
+    {
+        FileChannelImageProvider imageProvider = new FileChannelImageProvider( LOGO, true );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        imageProvider.write( out );
+        Assert.assertArrayEquals( readLogo(), out.toByteArray() );
+        Assert.assertNotNull( imageProvider.getWidth( null ) );
+    }
+
+    @Test
+    public void imageIsAFileEntryOfTheArchive()
+        throws Exception
+    {
+        XDocArchive archive = new XDocArchive();
+        AbstractImageRegistry imageRegistry = new AbstractImageRegistry( archive, archive, archive, null )
+        {
+
+            @Override
+            protected String getImageBasePath()
+            {
+                return "media/";
+            }
+
+            @Override
+            protected String getPath( ImageProviderInfo info )
+            {
+                return info.getImageId();
+            }
+
+            @Override
+            public String getSize( float sizeAsPixel )
+            {
+                return String.valueOf( sizeAsPixel );
+            }
+
+            @Override
+            public Float getSize( String sizeAsDxa )
+            {
+                return null;
+            }
+        };
+        imageRegistry.registerImage( new FileChannelImageProvider( LOGO ), "logo", null );
+        imageRegistry.registerImage( new FileImageProvider( LOGO ), "logo", null );
+        imageRegistry.registerImage( new ByteArrayImageProvider( new byte[] { 1, 2, 3 } ), "logo", null );
+        imageRegistry.postProcess();
+
+        Assert.assertEquals( 2, archive.getEntryNames().size() );
+        Assert.assertArrayEquals( readLogo(),
+                                  IOUtils.toByteArray( archive.getEntryInputStream( "media/xdocreport_0.png" ) ) );
+    }
+
+    private static byte[] readLogo()
+        throws Exception
+    {
+        InputStream input = new FileInputStream( LOGO );
+        try
+        {
+            return IOUtils.toByteArray( input );
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+}
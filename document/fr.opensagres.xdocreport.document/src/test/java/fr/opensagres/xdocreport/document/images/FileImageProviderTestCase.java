@@ -191,6 +191,8 @@ public class FileImageProviderTestCase
 
     @Test
     public void checkIfInputStreamIsClosedAfterLoadingImageInfo() throws Exception {
+        // the image info must be loaded and not retrieved from the cache
+        ImageInfoCache.getInstance().clear();
         File file = new File("src/test/resources/fr/opensagres/xdocreport/document/images/logo.png");
         final InputStream fis = new FileInputStream(file);
         FileImageProvider imageProvider = new FileImageProvider(file, true) {
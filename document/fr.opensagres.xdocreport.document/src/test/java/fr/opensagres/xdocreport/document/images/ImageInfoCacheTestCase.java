@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.document.images;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import fr.opensagres.xdocreport.core.io.IOUtils;
+
+public class ImageInfoCacheTestCase
+{
+
+    private static final String LOGO = "src/test/resources/fr/opensagres/xdocreport/document/images/logo.png";
+
+    private static final String PHOTO = "src/test/resources/fr/opensagres/xdocreport/document/images/AngeloZERR.jpg";
+
+    @Before
+    public void setUp()
+    {
+        ImageInfoCache.getInstance().clear();
+        ImageInfoCache.getInstance().resetStatistics();
+    }
+
+    @After
+    public void tearDown()
+    {
+        ImageInfoCache.getInstance().setMaxSize( 1000 );
+        ImageInfoCache.getInstance().clear();
+    }
+
+    @Test
+    public void fileImageInfoIsShared()
+        throws Exception
+    {
+        ImageInfoCache cache = ImageInfoCache.getInstance();
+        IImageInfo imageInfo = new FileImageProvider( new File( LOGO ), true ).getImageInfo();
+        Assert.assertEquals( 1, cache.getMissCount() );
+        Assert.assertEquals( 0, cache.getHitCount() );
+
+        IImageInfo imageInfo2 = new FileImageProvider( new File( LOGO ), true ).getImageInfo();
+        Assert.assertSame( imageInfo, imageInfo2 );
+        Assert.assertEquals( 1, cache.getHitCount() );
+        Assert.assertEquals( 1, cache.size() );
+    }
+
+    @Test
+    public void modifiedFileIsReloaded()
+        throws Exception
+    {
+        File dir = new File( "target/ImageInfoCacheTestCase" );
+        dir.mkdirs();
+        File file = new File( dir, "image.png" );
+        copy( new File( LOGO ), file );
+        file.setLastModified( 1000000000000L );
+        IImageInfo logoInfo = new FileImageProvider( file, true ).getImageInfo();
+
+        copy( new File( PHOTO ), file );
+        file.setLastModified( 1000000001000L );
+        IImageInfo photoInfo = new FileImageProvider( file, true ).getImageInfo();
+        Assert.assertNotSame( logoInfo, photoInfo );
+        IImageInfo expected = new FileImageProvider( new File( PHOTO ), true ).getImageInfo();
+        Assert.assertEquals( expected.getWidth(), photoInfo.getWidth() );
+        Assert.assertEquals( expected.getHeight(), photoInfo.getHeight() );
+    }
+
+    @Test
+    public void classPathImageInfoIsShared()
+        throws Exception
+    {
+        ImageInfoCache cache = ImageInfoCache.getInstance();
+        IImageInfo imageInfo = new ClassPathImageProvider( ImageInfoCacheTestCase.class, "logo.png", true ).getImageInfo();
+        IImageInfo imageInfo2 =
+            new ClassPathImageProvider( ImageInfoCacheTestCase.class.getClassLoader(),
+                                        "fr/opensagres/xdocreport/document/images/logo.png", true ).getImageInfo();
+        Assert.assertSame( imageInfo, imageInfo2 );
+        Assert.assertEquals( 1, cache.getHitCount() );
+    }
+
+    @Test
+    public void classPathResourceIsResolvedOnce()
+        throws Exception
+    {
+        final int[] resolveCount = new int[1];
+        ClassLoader classLoader = new ClassLoader( ImageInfoCacheTestCase.class.getClassLoader() )
+        {
+            @Override
+            public URL getResource( String name )
+            {
+                resolveCount[0]++;
+                return super.getResource( name );
+            }
+        };
+        ClassPathImageProvider provider =
+            new ClassPathImageProvider( classLoader, "fr/opensagres/xdocreport/document/images/logo.png", true );
+        IImageInfo imageInfo = provider.getImageInfo();
+        // getResourceAsStream uses getResource too
+        int count = resolveCount[0];
+        provider.resetImageInfo();
+        Assert.assertSame( imageInfo, provider.getImageInfo() );
+        Assert.assertEquals( count, resolveCount[0] );
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed()
+        throws Exception
+    {
+        ImageInfoCache cache = ImageInfoCache.getInstance();
+        cache.setMaxSize( 1 );
+        new FileImageProvider( new File( LOGO ), true ).getImageInfo();
+        new FileImageProvider( new File( PHOTO ), true ).getImageInfo();
+        Assert.assertEquals( 1, cache.size() );
+        Assert.assertEquals( 1, cache.getEvictionCount() );
+    }
+
+    @Test
+    public void disabled()
+        throws Exception
+    {
+        ImageInfoCache cache = ImageInfoCache.getInstance();
+        cache.setEnabled( false );
+        try
+        {
+            IImageInfo imageInfo = new FileImageProvider( new File( LOGO ), true ).getImageInfo();
+            IImageInfo imageInfo2 = new FileImageProvider( new File( LOGO ), true ).getImageInfo();
+            Assert.assertNotSame( imageInfo, imageInfo2 );
+            Assert.assertEquals( imageInfo.getWidth(), imageInfo2.getWidth() );
+            Assert.assertEquals( 0, cache.size() );
+        }
+        finally
+        {
+            cache.setEnabled( true );
+        }
+    }
+
+    private static void copy( File from, File to )
+        throws Exception
+    {
+        InputStream in = new FileInputStream( from );
+        OutputStream out = new FileOutputStream( to );
+        try
+        {
+            IOUtils.copy( in, out );
+        }
+        finally
+        {
+            IOUtils.closeQuietly( in );
+            IOUtils.closeQuietly( out );
+        }
+    }
+}
@@ -28,26 +28,51 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
 import fr.opensagres.xdocreport.core.XDocReportException;
+import fr.opensagres.xdocreport.core.cache.BoundedCacheStorage;
+import fr.opensagres.xdocreport.core.cache.CacheStorageRegistry;
+import fr.opensagres.xdocreport.core.cache.ICacheStorage;
+import fr.opensagres.xdocreport.core.cache.ICacheStorageFactoryDiscovery;
+import fr.opensagres.xdocreport.core.cache.ICacheWeigher;
 import fr.opensagres.xdocreport.core.io.IOUtils;
 import fr.opensagres.xdocreport.core.io.XDocArchive;
 import fr.opensagres.xdocreport.document.IXDocReport;
 import fr.opensagres.xdocreport.document.odt.ODTReport;
+import fr.opensagres.xdocreport.document.preprocessor.PreprocessedArchiveCache;
+import fr.opensagres.xdocreport.document.registry.IXDocReportLoader;
 import fr.opensagres.xdocreport.document.registry.XDocReportRegistry;
 import fr.opensagres.xdocreport.template.FieldExtractor;
 import fr.opensagres.xdocreport.template.FieldsExtractor;
 import fr.opensagres.xdocreport.template.IContext;
 import fr.opensagres.xdocreport.template.TemplateEngineKind;
+import fr.opensagres.xdocreport.template.formatter.FieldsMetadata;
+import fr.opensagres.xdocreport.template.formatter.ICustomFormatter;
+import fr.opensagres.xdocreport.template.formatter.IDocumentFormatter;
+import fr.opensagres.xdocreport.template.formatter.NullImageBehaviour;
 import fr.opensagres.xdocreport.template.freemarker.FreemarkerTemplateEngine;
 import fr.opensagres.xdocreport.template.velocity.internal.VelocityTemplateEngine;
 
@@ -57,6 +82,9 @@ import fr.opensagres.xdocreport.template.velocity.internal.VelocityTemplateEngin
 public class XDocReportRegistryTestCase
 {
 
+    private static final String DOCX_WITH_HEADERS =
+        "/fr/opensagres/xdocreport/document/docx/preprocessor/fonts/DocxFontsWithFreemarker.docx";
+
     @Test
     public void testReportNoExists()
         throws Exception
@@ -70,6 +98,18 @@ public class XDocReportRegistryTestCase
         assertNull( "IXDocReport with id='Unknown' must be null.", report );
     }
 
+    @Test
+    public void testNullReportId()
+        throws Exception
+    {
+        XDocReportRegistry registry = XDocReportRegistry.getRegistry();
+        assertFalse( registry.existsReport( null ) );
+        assertNull( registry.getReport( null ) );
+        // must not throw NullPointerException
+        registry.unregisterReport( (String) null );
+        registry.checkReportId( null );
+    }
+
     @Test
     public void testRegisterAndUnRegisterReportWithDefaultId()
     {
@@ -208,7 +248,8 @@ public class XDocReportRegistryTestCase
 
             // Refresh report with new content
             report.load( XDocReportRegistryTestCase.class.getResourceAsStream( "ODTHelloWordWithFreemarker2.odt" ) );
-            // Thread.sleep(1000);
+            // the new archive is published once preprocessed
+            assertTrue( report.isPreprocessed() );
             String newContentXML = processTemplateEngineForEntry( report, context, "content.xml" );
             assertNotNull( newContentXML );
             assertTrue( "content XML must contains '>Hello world! You are welcome!<'",
@@ -329,6 +370,412 @@ public class XDocReportRegistryTestCase
 
     }
     
+    @Test
+    public void testLoadReportIfAbsentWithSeveralThreads()
+        throws Exception
+    {
+        final String reportId = "MyConcurrentReportId";
+        final AtomicInteger loadCount = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final IXDocReportLoader loader = new IXDocReportLoader()
+        {
+            public IXDocReport load()
+                throws IOException, XDocReportException
+            {
+                loadCount.incrementAndGet();
+                return XDocReportRegistry.getRegistry().loadReport( XDocReportRegistryTestCase.class.getResourceAsStream( "ODTHelloWordWithFreemarker.odt" ),
+                                                                    TemplateEngineKind.Freemarker );
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool( 10 );
+        try
+        {
+            List<Future<IXDocReport>> reports = new ArrayList<Future<IXDocReport>>();
+            for ( int i = 0; i < 50; i++ )
+            {
+                reports.add( executor.submit( new Callable<IXDocReport>()
+                {
+                    public IXDocReport call()
+                        throws Exception
+                    {
+                        start.await();
+                        return XDocReportRegistry.getRegistry().loadReportIfAbsent( reportId, loader );
+                    }
+                } ) );
+            }
+            start.countDown();
+
+            // the report is loaded and preprocessed only once
+            IXDocReport report = XDocReportRegistry.getRegistry().getReport( reportId );
+            for ( Future<IXDocReport> future : reports )
+            {
+                IXDocReport loadedReport = future.get();
+                if ( report == null )
+                {
+                    report = loadedReport;
+                }
+                assertTrue( "Same report must be returned", report == loadedReport );
+            }
+            assertEquals( 1, loadCount.get() );
+            assertEquals( reportId, report.getId() );
+            assertTrue( report.isPreprocessed() );
+            assertTrue( report == XDocReportRegistry.getRegistry().getReport( reportId ) );
+
+            IContext context = report.createContext();
+            context.put( "name", "world" );
+            String contentXML = processTemplateEngineForEntry( report, context, "content.xml" );
+            assertTrue( contentXML.contains( ">Hello world!<" ) );
+        }
+        finally
+        {
+            executor.shutdown();
+            XDocReportRegistry.getRegistry().unregisterReport( reportId );
+        }
+    }
+
+    @Test
+    public void testProcessWithSeveralThreads()
+        throws Exception
+    {
+        final IXDocReport report =
+            XDocReportRegistry.getRegistry().loadReport( XDocReportRegistryTestCase.class.getResourceAsStream( "ODTHelloWordWithFreemarker.odt" ),
+                                                         TemplateEngineKind.Freemarker );
+        assertFalse( report.isPreprocessed() );
+
+        // the first process of the report are done at the same time and must preprocess the report only once
+        final CountDownLatch start = new CountDownLatch( 1 );
+        ExecutorService executor = Executors.newFixedThreadPool( 10 );
+        try
+        {
+            List<Future<String>> contents = new ArrayList<Future<String>>();
+            for ( int i = 0; i < 20; i++ )
+            {
+                contents.add( executor.submit( new Callable<String>()
+                {
+                    public String call()
+                        throws Exception
+                    {
+                        start.await();
+                        IContext context = report.createContext();
+                        context.put( "name", "world" );
+                        return processTemplateEngineForEntry( report, context, "content.xml" );
+                    }
+                } ) );
+            }
+            start.countDown();
+            for ( Future<String> content : contents )
+            {
+                assertTrue( content.get().contains( ">Hello world!<" ) );
+            }
+            assertTrue( report.isPreprocessed() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPreprocessedArchiveCache()
+        throws Exception
+    {
+        File directory = File.createTempFile( "xdocreport", "cache" );
+        directory.delete();
+        PreprocessedArchiveCache cache = new PreprocessedArchiveCache( directory );
+        try
+        {
+            // first registry (ex : before a restart) preprocesses the report and stores it in the cache
+            XDocReportRegistry registry = new XDocReportRegistry();
+            registry.setPreprocessedArchiveCache( cache );
+            IXDocReport report =
+                registry.loadReport( XDocReportRegistryTestCase.class.getResourceAsStream( "ODTHelloWordWithFreemarker.odt" ),
+                                     TemplateEngineKind.Freemarker );
+            IContext context = report.createContext();
+            context.put( "name", "world" );
+            String contentXML = processTemplateEngineForEntry( report, context, "content.xml" );
+            assertEquals( 0, cache.getHitCount() );
+            assertEquals( 1, cache.getMissCount() );
+            assertEquals( 1, directory.listFiles().length );
+
+            // second registry (ex : after a restart) reads the preprocessed report from the cache
+            registry = new XDocReportRegistry();
+            registry.setPreprocessedArchiveCache( cache );
+            report =
+                registry.loadReport( XDocReportRegistryTestCase.class.getResourceAsStream( "ODTHelloWordWithFreemarker.odt" ),
+                                     TemplateEngineKind.Freemarker );
+            assertEquals( contentXML, processTemplateEngineForEntry( report, context, "content.xml" ) );
+            assertEquals( 1, cache.getHitCount() );
+            assertTrue( report.isPreprocessed() );
+
+            // other fields metadata : report must be preprocessed again
+            report =
+                registry.loadReport( XDocReportRegistryTestCase.class.getResourceAsStream( "ODTHelloWordWithFreemarker.odt" ),
+                                     TemplateEngineKind.Freemarker );
+            report.createFieldsMetadata().addFieldAsList( "developers.name" );
+            assertTrue( processTemplateEngineForEntry( report, context, "content.xml" ).contains( ">Hello world!<" ) );
+            assertEquals( 1, cache.getHitCount() );
+            assertEquals( 2, cache.getMissCount() );
+        }
+        finally
+        {
+            for ( File file : directory.listFiles() )
+            {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void testPreprocessedArchiveCacheKey()
+        throws Exception
+    {
+        XDocArchive archive =
+            XDocArchive.readZip( XDocReportRegistryTestCase.class.getResourceAsStream( "ODTHelloWordWithFreemarker.odt" ) );
+        FreemarkerTemplateEngine templateEngine = new FreemarkerTemplateEngine();
+        FieldsMetadata fieldsMetadata = new FieldsMetadata();
+        fieldsMetadata.addFieldAsList( "developers.name" );
+        String key = PreprocessedArchiveCache.computeKey( archive, fieldsMetadata, templateEngine, "" );
+        assertNotNull( key );
+        assertEquals( key, PreprocessedArchiveCache.computeKey( archive, fieldsMetadata, templateEngine, "" ) );
+
+        // each setting used by the preprocessors changes the key
+        List<String> keys = new ArrayList<String>();
+        keys.add( key );
+        fieldsMetadata.setBeforeRowToken( "@row-start" );
+        keys.add( PreprocessedArchiveCache.computeKey( archive, fieldsMetadata, templateEngine, "" ) );
+        fieldsMetadata.setAfterTableCellToken( "@cell-end" );
+        keys.add( PreprocessedArchiveCache.computeKey( archive, fieldsMetadata, templateEngine, "" ) );
+        fieldsMetadata.setEvaluateEngineOnlyForFields( true );
+        keys.add( PreprocessedArchiveCache.computeKey( archive, fieldsMetadata, templateEngine, "" ) );
+        fieldsMetadata.setBehaviour( NullImageBehaviour.RemoveImageTemplate );
+        keys.add( PreprocessedArchiveCache.computeKey( archive, fieldsMetadata, templateEngine, "" ) );
+        fieldsMetadata.setUseImageSize( true );
+        keys.add( PreprocessedArchiveCache.computeKey( archive, fieldsMetadata, templateEngine, "" ) );
+        fieldsMetadata.addFieldReplacement( "name", "user.name" );
+        keys.add( PreprocessedArchiveCache.computeKey( archive, fieldsMetadata, templateEngine, "" ) );
+        fieldsMetadata.addFieldReplacement( "lastname", "user.lastname" );
+        keys.add( PreprocessedArchiveCache.computeKey( archive, fieldsMetadata, templateEngine, "" ) );
+        assertEquals( keys.size(), new HashSet<String>( keys ).size() );
+
+        // the result of a custom formatter is unknown, the preprocessed archive cannot be cached
+        fieldsMetadata.addCustomFormatter( new ICustomFormatter()
+        {
+            public String format( String content, IDocumentFormatter formatter )
+            {
+                return content;
+            }
+        } );
+        assertNull( PreprocessedArchiveCache.computeKey( archive, fieldsMetadata, templateEngine, "" ) );
+    }
+
+    @Test
+    public void testProcessWithProcessExecutor()
+        throws Exception
+    {
+        IXDocReport report =
+            new XDocReportRegistry().loadReport( XDocReportRegistryTestCase.class.getResourceAsStream( "ODTHelloWordWithFreemarker.odt" ),
+                                                 TemplateEngineKind.Freemarker );
+        IContext context = report.createContext();
+        context.put( "name", "world" );
+
+        // 1) sequential merge of the XML entries
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        report.process( context, expected );
+
+        // 2) parallel merge of the XML entries (content.xml + styles.xml)
+        final AtomicInteger nbTasks = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try
+        {
+            report.setProcessExecutor( new Executor()
+            {
+                public void execute( Runnable command )
+                {
+                    nbTasks.incrementAndGet();
+                    executor.execute( command );
+                }
+            } );
+            for ( int i = 0; i < 5; i++ )
+            {
+                ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                report.process( context, actual );
+
+                XDocArchive expectedArchive = XDocArchive.readZip( new ByteArrayInputStream( expected.toByteArray() ) );
+                XDocArchive actualArchive = XDocArchive.readZip( new ByteArrayInputStream( actual.toByteArray() ) );
+                assertEquals( new ArrayList<String>( expectedArchive.getEntryNames() ),
+                              new ArrayList<String>( actualArchive.getEntryNames() ) );
+                for ( String entryName : expectedArchive.getEntryNames() )
+                {
+                    assertEquals( IOUtils.toString( expectedArchive.getEntryReader( entryName ) ),
+                                  IOUtils.toString( actualArchive.getEntryReader( entryName ) ) );
+                }
+                assertTrue( IOUtils.toString( actualArchive.getEntryReader( "content.xml" ) ).contains( ">Hello world!<" ) );
+            }
+            assertEquals( 10, nbTasks.get() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testWeighReportPreprocessedAfterRegistration()
+        throws Exception
+    {
+        CacheStorageRegistry.getRegistry().setCacheStorageFactory( new ICacheStorageFactoryDiscovery()
+        {
+            public String getId()
+            {
+                return "bounded";
+            }
+
+            public String getDescription()
+            {
+                return "Bounded cache storage";
+            }
+
+            public <K, V> ICacheStorage<K, V> createCache( ICacheWeigher<? super K, ? super V> weigher )
+            {
+                return new BoundedCacheStorage<K, V>( Long.MAX_VALUE, weigher );
+            }
+        } );
+        try
+        {
+            XDocReportRegistry registry = new XDocReportRegistry();
+            BoundedCacheStorage<String, IXDocReport> cache =
+                (BoundedCacheStorage<String, IXDocReport>) registry.getCacheStorage();
+            IXDocReport report =
+                registry.loadReport( XDocReportRegistryTestCase.class.getResourceAsStream( "ODTHelloWordWithFreemarker.odt" ),
+                                     TemplateEngineKind.Freemarker, true );
+            assertFalse( report.isPreprocessed() );
+            long registeredWeight = cache.getWeight();
+            assertEquals( report.getPreprocessedDocumentArchive().getSize(), registeredWeight );
+
+            // the lazy preprocessing replaces the document archive of the report
+            IContext context = report.createContext();
+            context.put( "name", "world" );
+            report.process( context, new ByteArrayOutputStream() );
+            assertTrue( report.isPreprocessed() );
+            assertTrue( registeredWeight != report.getPreprocessedDocumentArchive().getSize() );
+
+            // the report is weighed again once preprocessed
+            assertSame( report, registry.getReport( report.getId() ) );
+            assertEquals( report.getPreprocessedDocumentArchive().getSize(), cache.getWeight() );
+            assertEquals( 1, cache.size() );
+        }
+        finally
+        {
+            CacheStorageRegistry.getRegistry().setCacheStorageFactory( null );
+        }
+    }
+
+    @Test
+    public void testProcessWithProcessExecutorOfCaller()
+        throws Exception
+    {
+        final IXDocReport report =
+            new XDocReportRegistry().loadReport( XDocReportRegistryTestCase.class.getResourceAsStream( "ODTHelloWordWithFreemarker.odt" ),
+                                                 TemplateEngineKind.Freemarker );
+        final IContext context = report.createContext();
+        context.put( "name", "world" );
+
+        // process is called by the single thread of the process executor: the entries queued behind it must be
+        // merged by the caller thread.
+        ExecutorService executor = Executors.newFixedThreadPool( 1 );
+        try
+        {
+            report.setProcessExecutor( executor );
+            Future<byte[]> result = executor.submit( new Callable<byte[]>()
+            {
+                public byte[] call()
+                    throws Exception
+                {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    report.process( context, out );
+                    return out.toByteArray();
+                }
+            } );
+            XDocArchive archive = XDocArchive.readZip( new ByteArrayInputStream( result.get( 30, TimeUnit.SECONDS ) ) );
+            assertTrue( IOUtils.toString( archive.getEntryReader( "content.xml" ) ).contains( ">Hello world!<" ) );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testProcessWildcardEntriesWithProcessExecutor()
+        throws Exception
+    {
+        // word/header*.xml and word/footer*.xml entries are found with wildcards in the shared preprocessed archive
+        IXDocReport expectedReport =
+            new XDocReportRegistry().loadReport( XDocReportRegistryTestCase.class.getResourceAsStream( DOCX_WITH_HEADERS ),
+                                                 TemplateEngineKind.Freemarker );
+        IContext context = expectedReport.createContext();
+        context.put( "name", "world" );
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expectedReport.process( context, expected );
+        final XDocArchive expectedArchive = XDocArchive.readZip( new ByteArrayInputStream( expected.toByteArray() ) );
+
+        // the first process of the report are done at the same time, each one merges its entries in parallel
+        final IXDocReport report =
+            new XDocReportRegistry().loadReport( XDocReportRegistryTestCase.class.getResourceAsStream( DOCX_WITH_HEADERS ),
+                                                 TemplateEngineKind.Freemarker );
+        final AtomicInteger nbTasks = new AtomicInteger();
+        final ExecutorService processExecutor = Executors.newFixedThreadPool( 4 );
+        report.setProcessExecutor( new Executor()
+        {
+            public void execute( Runnable command )
+            {
+                nbTasks.incrementAndGet();
+                processExecutor.execute( command );
+            }
+        } );
+        final CountDownLatch start = new CountDownLatch( 1 );
+        ExecutorService executor = Executors.newFixedThreadPool( 8 );
+        try
+        {
+            List<Future<XDocArchive>> results = new ArrayList<Future<XDocArchive>>();
+            for ( int i = 0; i < 16; i++ )
+            {
+                results.add( executor.submit( new Callable<XDocArchive>()
+                {
+                    public XDocArchive call()
+                        throws Exception
+                    {
+                        start.await();
+                        IContext context = report.createContext();
+                        context.put( "name", "world" );
+                        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                        report.process( context, actual );
+                        return XDocArchive.readZip( new ByteArrayInputStream( actual.toByteArray() ) );
+                    }
+                } ) );
+            }
+            start.countDown();
+            for ( Future<XDocArchive> result : results )
+            {
+                XDocArchive actualArchive = result.get();
+                assertEquals( new ArrayList<String>( expectedArchive.getEntryNames() ),
+                              new ArrayList<String>( actualArchive.getEntryNames() ) );
+                for ( String entryName : expectedArchive.getEntryNames() )
+                {
+                    assertEquals( entryName, IOUtils.toString( expectedArchive.getEntryReader( entryName ) ),
+                                  IOUtils.toString( actualArchive.getEntryReader( entryName ) ) );
+                }
+            }
+            assertTrue( nbTasks.get() > 16 * 2 );
+        }
+        finally
+        {
+            executor.shutdown();
+            processExecutor.shutdown();
+        }
+    }
+
     private String processTemplateEngineForEntry( IXDocReport report, IContext context, String entryName )
         throws IOException, XDocReportException
     {
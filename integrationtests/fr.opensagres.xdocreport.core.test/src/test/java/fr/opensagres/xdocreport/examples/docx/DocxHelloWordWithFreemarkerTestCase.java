@@ -31,6 +31,8 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -84,6 +86,38 @@ public class DocxHelloWordWithFreemarkerTestCase
 
     }
 
+    @Test
+    public void testStreamingOutput()
+        throws IOException, XDocReportException
+    {
+        IXDocReport report =
+            XDocReportRegistry.getRegistry().loadReport( DocxHelloWordWithFreemarkerTestCase.class.getResourceAsStream( "DocxHelloWordWithFreemarker.docx" ),
+                                                         TemplateEngineKind.Freemarker );
+        IContext context = report.createContext();
+        context.put( "name", "world" );
+
+        // 1) Generate the docx in memory
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        report.process( context, out );
+        XDocArchive archive = XDocArchive.readZip( new ByteArrayInputStream( out.toByteArray() ) );
+
+        // 2) Generate the docx by streaming the merged entries
+        report.setStreamingOutput( true );
+        out = new ByteArrayOutputStream();
+        report.process( context, out );
+        XDocArchive streamedArchive = XDocArchive.readZip( new ByteArrayInputStream( out.toByteArray() ) );
+
+        assertEquals( archive.getEntryNames(), streamedArchive.getEntryNames() );
+        for ( String entryName : archive.getEntryNames() )
+        {
+            assertEquals( IOUtils.toString( archive.getEntryReader( entryName ) ),
+                          IOUtils.toString( streamedArchive.getEntryReader( entryName ) ) );
+        }
+        String document = IOUtils.toString( streamedArchive.getEntryReader( DocxConstants.WORD_DOCUMENT_XML_ENTRY ) );
+        assertTrue( document.contains( "world" ) );
+        assertTrue( !document.contains( "${name}" ) );
+    }
+
     @Test
     public void loadNonExistingReport()
     {
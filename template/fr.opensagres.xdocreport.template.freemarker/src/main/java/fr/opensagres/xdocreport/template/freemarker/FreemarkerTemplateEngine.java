@@ -36,6 +36,7 @@ import java.util.Map;
 
 import fr.opensagres.xdocreport.core.EncodingConstants;
 import fr.opensagres.xdocreport.core.XDocReportException;
+import fr.opensagres.xdocreport.core.cache.BoundedCacheStorage;
 import fr.opensagres.xdocreport.core.io.IOUtils;
 import fr.opensagres.xdocreport.template.AbstractTemplateEngine;
 import fr.opensagres.xdocreport.template.FieldsExtractor;
@@ -65,6 +66,8 @@ public class FreemarkerTemplateEngine
 
     private static final String DOLLAR_VARIABLE = "DollarVariable";
 
+    private static final long MAX_SNIPPET_TEMPLATES = 1000;
+
     private static Configuration DEFAULT_FREEMARKER_CONFIGURATION = null;
 
     private FreemarkerDocumentFormatter formatter = new FreemarkerDocumentFormatter();
@@ -75,10 +78,16 @@ public class FreemarkerTemplateEngine
 
     private final List<TemplateLoader> templateLoaders;
 
+    /**
+     * Compiled template snippets (text styling content with directives) cached with their content.
+     */
+    private final BoundedCacheStorage<String, Template> snippetTemplates;
+
     public FreemarkerTemplateEngine()
     {
         this.templateLoaders = new ArrayList<TemplateLoader>();
         this.templateLoaders.add( new XDocReportEntryTemplateLoader( this ) );
+        this.snippetTemplates = new BoundedCacheStorage<String, Template>( MAX_SNIPPET_TEMPLATES );
     }
 
     public String getKind()
@@ -122,6 +131,32 @@ public class FreemarkerTemplateEngine
         process( context, writer, template );
     }
 
+    @Override
+    protected void processSnippetWithCache( String templateName, IContext context, String snippet, Writer writer )
+        throws XDocReportException, IOException
+    {
+        // Get the compiled snippet from the cache or create a new template.
+        Template template = snippetTemplates.get( snippet );
+        if ( template == null )
+        {
+            template =
+                new Template( templateName, getReader( new StringReader( snippet ) ), getFreemarkerConfiguration() );
+            snippetTemplates.put( snippet, template );
+        }
+        // Merge template with Java model
+        process( context, writer, template );
+    }
+
+    /**
+     * Returns the cache of the compiled template snippets (ex : to get its statistics).
+     * 
+     * @return
+     */
+    public BoundedCacheStorage<String, Template> getSnippetTemplates()
+    {
+        return snippetTemplates;
+    }
+
     /**
      * Returns Reader to use for process template merge.
      * 
@@ -197,6 +232,8 @@ public class FreemarkerTemplateEngine
         {
         }
         this.freemarkerConfiguration.setLocalizedLookup( false );
+        // compiled snippets depend on the configuration.
+        snippetTemplates.clear();
     }
 
     public void extractFields( Reader reader, String entryName, FieldsExtractor extractor )
@@ -267,6 +304,8 @@ public class FreemarkerTemplateEngine
         {
             formatter.setConfiguration( configuration );
         }
+        // compiled snippets depend on the escape configuration.
+        snippetTemplates.clear();
     }
 
     private boolean isEscapeTemplate()
@@ -278,6 +317,7 @@ public class FreemarkerTemplateEngine
     public void setForceModifyReader( boolean forceModifyReader )
     {
         this.forceModifyReader = forceModifyReader;
+        snippetTemplates.clear();
     }
 
     public boolean isForceModifyReader()
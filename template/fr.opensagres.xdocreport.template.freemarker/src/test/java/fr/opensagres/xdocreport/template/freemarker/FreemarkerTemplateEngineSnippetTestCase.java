@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.template.freemarker;
+
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+import fr.opensagres.xdocreport.template.IContext;
+import fr.opensagres.xdocreport.template.ITemplateEngine;
+import freemarker.core.ParseException;
+
+/**
+ * Freemarker template snippet test case.
+ */
+public class FreemarkerTemplateEngineSnippetTestCase
+    extends TestCase
+{
+
+    public void testSnippetMergedWithSeveralContexts()
+        throws Exception
+    {
+        FreemarkerTemplateEngine templateEngine = new FreemarkerTemplateEngine();
+
+        assertEquals( "<b>XDocReport</b>", processSnippet( templateEngine, "<b>${projectName}</b>", "XDocReport" ) );
+        // the compiled snippet is reused with another context
+        assertEquals( "<b>Project</b>", processSnippet( templateEngine, "<b>${projectName}</b>", "Project" ) );
+        assertEquals( 1, templateEngine.getSnippetTemplates().size() );
+        assertEquals( 1, templateEngine.getSnippetTemplates().getMissCount() );
+        assertEquals( 1, templateEngine.getSnippetTemplates().getHitCount() );
+
+        assertEquals( "XDocReport",
+                      processSnippet( templateEngine, "[#if projectName??]${projectName}[/#if]", "XDocReport" ) );
+        assertEquals( 2, templateEngine.getSnippetTemplates().size() );
+        assertEquals( 2, templateEngine.getSnippetTemplates().getMissCount() );
+    }
+
+    public void testSnippetWithSyntaxError()
+        throws Exception
+    {
+        ITemplateEngine templateEngine = new FreemarkerTemplateEngine();
+        try
+        {
+            processSnippet( templateEngine, "[#if projectName??]", "XDocReport" );
+            fail( "Syntax error expected" );
+        }
+        catch ( ParseException e )
+        {
+            // expected
+        }
+    }
+
+    private static String processSnippet( ITemplateEngine templateEngine, String snippet, String projectName )
+        throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        IContext context = templateEngine.createContext();
+        context.put( "projectName", projectName );
+        templateEngine.processSnippet( "word/document.xml", context, snippet, writer );
+        return writer.toString();
+    }
+}
@@ -59,6 +59,8 @@ public class XDocReportEntryResourceLoader
     {
         super.commonInit( rs, configuration );
         this.templateEngine = (ITemplateEngine) rs.getProperty( VELOCITY_TEMPLATE_ENGINE_KEY );
+        // give access to the runtime services to the template engine to compile template snippets.
+        rs.setApplicationAttribute( VELOCITY_RUNTIME_SERVICES_KEY, rs );
     }
 
     @Override
@@ -27,6 +27,7 @@ package fr.opensagres.xdocreport.template.velocity.internal;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.Writer;
 import java.util.Map;
 import java.util.Properties;
@@ -34,9 +35,12 @@ import java.util.Properties;
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeServices;
+import org.apache.velocity.runtime.parser.ParseException;
 
 import fr.opensagres.xdocreport.core.EncodingConstants;
 import fr.opensagres.xdocreport.core.XDocReportException;
+import fr.opensagres.xdocreport.core.cache.BoundedCacheStorage;
 import fr.opensagres.xdocreport.core.io.IOUtils;
 import fr.opensagres.xdocreport.template.AbstractTemplateEngine;
 import fr.opensagres.xdocreport.template.FieldsExtractor;
@@ -58,9 +62,14 @@ public class VelocityTemplateEngine
 
     private static String ID = TemplateEngineKind.Velocity.name();
 
+    private static final long MAX_SNIPPET_TEMPLATES = 1000;
+
     private VelocityDocumentFormatter formatter = new VelocityDocumentFormatter();
 
-    private VelocityEngine velocityEngine;
+    /**
+     * Velocity engine and its compiled snippets published once initialized (see {@link #getVelocityEngine()}).
+     */
+    private volatile VelocityEngineHolder velocityEngineHolder;
 
     private final Properties velocityEngineProperties;
 
@@ -109,33 +118,108 @@ public class VelocityTemplateEngine
         velocityEngine.evaluate( (VelocityContext) context, writer, templateName, reader );
     }
 
-    protected synchronized VelocityEngine getVelocityEngine()
+    @Override
+    protected void processSnippetWithCache( String templateName, IContext context, String snippet, Writer writer )
+        throws XDocReportException, IOException
+    {
+        // the engine and the compiled snippets are read together : a snippet is never compiled with the runtime
+        // services of an engine and cached with another engine.
+        VelocityEngineHolder holder = getVelocityEngineHolder();
+        RuntimeServices runtimeServices =
+            (RuntimeServices) holder.velocityEngine.getApplicationAttribute( VELOCITY_RUNTIME_SERVICES_KEY );
+        if ( runtimeServices == null )
+        {
+            // the XDocReport resource loader is not used, the runtime services are not available.
+            super.processSnippetWithCache( templateName, context, snippet, writer );
+            return;
+        }
+        // Get the compiled snippet from the cache or create a new template.
+        BoundedCacheStorage<String, Template> snippetTemplates = holder.snippetTemplates;
+        Template template = snippetTemplates.get( snippet );
+        if ( template == null )
+        {
+            template = new Template();
+            template.setRuntimeServices( runtimeServices );
+            template.setName( templateName );
+            try
+            {
+                template.setData( runtimeServices.parse( new StringReader( snippet ), template ) );
+            }
+            catch ( ParseException e )
+            {
+                throw new XDocReportException( e );
+            }
+            template.initDocument();
+            snippetTemplates.put( snippet, template );
+        }
+        template.merge( (VelocityContext) context, writer );
+    }
+
+    /**
+     * Returns the cache of the compiled template snippets of the current Velocity engine (ex : to get its statistics)
+     * and null if the Velocity engine is not initialized.
+     * 
+     * @return
+     */
+    public BoundedCacheStorage<String, Template> getSnippetTemplates()
+    {
+        VelocityEngineHolder holder = velocityEngineHolder;
+        return holder != null ? holder.snippetTemplates : null;
+    }
+
+    protected VelocityEngine getVelocityEngine()
+        throws XDocReportException
+    {
+        return getVelocityEngineHolder().velocityEngine;
+    }
+
+    private VelocityEngineHolder getVelocityEngineHolder()
         throws XDocReportException
     {
-        if ( velocityEngine == null )
+        // this method is called for each merged entry : lock only while the engine is not initialized.
+        VelocityEngineHolder holder = velocityEngineHolder;
+        if ( holder == null )
         {
-            velocityEngine = new VelocityEngine();
-            initializeVelocityEngine( velocityEngineProperties );
+            synchronized ( this )
+            {
+                holder = velocityEngineHolder;
+                if ( holder == null )
+                {
+                    holder = new VelocityEngineHolder( createVelocityEngine( velocityEngineProperties ) );
+                    velocityEngineHolder = holder;
+                }
+            }
         }
-        return velocityEngine;
+        return holder;
     }
 
     public void initializeVelocityEngine( Properties velocityEngineProperties )
         throws XDocReportException
+    {
+        // the compiled snippets are bound to the runtime services of the engine, so they are replaced with the engine
+        velocityEngineHolder = new VelocityEngineHolder( createVelocityEngine( velocityEngineProperties ) );
+    }
+
+    private VelocityEngine createVelocityEngine( Properties velocityEngineProperties )
+        throws XDocReportException
     {
         ClassLoader backupCL = Thread.currentThread().getContextClassLoader();
         Thread.currentThread().setContextClassLoader( VelocityTemplateEngine.class.getClassLoader() );
         try
         {
-            velocityEngine.setProperty( VELOCITY_TEMPLATE_ENGINE_KEY, this );
-            velocityEngine.init( velocityEngineProperties );
-
+            VelocityEngine engine = new VelocityEngine();
+            engine.setProperty( VELOCITY_TEMPLATE_ENGINE_KEY, this );
+            engine.init( velocityEngineProperties );
+            return engine;
         }
         catch ( Exception e )
         {
             throw new XDocReportException( e );
         }
-        Thread.currentThread().setContextClassLoader( backupCL );
+        finally
+        {
+            Thread.currentThread().setContextClassLoader( backupCL );
+        }
     }
 
     @Override
@@ -147,7 +231,11 @@ public class VelocityTemplateEngine
             velocityEngineProperties.setProperty( "event_handler.reference_insertion.class",
                                                   XDocReportEscapeReference.class.getName() );
         }
-
+        VelocityEngineHolder holder = velocityEngineHolder;
+        if ( holder != null )
+        {
+            holder.snippetTemplates.clear();
+        }
     }
 
     public IDocumentFormatter getDocumentFormatter()
@@ -187,4 +275,24 @@ public class VelocityTemplateEngine
     {
         return false;
     }
+
+    /**
+     * Velocity engine with the template snippets compiled with its runtime services.
+     */
+    private static class VelocityEngineHolder
+    {
+
+        private final VelocityEngine velocityEngine;
+
+        /**
+         * Compiled template snippets (text styling content with directives) cached with their content.
+         */
+        private final BoundedCacheStorage<String, Template> snippetTemplates;
+
+        VelocityEngineHolder( VelocityEngine velocityEngine )
+        {
+            this.velocityEngine = velocityEngine;
+            this.snippetTemplates = new BoundedCacheStorage<String, Template>( MAX_SNIPPET_TEMPLATES );
+        }
+    }
 }
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.template.velocity;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+import fr.opensagres.xdocreport.template.IContext;
+import fr.opensagres.xdocreport.template.ITemplateEngine;
+import fr.opensagres.xdocreport.template.velocity.discovery.VelocityTemplateEngineDiscovery;
+
+/**
+ * Merge with the same Velocity template engine from several threads, the first merges initialize the Velocity
+ * engine concurrently.
+ */
+public class VelocityTemplateEngineConcurrencyTestCase
+    extends TestCase
+{
+
+    private static final int THREADS = 8;
+
+    private static final int MERGES = 200;
+
+    public void testConcurrentMerges()
+        throws Exception
+    {
+        final ITemplateEngine templateEngine = new VelocityTemplateEngineDiscovery().createTemplateEngine();
+        final CountDownLatch start = new CountDownLatch( 1 );
+        ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+        try
+        {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for ( int i = 0; i < THREADS; i++ )
+            {
+                final String name = "Thread" + i;
+                results.add( executor.submit( new Callable<Integer>()
+                {
+                    public Integer call()
+                        throws Exception
+                    {
+                        start.await();
+                        for ( int j = 0; j < MERGES; j++ )
+                        {
+                            assertEquals( "<p>" + name + "-" + j + "</p>", merge( templateEngine, name, j ) );
+                            assertEquals( "<b>" + name + "</b>", mergeSnippet( templateEngine, name ) );
+                        }
+                        return MERGES;
+                    }
+                } ) );
+            }
+            start.countDown();
+            for ( Future<Integer> result : results )
+            {
+                assertEquals( MERGES, result.get().intValue() );
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static String merge( ITemplateEngine templateEngine, String name, int index )
+        throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        IContext context = templateEngine.createContext();
+        context.put( "name", name );
+        context.put( "index", index );
+        templateEngine.process( "word/document.xml", context, new StringReader( "<p>${name}-${index}</p>" ), writer );
+        return writer.toString();
+    }
+
+    private static String mergeSnippet( ITemplateEngine templateEngine, String name )
+        throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        IContext context = templateEngine.createContext();
+        context.put( "name", name );
+        templateEngine.processSnippet( "word/document.xml", context, "<b>$name</b>", writer );
+        return writer.toString();
+    }
+}
@@ -31,6 +31,7 @@ import static java.lang.String.format;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.logging.Level;
@@ -185,6 +186,39 @@ public abstract class AbstractTemplateEngine
 
     }
 
+    public void processSnippet( String entryName, IContext context, String snippet, Writer writer )
+        throws XDocReportException, IOException
+    {
+        try
+        {
+            processSnippetWithCache( entryName, context, snippet, writer );
+        }
+        finally
+        {
+            if ( writer != null )
+            {
+                IOUtils.closeQuietly( writer );
+            }
+        }
+    }
+
+    /**
+     * Merge the given template snippet with the given context and writes the result in the given writer. This default
+     * implementation parses the snippet each time, template engines override it to cache the compiled snippet.
+     * 
+     * @param templateName the template name.
+     * @param context the context.
+     * @param snippet the template snippet.
+     * @param writer the result of merge.
+     * @throws XDocReportException
+     * @throws IOException
+     */
+    protected void processSnippetWithCache( String templateName, IContext context, String snippet, Writer writer )
+        throws XDocReportException, IOException
+    {
+        processNoCache( templateName, context, new StringReader( snippet ), writer );
+    }
+
     public void extractFields( IEntryReaderProvider readerProvider, String entryName, FieldsExtractor extractor )
         throws XDocReportException
     {
@@ -26,6 +26,7 @@ package fr.opensagres.xdocreport.template;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.Writer;
 import java.util.Map;
 
@@ -113,6 +114,25 @@ public interface ITemplateEngine
     void process( String entryName, IContext context, Reader reader, Writer writer )
         throws XDocReportException, IOException;
 
+    /**
+     * Merge Java model coming from the given context with the given template snippet (ex : content of a text styling
+     * field which contains directives) and register the merge result in the given writer. Template engines cache the
+     * compiled snippet with its content, so a snippet which is merged several times is parsed once. The default
+     * implementation parses the snippet each time with {@link #process(String, IContext, Reader, Writer)}.
+     * 
+     * @param entryName template name
+     * @param context Java model context
+     * @param snippet template snippet to merge
+     * @param writer merge result writer
+     * @throws XDocReportException
+     * @throws IOException
+     */
+    default void processSnippet( String entryName, IContext context, String snippet, Writer writer )
+        throws XDocReportException, IOException
+    {
+        process( entryName, context, new StringReader( snippet ), writer );
+    }
+
     void extractFields( Reader reader, String entryName, FieldsExtractor extractor )
         throws XDocReportException;
 
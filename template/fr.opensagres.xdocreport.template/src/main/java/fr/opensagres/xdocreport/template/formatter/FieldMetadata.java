@@ -112,6 +112,7 @@ public class FieldMetadata
         {
             fieldsMetadata.fieldsAsList.remove( getFieldName() );
         }
+        fieldsMetadata.fieldsChanged();
     }
 
     /**
@@ -141,6 +142,7 @@ public class FieldMetadata
         {
             fieldsMetadata.fieldsAsImage.remove( getImageName() );
         }
+        fieldsMetadata.fieldsChanged();
     }
 
     public String getSyntaxKind()
@@ -164,6 +166,7 @@ public class FieldMetadata
         {
             fieldsMetadata.fieldsAsTextStyling.remove( getFieldName() );
         }
+        fieldsMetadata.fieldsChanged();
     }
 
     public void setSyntaxWithDirective( boolean syntaxWithDirective )
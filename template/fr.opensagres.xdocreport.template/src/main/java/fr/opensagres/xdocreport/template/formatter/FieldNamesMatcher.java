@@ -0,0 +1,289 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.template.formatter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Matcher which searches in one pass (Aho-Corasick automaton) which field names of a collection are contained in a
+ * content. It is used in the preprocessing step instead of calling {@link String#contains(CharSequence)} for each
+ * field name on each characters of the XML document.
+ * <p>
+ * The order of the given field names is the priority of the fields : matched fields are returned with this order, so
+ * {@link #findAll(String)} returns the same result than a loop over the field names which keeps field names contained
+ * in the content. A matcher is immutable and can be shared between threads.
+ * </p>
+ */
+public class FieldNamesMatcher
+{
+
+    public static final FieldNamesMatcher EMPTY = new FieldNamesMatcher( Collections.<String> emptyList() );
+
+    private final String[] fieldNames;
+
+    private final Node root;
+
+    /**
+     * Index of the empty field name (contained in any content) and -1 otherwise.
+     */
+    private final int emptyFieldNameIndex;
+
+    public FieldNamesMatcher( Collection<String> fieldNames )
+    {
+        this.fieldNames = fieldNames.toArray( new String[fieldNames.size()] );
+        this.root = new Node();
+        int emptyIndex = -1;
+        for ( int i = 0; i < this.fieldNames.length; i++ )
+        {
+            String fieldName = this.fieldNames[i];
+            if ( fieldName.length() == 0 )
+            {
+                if ( emptyIndex == -1 )
+                {
+                    emptyIndex = i;
+                }
+            }
+            else
+            {
+                root.add( fieldName, i );
+            }
+        }
+        this.emptyFieldNameIndex = emptyIndex;
+        computeFailureLinks();
+    }
+
+    /**
+     * Compute failure and output links of each node of the trie (breadth-first).
+     */
+    private void computeFailureLinks()
+    {
+        LinkedList<Node> queue = new LinkedList<Node>();
+        for ( int i = 0; i < root.size; i++ )
+        {
+            Node child = root.children[i];
+            child.failure = root;
+            queue.add( child );
+        }
+        while ( !queue.isEmpty() )
+        {
+            Node node = queue.removeFirst();
+            for ( int i = 0; i < node.size; i++ )
+            {
+                char c = node.keys[i];
+                Node child = node.children[i];
+                Node failure = node.failure;
+                while ( failure != root && failure.getChild( c ) == null )
+                {
+                    failure = failure.failure;
+                }
+                Node next = failure.getChild( c );
+                child.failure = next != null ? next : root;
+                child.output = child.failure.index != -1 ? child.failure : child.failure.output;
+                queue.add( child );
+            }
+        }
+    }
+
+    /**
+     * Returns true if the matcher has no field names and false otherwise.
+     * 
+     * @return
+     */
+    public boolean isEmpty()
+    {
+        return fieldNames.length == 0;
+    }
+
+    /**
+     * Returns the field names contained in the given content, with the order of the field names of this matcher.
+     * 
+     * @param content
+     * @return
+     */
+    public List<String> findAll( String content )
+    {
+        BitSet matched = match( content, false );
+        if ( matched == null )
+        {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<String>( matched.cardinality() );
+        for ( int i = matched.nextSetBit( 0 ); i >= 0; i = matched.nextSetBit( i + 1 ) )
+        {
+            result.add( fieldNames[i] );
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first field name (with the order of the field names of this matcher) contained in the given content
+     * and null otherwise.
+     * 
+     * @param content
+     * @return
+     */
+    public String findFirst( String content )
+    {
+        BitSet matched = match( content, true );
+        if ( matched == null )
+        {
+            return null;
+        }
+        return fieldNames[matched.nextSetBit( 0 )];
+    }
+
+    private BitSet match( String content, boolean firstOnly )
+    {
+        if ( content == null || fieldNames.length == 0 )
+        {
+            return null;
+        }
+        BitSet matched = null;
+        if ( emptyFieldNameIndex != -1 )
+        {
+            matched = new BitSet( fieldNames.length );
+            matched.set( emptyFieldNameIndex );
+            if ( firstOnly && emptyFieldNameIndex == 0 )
+            {
+                return matched;
+            }
+        }
+        Node node = root;
+        for ( int i = 0; i < content.length(); i++ )
+        {
+            char c = content.charAt( i );
+            Node next = node.getChild( c );
+            while ( next == null && node != root )
+            {
+                node = node.failure;
+                next = node.getChild( c );
+            }
+            if ( next == null )
+            {
+                continue;
+            }
+            node = next;
+            for ( Node output = node.index != -1 ? node : node.output; output != null; output = output.output )
+            {
+                if ( matched == null )
+                {
+                    matched = new BitSet( fieldNames.length );
+                }
+                matched.set( output.index );
+                if ( firstOnly && output.index == 0 )
+                {
+                    // the field with the highest priority is found
+                    return matched;
+                }
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Node of the trie of the field names. Children are stored in arrays sorted by character.
+     */
+    private static class Node
+    {
+
+        private char[] keys;
+
+        private Node[] children;
+
+        private int size;
+
+        /**
+         * Index of the field name which ends with this node and -1 otherwise.
+         */
+        private int index = -1;
+
+        /**
+         * Node of the longest suffix which is a prefix of a field name.
+         */
+        private Node failure;
+
+        /**
+         * Next node in the failure chain which ends a field name.
+         */
+        private Node output;
+
+        public Node getChild( char c )
+        {
+            if ( size == 0 )
+            {
+                return null;
+            }
+            int i = Arrays.binarySearch( keys, 0, size, c );
+            return i >= 0 ? children[i] : null;
+        }
+
+        public void add( String fieldName, int fieldIndex )
+        {
+            Node node = this;
+            for ( int i = 0; i < fieldName.length(); i++ )
+            {
+                node = node.getOrCreateChild( fieldName.charAt( i ) );
+            }
+            if ( node.index == -1 )
+            {
+                // keep the highest priority for duplicate field names
+                node.index = fieldIndex;
+            }
+        }
+
+        private Node getOrCreateChild( char c )
+        {
+            if ( keys == null )
+            {
+                keys = new char[2];
+                children = new Node[2];
+            }
+            int i = Arrays.binarySearch( keys, 0, size, c );
+            if ( i >= 0 )
+            {
+                return children[i];
+            }
+            int insertion = -( i + 1 );
+            if ( size == keys.length )
+            {
+                keys = Arrays.copyOf( keys, size * 2 );
+                children = Arrays.copyOf( children, size * 2 );
+            }
+            System.arraycopy( keys, insertion, keys, insertion + 1, size - insertion );
+            System.arraycopy( children, insertion, children, insertion + 1, size - insertion );
+            Node child = new Node();
+            keys[insertion] = c;
+            children[insertion] = child;
+            size++;
+            return child;
+        }
+    }
+}
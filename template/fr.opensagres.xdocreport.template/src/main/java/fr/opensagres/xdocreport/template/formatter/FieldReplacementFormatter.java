@@ -25,6 +25,7 @@
 package fr.opensagres.xdocreport.template.formatter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import fr.opensagres.xdocreport.core.utils.StringUtils;
@@ -58,4 +59,24 @@ public class FieldReplacementFormatter
         replacementList.add( replacement );
     }
 
+    /**
+     * Returns the searched strings (with the same order as {@link #getReplacementList()}).
+     * 
+     * @return
+     */
+    public List<String> getSearchList()
+    {
+        return Collections.unmodifiableList( searchList );
+    }
+
+    /**
+     * Returns the replacement strings (with the same order as {@link #getSearchList()}).
+     * 
+     * @return
+     */
+    public List<String> getReplacementList()
+    {
+        return Collections.unmodifiableList( replacementList );
+    }
+
 }
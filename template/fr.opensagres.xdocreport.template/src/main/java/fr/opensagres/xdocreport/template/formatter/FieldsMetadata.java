@@ -100,6 +100,10 @@ public class FieldsMetadata
 
     private List<FieldMetadata> sortedFieldsAsImage;
 
+    private FieldNamesMatcher fieldsAsListMatcher;
+
+    private FieldNamesMatcher fieldsAsTextStylingMatcher;
+
     private List<ICustomFormatter> customFormatters;
 
     public FieldsMetadata()
@@ -131,9 +135,24 @@ public class FieldsMetadata
         this.sortedFieldsAsList = null;
         this.sortedFieldsAsTextStyling = null;
         this.sortedFieldsAsImage = null;
+        this.fieldsAsListMatcher = null;
+        this.fieldsAsTextStylingMatcher = null;
         this.customFormatters = null;
     }
 
+    /**
+     * Called when a field is added or when its type (list, image, text styling) changes to rebuild the sorted fields
+     * and the matchers.
+     */
+    void fieldsChanged()
+    {
+        this.sortedFieldsAsList = null;
+        this.sortedFieldsAsTextStyling = null;
+        this.sortedFieldsAsImage = null;
+        this.fieldsAsListMatcher = null;
+        this.fieldsAsTextStylingMatcher = null;
+    }
+
     /**
      * Add a field name which is considered as an image.
      * 
@@ -335,6 +354,23 @@ public class FieldsMetadata
         return sortedFieldsAsList;
     }
 
+    /**
+     * Returns the matcher of the fields name which belongs to a list, to search in one pass the fields list contained
+     * in a content (with the order of {@link #getFieldsAsList()}).
+     * 
+     * @return
+     */
+    public FieldNamesMatcher getFieldsAsListMatcher()
+    {
+        FieldNamesMatcher matcher = fieldsAsListMatcher;
+        if ( matcher == null )
+        {
+            matcher = new FieldNamesMatcher( getFieldsAsList() );
+            fieldsAsListMatcher = matcher;
+        }
+        return matcher;
+    }
+
     /**
      * Returns list of fields name which are considered as an image.
      * 
@@ -374,15 +410,33 @@ public class FieldsMetadata
 	 *         null otherwise.
 	 */
 	public FieldMetadata getFieldAsTextStyling(String content) {
-		Collection<FieldMetadata> fieldsAsTextStyling = getFieldsAsTextStyling();
-		for (FieldMetadata field : fieldsAsTextStyling) {
-			if (content.contains(field.getFieldName())) {
-				return field;
-			}
-		}
-		return null;
+		String fieldName = getFieldsAsTextStylingMatcher().findFirst(content);
+		return fieldName != null ? fieldsAsTextStyling.get(fieldName) : null;
 	}
 
+    /**
+     * Returns the matcher of the fields name which can contains text styling (with the order of
+     * {@link #getFieldsAsTextStyling()}).
+     * 
+     * @return
+     */
+    public FieldNamesMatcher getFieldsAsTextStylingMatcher()
+    {
+        FieldNamesMatcher matcher = fieldsAsTextStylingMatcher;
+        if ( matcher == null )
+        {
+            Collection<FieldMetadata> fields = getFieldsAsTextStyling();
+            List<String> fieldNames = new ArrayList<String>( fields.size() );
+            for ( FieldMetadata field : fields )
+            {
+                fieldNames.add( field.getFieldName() );
+            }
+            matcher = new FieldNamesMatcher( fieldNames );
+            fieldsAsTextStylingMatcher = matcher;
+        }
+        return matcher;
+    }
+
     /**
      * Returns true if there are fields as image and false otherwise.
      * 
@@ -33,10 +33,9 @@ import java.util.Collection;
 
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.XMLReaderFactory;
 
 import fr.opensagres.xdocreport.core.utils.StringUtils;
+import fr.opensagres.xdocreport.core.utils.XMLReaderProvider;
 import fr.opensagres.xdocreport.template.formatter.sax.FieldsMetadataContentHandler;
 
 /**
@@ -79,10 +78,8 @@ public class FieldsMetadataXMLSerializer
     public FieldsMetadata load( Reader input )
         throws SAXException, IOException
     {
-        XMLReader saxReader = XMLReaderFactory.createXMLReader();
         FieldsMetadataContentHandler myContentHandler = new FieldsMetadataContentHandler();
-        saxReader.setContentHandler( myContentHandler );
-        saxReader.parse( new InputSource( input ) );
+        XMLReaderProvider.parse( new InputSource( input ), myContentHandler );
         return myContentHandler.getFieldsMetadata();
     }
 
@@ -105,10 +102,8 @@ public class FieldsMetadataXMLSerializer
         throws SAXException, IOException
     {
 
-        XMLReader saxReader = XMLReaderFactory.createXMLReader();
         FieldsMetadataContentHandler myContentHandler = new FieldsMetadataContentHandler();
-        saxReader.setContentHandler( myContentHandler );
-        saxReader.parse( new InputSource( inputStream ) );
+        XMLReaderProvider.parse( new InputSource( inputStream ), myContentHandler );
         return myContentHandler.getFieldsMetadata();
     }
 
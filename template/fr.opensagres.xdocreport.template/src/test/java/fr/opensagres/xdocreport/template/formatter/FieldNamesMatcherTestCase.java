@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.template.formatter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FieldNamesMatcherTestCase
+{
+
+    @Test
+    public void testFindAll()
+        throws Exception
+    {
+        FieldNamesMatcher matcher =
+            new FieldNamesMatcher( Arrays.asList( "developers.name", "developers.mail", "name", "mail", "ers.n" ) );
+        Assert.assertEquals( Arrays.asList( "developers.name", "name", "ers.n" ),
+                             matcher.findAll( "${developers.name}" ) );
+        Assert.assertEquals( Arrays.asList( "developers.mail", "mail" ), matcher.findAll( "$developers.mail" ) );
+        Assert.assertEquals( Collections.emptyList(), matcher.findAll( "${project.title}" ) );
+        Assert.assertEquals( Collections.emptyList(), matcher.findAll( "" ) );
+    }
+
+    @Test
+    public void testFindFirst()
+        throws Exception
+    {
+        FieldNamesMatcher matcher = new FieldNamesMatcher( Arrays.asList( "test3", "test1", "test", "aaatest3" ) );
+        Assert.assertEquals( "test3", matcher.findFirst( "${aaatest3}" ) );
+        Assert.assertEquals( "test", matcher.findFirst( "${test}" ) );
+        Assert.assertEquals( "test1", matcher.findFirst( "${test} ${test1}" ) );
+        Assert.assertNull( matcher.findFirst( "${tes}" ) );
+        Assert.assertNull( FieldNamesMatcher.EMPTY.findFirst( "${test}" ) );
+    }
+
+    @Test
+    public void testSameResultThanContains()
+        throws Exception
+    {
+        List<String> fieldNames = new ArrayList<String>();
+        for ( int i = 0; i < 400; i++ )
+        {
+            fieldNames.add( "invoice.lines.field" + i );
+        }
+        fieldNames.add( "lines.field1" );
+        fieldNames.add( "d1" );
+        Collections.sort( fieldNames, FieldsNameComparator.getInstance() );
+        FieldNamesMatcher matcher = new FieldNamesMatcher( fieldNames );
+
+        String[] contents =
+            { "${invoice.lines.field12}", "$invoice.lines.field399 and $invoice.lines.field7", "lines.field1",
+                "invoice.lines.fiel", "${d1}" };
+        for ( String content : contents )
+        {
+            List<String> expected = new ArrayList<String>();
+            for ( String fieldName : fieldNames )
+            {
+                if ( content.contains( fieldName ) )
+                {
+                    expected.add( fieldName );
+                }
+            }
+            Assert.assertEquals( content, expected, matcher.findAll( content ) );
+            Assert.assertEquals( content, expected.isEmpty() ? null : expected.get( 0 ), matcher.findFirst( content ) );
+        }
+    }
+
+    @Test
+    public void testMatcherRebuiltWhenFieldsMetadataChanges()
+        throws Exception
+    {
+        FieldsMetadata metadata = new FieldsMetadata();
+        metadata.addFieldAsList( "developers.name" );
+        Assert.assertEquals( Arrays.asList( "developers.name" ),
+                             metadata.getFieldsAsListMatcher().findAll( "${developers.name} ${developers.mail}" ) );
+
+        metadata.addFieldAsList( "developers.mail" );
+        Assert.assertEquals( Arrays.asList( "developers.name", "developers.mail" ),
+                             metadata.getFieldsAsListMatcher().findAll( "${developers.name} ${developers.mail}" ) );
+
+        metadata.addFieldAsTextStyling( "comment", "HTML" );
+        Assert.assertEquals( "comment", metadata.getFieldAsTextStyling( "${comment}" ).getFieldName() );
+        Assert.assertNull( metadata.getFieldAsTextStyling( "${developers.name}" ) );
+    }
+}
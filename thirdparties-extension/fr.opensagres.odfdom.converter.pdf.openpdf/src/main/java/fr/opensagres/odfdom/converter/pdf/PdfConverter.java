@@ -61,31 +61,20 @@ public class PdfConverter
             // process styles
             StyleEngineForIText styleEngine = processStyles( odfDocument, options );
 
-            // process content
-            ByteArrayOutputStream tempOut = new ByteArrayOutputStream();
-            ElementVisitorForIText visitorForIText = processBody( odfDocument, tempOut, styleEngine, options, null );
-            Integer expectedPageCount = visitorForIText.getExpectedPageCount();
-            int actualPageCount = visitorForIText.getActualPageCount();
-
-            if ( expectedPageCount == null || expectedPageCount == actualPageCount )
+            // process content in one pass : page count fields are rendered with templates which are filled when
+            // the PDF document is closed.
+            if ( styleEngine.getBackgroundImage() != null )
             {
-                // page count not required or correct, copy temp stream to output stream
-                if (styleEngine.getBackgroundImage() != null) {
-                	tempOut = styleEngine.getBackgroundImage().insert(tempOut);
-                }
+                // background image is inserted in the generated PDF, use a temp stream
+                ByteArrayOutputStream tempOut = new ByteArrayOutputStream();
+                processBody( odfDocument, tempOut, styleEngine, options );
+                tempOut = styleEngine.getBackgroundImage().insert( tempOut );
                 out.write( tempOut.toByteArray() );
                 out.close();
             }
             else
             {
-                // page count inconsistent, do second visit with forced page count
-            	tempOut = new ByteArrayOutputStream();
-                processBody( odfDocument, tempOut, styleEngine, options, actualPageCount );
-                if (styleEngine.getBackgroundImage() != null) {
-                	tempOut = styleEngine.getBackgroundImage().insert(tempOut);
-                }
-                out.write( tempOut.toByteArray() );
-                out.close();
+                processBody( odfDocument, out, styleEngine, options );
             }
 
         }
@@ -118,13 +107,12 @@ public class PdfConverter
         return styleEngine;
     }
 
-    private ElementVisitorForIText processBody( OdfDocument odfDocument, ByteArrayOutputStream out,
-                                                StyleEngineForIText styleEngine, PdfOptions options,
-                                                Integer forcedPageCount )
+    private ElementVisitorForIText processBody( OdfDocument odfDocument, OutputStream out,
+                                                StyleEngineForIText styleEngine, PdfOptions options )
         throws Exception
     {
         ElementVisitorForIText visitorForIText =
-            new ElementVisitorForIText( odfDocument, out, styleEngine, options, forcedPageCount );
+            new ElementVisitorForIText( odfDocument, out, styleEngine, options );
 
         OdfOfficeMasterStyles masterStyles = odfDocument.getOfficeMasterStyles();
         OdfElement contentRoot = odfDocument.getContentRoot();
@@ -133,19 +133,14 @@ public class ElementVisitorForIText
 
     private StylableList previousList; // list processing
 
-    private Integer forcedPageCount; // page count processing
-
-    private Integer expectedPageCount; // page count processing
-    
     // Image Cache
     private Map<String, Image> imageCache = new HashMap<String, Image>();
 
     public ElementVisitorForIText( OdfDocument odfDocument, OutputStream out, StyleEngineForIText styleEngine,
-                                   PdfOptions options, Integer forcedPageCount )
+                                   PdfOptions options )
     {
         super( odfDocument, options.getExtractor(), out, null );
         this.styleEngine = styleEngine;
-        this.forcedPageCount = forcedPageCount;
         // this.options = options != null ? options : PDFViaITextOptions.create();
         // Create document
         try
@@ -158,23 +153,6 @@ public class ElementVisitorForIText
         }
     }
 
-    public Integer getExpectedPageCount()
-    {
-        return expectedPageCount;
-    }
-
-    public int getActualPageCount()
-    {
-        if ( document.isOpen() )
-        {
-            return document.getPageNumber();
-        }
-        else
-        {
-            return document.getPageNumber() - 1;
-        }
-    }
-
     // ---------------------- visit root
     // styles.xml//office:document-styles/office:master-styles/style:master-page
 
@@ -757,31 +735,21 @@ public class ElementVisitorForIText
     @Override
     public void visit( TextPageCountElement ele )
     {
-        if ( forcedPageCount != null )
+        // the page count is not known until the document is closed, display it with a template which is filled
+        // on close.
+        Font font = null;
+        Style style = currentContainer.getLastStyleApplied();
+        if ( style != null && style.getTextProperties() != null )
         {
-            createAndAddChunk( forcedPageCount.toString(), null, false );
+            font = style.getTextProperties().getFont();
         }
-        else
+        try
         {
-            String textContent = ele.getTextContent();
-            try
-            {
-                int pageCount = Integer.parseInt( textContent );
-                if ( expectedPageCount == null || expectedPageCount == pageCount )
-                {
-                    expectedPageCount = pageCount;
-                }
-                else if ( expectedPageCount != pageCount )
-                {
-                    expectedPageCount = -1;
-                }
-            }
-            catch ( NumberFormatException e )
-            {
-                expectedPageCount = -1;
-            }
-            textContent = expectedPageCount != null & expectedPageCount >= 0 ? expectedPageCount.toString() : "#";
-            createAndAddChunk( textContent, null, false );
+            currentContainer.addElement( document.createTotalPageCountChunk( font != null ? font : new Font() ) );
+        }
+        catch ( DocumentException e )
+        {
+            throw new ODFConverterException( e );
         }
     }
 
@@ -153,8 +153,6 @@ public abstract class XWPFDocumentVisitor<T, O extends Options, E extends IXWPFM
 
     protected boolean processingTotalPageCountField = false;
 
-    protected boolean totalPageFieldUsed = false;
-
     /**
      * Map of w:numId and ListContext
      */
@@ -216,6 +214,8 @@ public abstract class XWPFDocumentVisitor<T, O extends Options, E extends IXWPFM
         visitBodyElements( bodyElements, container );
         // end document
         endVisitDocument();
+        // share the resolved style values with the next conversions of documents with the same styles
+        stylesDocument.publishResolvedValues();
     }
 
     /**
@@ -673,10 +673,6 @@ public abstract class XWPFDocumentVisitor<T, O extends Options, E extends IXWPFM
 
                                     // test if it's <w:r><w:instrText>NUMPAGES</w:instrText></w:r>
                                     processingTotalPageCountField = XWPFRunHelper.isInstrTextNumpages( instrText );
-                                    if ( !totalPageFieldUsed )
-                                    {
-                                        totalPageFieldUsed = true;
-                                    }
 
                                     // test if it's <w:instrText>HYPERLINK
                                     // "http://code.google.com/p/xdocrepor"</w:instrText>
@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.poi.xwpf.converter.core.styles;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.xmlbeans.XmlObject;
+
+/**
+ * Immutable table of style values resolved by the {@link AbstractValueProvider} (default values, values of a styleId
+ * with its basedOn chain, values of table style overrides). Since those values depend only on the styles and theme
+ * parts of a docx, a table can be shared across every document with the same styles part (see
+ * {@link ResolvedStylesTableRegistry}).
+ */
+public final class ResolvedStylesTable
+{
+
+    public static final ResolvedStylesTable EMPTY = new ResolvedStylesTable( Collections.<String, Object> emptyMap() );
+
+    private final Map<String, Object> values;
+
+    private ResolvedStylesTable( Map<String, Object> values )
+    {
+        this.values = values;
+    }
+
+    /**
+     * Returns the resolved value (or {@link XWPFStylesDocument#EMPTY_VALUE}) for the given key and null if the value
+     * was not resolved.
+     * 
+     * @param key
+     * @return
+     */
+    public Object get( String key )
+    {
+        return values.get( key );
+    }
+
+    public int size()
+    {
+        return values.size();
+    }
+
+    /**
+     * Returns a new table which contains the values of this table and the given resolved values. XmlBeans instances
+     * (CTTabs, CTNumPr...) are not shared because they belong to the document which has resolved them.
+     * 
+     * @param resolvedValues
+     * @return this table if the given values doesn't bring new value.
+     */
+    public ResolvedStylesTable merge( Map<String, Object> resolvedValues )
+    {
+        Map<String, Object> merged = null;
+        for ( Map.Entry<String, Object> entry : resolvedValues.entrySet() )
+        {
+            Object value = entry.getValue();
+            if ( value == null || value instanceof XmlObject || values.containsKey( entry.getKey() ) )
+            {
+                continue;
+            }
+            if ( merged == null )
+            {
+                merged = new HashMap<String, Object>( values );
+            }
+            merged.put( entry.getKey(), value );
+        }
+        return merged != null ? new ResolvedStylesTable( Collections.unmodifiableMap( merged ) ) : this;
+    }
+}
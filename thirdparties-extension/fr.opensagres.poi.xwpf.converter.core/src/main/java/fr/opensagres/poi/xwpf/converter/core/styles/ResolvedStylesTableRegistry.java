@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.poi.xwpf.converter.core.styles;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide registry of {@link ResolvedStylesTable} indexed by the digest of the styles part of a docx. Documents
+ * generated from the same template share the same styles.xml, so the style values resolved by a conversion can be
+ * reused by the next conversions instead of walking again the style inheritance chains.
+ * <p>
+ * The registry keeps the last recently used tables (see {@link #setMaxTables(int)}).
+ * </p>
+ */
+public class ResolvedStylesTableRegistry
+{
+
+    private static final int DEFAULT_MAX_TABLES = 32;
+
+    public static final ResolvedStylesTableRegistry INSTANCE = new ResolvedStylesTableRegistry();
+
+    private final Map<String, ResolvedStylesTable> tables;
+
+    private int maxTables;
+
+    private boolean enabled;
+
+    public ResolvedStylesTableRegistry()
+    {
+        this.maxTables = DEFAULT_MAX_TABLES;
+        this.enabled = true;
+        this.tables = new LinkedHashMap<String, ResolvedStylesTable>( 16, 0.75f, true )
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, ResolvedStylesTable> eldest )
+            {
+                return size() > maxTables;
+            }
+        };
+    }
+
+    /**
+     * Returns the table of the given styles digest and null if none table was published for this digest.
+     * 
+     * @param stylesDigest
+     * @return
+     */
+    public synchronized ResolvedStylesTable getTable( String stylesDigest )
+    {
+        if ( !enabled || stylesDigest == null )
+        {
+            return null;
+        }
+        return tables.get( stylesDigest );
+    }
+
+    /**
+     * Merge the given resolved values with the table of the given styles digest. The table is never updated in place:
+     * a new immutable table replaces it, so documents which are converting with the old table are not impacted.
+     * 
+     * @param stylesDigest
+     * @param resolvedValues
+     * @return the published table.
+     */
+    public synchronized ResolvedStylesTable publish( String stylesDigest, Map<String, Object> resolvedValues )
+    {
+        if ( !enabled || stylesDigest == null )
+        {
+            return null;
+        }
+        ResolvedStylesTable table = tables.get( stylesDigest );
+        if ( table == null )
+        {
+            table = ResolvedStylesTable.EMPTY;
+        }
+        ResolvedStylesTable merged = table.merge( resolvedValues );
+        if ( merged != ResolvedStylesTable.EMPTY )
+        {
+            tables.put( stylesDigest, merged );
+        }
+        return merged;
+    }
+
+    public synchronized void setMaxTables( int maxTables )
+    {
+        this.maxTables = maxTables;
+        Iterator<String> eldest = tables.keySet().iterator();
+        while ( tables.size() > maxTables && eldest.hasNext() )
+        {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    public synchronized int getMaxTables()
+    {
+        return maxTables;
+    }
+
+    /**
+     * Enable/Disable the share of resolved styles table.
+     * 
+     * @param enabled
+     */
+    public synchronized void setEnabled( boolean enabled )
+    {
+        this.enabled = enabled;
+        if ( !enabled )
+        {
+            tables.clear();
+        }
+    }
+
+    public synchronized boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public synchronized void clear()
+    {
+        tables.clear();
+    }
+
+    public synchronized int size()
+    {
+        return tables.size();
+    }
+}
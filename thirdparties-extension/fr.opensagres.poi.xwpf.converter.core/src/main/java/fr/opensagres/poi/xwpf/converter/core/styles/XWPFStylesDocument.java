@@ -26,9 +26,13 @@ package fr.opensagres.poi.xwpf.converter.core.styles;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigInteger;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -186,6 +190,10 @@ public class XWPFStylesDocument
 
     private CTStyles styles;
 
+    private final String stylesDigest;
+
+    private final ResolvedStylesTable resolvedStylesTable;
+
     public XWPFStylesDocument( XWPFDocument document )
         throws XmlException, IOException
     {
@@ -195,8 +203,14 @@ public class XWPFStylesDocument
     public XWPFStylesDocument( XWPFDocument document, boolean lazyInitialization )
         throws XmlException, IOException
     {
-        this( document.getStyle(), getFontsDocument( document ), getThemeDocuments( document ),
-              getCTSettings( document ), lazyInitialization );
+        this( document, document.getStyle(), lazyInitialization );
+    }
+
+    private XWPFStylesDocument( XWPFDocument document, CTStyles styles, boolean lazyInitialization )
+        throws XmlException, IOException
+    {
+        this( styles, getFontsDocument( document ), getThemeDocuments( document ), getCTSettings( document ),
+              lazyInitialization, getStylesDigest( document, styles ) );
     }
 
     public XWPFStylesDocument( IOpenXMLFormatsPartProvider provider )
@@ -215,10 +229,24 @@ public class XWPFStylesDocument
     public XWPFStylesDocument( CTStyles styles, List<FontsDocument> fontsDocuments, List<ThemeDocument> themeDocuments,
                                CTSettings ctSettings, boolean lazyInitialization )
         throws XmlException, IOException
+    {
+        this( styles, fontsDocuments, themeDocuments, ctSettings, lazyInitialization, null );
+    }
+
+    /**
+     * @param stylesDigest digest of the styles and the theme parts used to share the resolved style values with the other
+     *            documents which have the same styles (see {@link ResolvedStylesTableRegistry}) or null if resolved
+     *            values must not be shared.
+     */
+    public XWPFStylesDocument( CTStyles styles, List<FontsDocument> fontsDocuments, List<ThemeDocument> themeDocuments,
+                               CTSettings ctSettings, boolean lazyInitialization, String stylesDigest )
+        throws XmlException, IOException
     {
         this.styles = styles;
         this.stylesByStyleId = new HashMap<String, CTStyle>();
         this.values = new HashMap<String, Object>();
+        this.stylesDigest = stylesDigest;
+        this.resolvedStylesTable = ResolvedStylesTableRegistry.INSTANCE.getTable( stylesDigest );
         this.fontsAltName = updateFonts( fontsDocuments );
         this.fontsToUse = new HashMap<String, String>();
         this.themeDocuments = themeDocuments;
@@ -1350,7 +1378,13 @@ public class XWPFStylesDocument
 
     public <T> T getValue( String key )
     {
-        return (T) values.get( key );
+        Object value = values.get( key );
+        if ( value == null && resolvedStylesTable != null )
+        {
+            // search from the table shared with the documents which have the same styles
+            value = resolvedStylesTable.get( key );
+        }
+        return (T) value;
     }
 
     public <T> void setValue( String key, T value )
@@ -1358,6 +1392,23 @@ public class XWPFStylesDocument
         values.put( key, value );
     }
 
+    public String getStylesDigest()
+    {
+        return stylesDigest;
+    }
+
+    /**
+     * Publish the style values resolved by this document to share them with the next documents which have the same
+     * styles part.
+     */
+    public void publishResolvedValues()
+    {
+        if ( stylesDigest != null && !values.isEmpty() )
+        {
+            ResolvedStylesTableRegistry.INSTANCE.publish( stylesDigest, values );
+        }
+    }
+
     public TableCellInfo getTableCellInfo( XWPFTableCell cell )
     {
         XWPFTable table = cell.getTableRow().getTable();
@@ -1589,6 +1640,75 @@ public class XWPFStylesDocument
     	return visitor.getThemeDocuments();
     }
 
+    private static class ThemeDigestVisitor extends DocumentVisitor {
+
+    	private final MessageDigest digest;
+
+    	ThemeDigestVisitor( MessageDigest digest ) {
+    		this.digest = digest;
+    	}
+
+		@Override
+		protected boolean acceptRelationshipType(String relationshipType) {
+			return "http://schemas.openxmlformats.org/officeDocument/2006/relationships/theme".equals( relationshipType );
+		}
+
+		@Override
+		protected boolean visitDocumentPart(String relationshipType, POIXMLDocumentPart p) {
+			try {
+				InputStream inputStream = p.getPackagePart().getInputStream();
+				try {
+					byte[] buffer = new byte[8192];
+					int n;
+					while ( ( n = inputStream.read( buffer ) ) != -1 ) {
+						digest.update( buffer, 0, n );
+					}
+				} finally {
+					inputStream.close();
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			return false;
+		}
+    }
+
+    /**
+     * Returns the digest of the given styles and of the theme parts of the document. The styles are hashed from the
+     * XML bean which is resolved (and not from the styles part) to follow the changes done in memory.
+     *
+     * @param document
+     * @param styles
+     * @return the digest or null if the resolved values must not be shared.
+     */
+    static String getStylesDigest( XWPFDocument document, CTStyles styles )
+    {
+        if ( styles == null || !ResolvedStylesTableRegistry.INSTANCE.isEnabled() )
+        {
+            return null;
+        }
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance( "SHA-1" );
+            styles.save( new DigestOutputStream( OutputStream.nullOutputStream(), digest ) );
+            new ThemeDigestVisitor( digest ).visitDocument( document );
+            StringBuilder hex = new StringBuilder();
+            for ( byte b : digest.digest() )
+            {
+                hex.append( Character.forDigit( ( b >> 4 ) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+            }
+            return hex.toString();
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            return null;
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+    }
+
     private static class FontsDocumentVisitor extends DocumentVisitor {
 
     	private final List<FontsDocument> fontsDocuments = new ArrayList<FontsDocument>();
@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.poi.xwpf.converter.core.styles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.xwpf.usermodel.BodyElementType;
+import org.apache.poi.xwpf.usermodel.IBodyElement;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTStyles;
+
+public class ResolvedStylesTableTestCase
+{
+
+    @After
+    public void clearRegistry()
+    {
+        ResolvedStylesTableRegistry.INSTANCE.clear();
+    }
+
+    @Test
+    public void testSameStylesShareTable()
+        throws Exception
+    {
+        ResolvedStylesTableRegistry.INSTANCE.clear();
+
+        XWPFDocument document1 = new XWPFDocument( Data.class.getResourceAsStream( "TestFontStylesBasedOn.docx" ) );
+        XWPFStylesDocument stylesDocument1 = new XWPFStylesDocument( document1 );
+        Assert.assertNotNull( stylesDocument1.getStylesDigest() );
+        List<Object> values1 = resolveRunValues( document1, stylesDocument1 );
+        stylesDocument1.publishResolvedValues();
+
+        ResolvedStylesTable table = ResolvedStylesTableRegistry.INSTANCE.getTable( stylesDocument1.getStylesDigest() );
+        Assert.assertNotNull( table );
+        Assert.assertTrue( table.size() > 0 );
+
+        // second document with the same styles.xml uses the published table
+        XWPFDocument document2 = new XWPFDocument( Data.class.getResourceAsStream( "TestFontStylesBasedOn.docx" ) );
+        XWPFStylesDocument stylesDocument2 = new XWPFStylesDocument( document2 );
+        Assert.assertEquals( stylesDocument1.getStylesDigest(), stylesDocument2.getStylesDigest() );
+        Assert.assertEquals( values1, resolveRunValues( document2, stylesDocument2 ) );
+        stylesDocument2.publishResolvedValues();
+        Assert.assertSame( table,
+                           ResolvedStylesTableRegistry.INSTANCE.getTable( stylesDocument2.getStylesDigest() ) );
+    }
+
+    @Test
+    public void testOtherStylesDontShareTable()
+        throws Exception
+    {
+        XWPFDocument document1 = new XWPFDocument( Data.class.getResourceAsStream( "TestFontStylesBasedOn.docx" ) );
+        XWPFStylesDocument stylesDocument1 = new XWPFStylesDocument( document1 );
+        resolveRunValues( document1, stylesDocument1 );
+        stylesDocument1.publishResolvedValues();
+
+        XWPFDocument document2 = new XWPFDocument( Data.class.getResourceAsStream( "TableCellVerticalAlignment.docx" ) );
+        XWPFStylesDocument stylesDocument2 = new XWPFStylesDocument( document2 );
+        Assert.assertFalse( stylesDocument1.getStylesDigest().equals( stylesDocument2.getStylesDigest() ) );
+        Assert.assertNull( ResolvedStylesTableRegistry.INSTANCE.getTable( stylesDocument2.getStylesDigest() ) );
+    }
+
+    @Test
+    public void testStylesModifiedInMemoryChangeDigest()
+        throws Exception
+    {
+        XWPFDocument document = new XWPFDocument( Data.class.getResourceAsStream( "TestFontStylesBasedOn.docx" ) );
+        CTStyles styles = document.getStyle();
+        String digest = XWPFStylesDocument.getStylesDigest( document, styles );
+        Assert.assertNotNull( digest );
+        Assert.assertEquals( digest, XWPFStylesDocument.getStylesDigest( document, document.getStyle() ) );
+
+        // the styles part is unchanged, but the resolved styles are not the same
+        styles.addNewStyle().setStyleId( "AddedInMemory" );
+        Assert.assertFalse( digest.equals( XWPFStylesDocument.getStylesDigest( document, styles ) ) );
+    }
+
+    private List<Object> resolveRunValues( XWPFDocument document, XWPFStylesDocument stylesDocument )
+    {
+        List<Object> values = new ArrayList<Object>();
+        for ( IBodyElement element : document.getBodyElements() )
+        {
+            if ( element.getElementType() == BodyElementType.PARAGRAPH )
+            {
+                XWPFParagraph paragraph = (XWPFParagraph) element;
+                values.add( stylesDocument.getSpacingAfter( paragraph ) );
+                for ( XWPFRun run : paragraph.getRuns() )
+                {
+                    values.add( stylesDocument.getFontFamilyAscii( run ) );
+                    values.add( stylesDocument.getFontSize( run ) );
+                    values.add( stylesDocument.getFontStyleBold( run ) );
+                    values.add( stylesDocument.getFontStyleItalic( run ) );
+                }
+            }
+        }
+        return values;
+    }
+}
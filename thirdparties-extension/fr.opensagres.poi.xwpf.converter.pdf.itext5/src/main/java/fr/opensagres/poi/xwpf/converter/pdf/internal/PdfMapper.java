@@ -153,16 +153,13 @@ public class PdfMapper
 
     private StylableHeaderFooter pdfFooter;
 
-    private Integer expectedPageCount;
-
     private Map<MultiValueTriplet<XWPFPictureData, Long, Long>, Image> imageCache;
 
-    public PdfMapper( XWPFDocument document, OutputStream out, PdfOptions options, Integer expectedPageCount )
+    public PdfMapper( XWPFDocument document, OutputStream out, PdfOptions options )
         throws Exception
     {
         super( document, options != null ? options : PdfOptions.getDefault() );
         this.out = out;
-        this.expectedPageCount = expectedPageCount;
     }
 
     // ------------------------- Document
@@ -663,15 +660,16 @@ public class PdfMapper
 
     private Chunk createTextChunk( String text, boolean pageNumber, Font currentRunFont,
                                    UnderlinePatterns currentRunUnderlinePatterns, Color currentRunBackgroundColor )
+        throws DocumentException
     {
         // Chunk textChunk =
         // pageNumber ? new ExtendedChunk( pdfDocument, true, currentRunFont ) :
         // new Chunk( text, currentRunFont );
 
         Chunk textChunk = null;
-        if ( processingTotalPageCountField && expectedPageCount != null )
+        if ( processingTotalPageCountField )
         {
-            textChunk = new Chunk( String.valueOf( expectedPageCount ), currentRunFont );
+            textChunk = pdfDocument.createTotalPageCountChunk( currentRunFont );
         }
         else
         {
@@ -712,6 +710,7 @@ public class PdfMapper
     private void createAndAddChunks( IITextContainer parent, String textContent, UnderlinePatterns underlinePatterns,
                                      Color backgroundColor, boolean pageNumber, Font font, Font fontAsian,
                                      Font fontComplex )
+        throws DocumentException
     {
         StringBuilder sbuf = new StringBuilder();
         FontGroup currentGroup = FontGroup.WESTERN;
@@ -1472,21 +1471,4 @@ public class PdfMapper
         }
     }
 
-    public int getPageCount()
-    {
-        if ( pdfDocument.isOpen() )
-        {
-            return pdfDocument.getPageNumber();
-        }
-        else
-        {
-            return pdfDocument.getPageNumber() - 1;
-        }
-    }
-
-    public boolean useTotalPageField()
-    {
-        return totalPageFieldUsed;
-    }
-
 }
@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.apache.poi.xwpf.converter.pdf;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.poi.xwpf.converter.core.AbstractXWPFPOIConverterTest;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.Test;
+
+import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfObject;
+import com.itextpdf.text.pdf.PdfReader;
+
+import fr.opensagres.poi.xwpf.converter.pdf.PdfConverter;
+import fr.opensagres.poi.xwpf.converter.pdf.PdfOptions;
+
+public class PdfConverterTotalPageCountTestCase
+{
+
+    @Test
+    public void totalPageCountInFooter()
+        throws IOException
+    {
+        // CV.docx footer contains PAGE and NUMPAGES fields
+        XWPFDocument document =
+            new XWPFDocument( AbstractXWPFPOIConverterTest.class.getResourceAsStream( "CV.docx" ) );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfConverter.getInstance().convert( document, out, PdfOptions.create() );
+
+        PdfReader reader = new PdfReader( out.toByteArray() );
+        String pageCount = "(" + reader.getNumberOfPages() + ")";
+        for ( int i = 1; i <= reader.getNumberOfPages(); i++ )
+        {
+            assertTrue( "Total page count not found in page " + i, containsTemplateText( reader, i, pageCount ) );
+        }
+    }
+
+    private static boolean containsTemplateText( PdfReader reader, int pageNumber, String text )
+        throws IOException
+    {
+        PdfDictionary xObjects = reader.getPageN( pageNumber ).getAsDict( PdfName.RESOURCES ).getAsDict( PdfName.XOBJECT );
+        if ( xObjects == null )
+        {
+            return false;
+        }
+        for ( Object name : xObjects.getKeys() )
+        {
+            PdfObject xObject = PdfReader.getPdfObject( xObjects.get( (PdfName) name ) );
+            if ( xObject instanceof PRStream && PdfName.FORM.equals( ( (PRStream) xObject ).getAsName( PdfName.SUBTYPE ) ) )
+            {
+                String content = new String( PdfReader.getStreamBytes( (PRStream) xObject ), "ISO-8859-1" );
+                if ( content.contains( text ) )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
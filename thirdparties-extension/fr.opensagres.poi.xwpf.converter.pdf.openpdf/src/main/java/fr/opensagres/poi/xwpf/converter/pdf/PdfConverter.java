@@ -24,7 +24,6 @@
  */
 package fr.opensagres.poi.xwpf.converter.pdf;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
@@ -49,24 +48,12 @@ public class PdfConverter extends AbstractXWPFConverter<PdfOptions> {
 			Writer writer, PdfOptions options) throws XWPFConverterException,
 			IOException {
 		try {
-			// PdfMapper mapper = new PdfMapper( document, out, options );
-
-			// process content
-			ByteArrayOutputStream tempOut = new ByteArrayOutputStream();
-			PdfMapper mapper = new PdfMapper(document, tempOut, options, null);
+			// process content in one pass : total page count fields are
+			// rendered with templates which are filled when the PDF document
+			// is closed.
+			PdfMapper mapper = new PdfMapper(document, out, options);
 			mapper.start();
 
-			if (mapper.useTotalPageField()) {
-				// process content a second time, knowing the expected page
-				// number
-				Integer actualPageCount = Integer
-						.valueOf(mapper.getPageCount());
-				mapper = new PdfMapper(document, out, options, actualPageCount);
-				mapper.start();
-			} else {
-				out.write(tempOut.toByteArray());
-			}
-
 		} catch (Exception e) {
 			throw new XWPFConverterException(e);
 		}
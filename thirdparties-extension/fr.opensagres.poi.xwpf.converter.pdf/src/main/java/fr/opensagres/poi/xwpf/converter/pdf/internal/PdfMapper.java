@@ -153,18 +153,15 @@ public class PdfMapper
 
     private StylableHeaderFooter pdfFooter;
 
-    private Integer expectedPageCount;
-
     private VerticalAlign currentRunVerticalAlign = VerticalAlign.BASELINE;
 
     private Map<MultiValueTriplet<XWPFPictureData, Long, Long>, Image> imageCache;
 
-    public PdfMapper( XWPFDocument document, OutputStream out, PdfOptions options, Integer expectedPageCount )
+    public PdfMapper( XWPFDocument document, OutputStream out, PdfOptions options )
         throws Exception
     {
         super( document, options != null ? options : PdfOptions.getDefault() );
         this.out = out;
-        this.expectedPageCount = expectedPageCount;
     }
 
     // ------------------------- Document
@@ -689,15 +686,16 @@ public class PdfMapper
 
     private Chunk createTextChunk( String text, boolean pageNumber, Font currentRunFont,
                                    UnderlinePatterns currentRunUnderlinePatterns, Color currentRunBackgroundColor )
+        throws DocumentException
     {
         // Chunk textChunk =
         // pageNumber ? new ExtendedChunk( pdfDocument, true, currentRunFont ) :
         // new Chunk( text, currentRunFont );
 
         Chunk textChunk = null;
-        if ( processingTotalPageCountField && expectedPageCount != null )
+        if ( processingTotalPageCountField )
         {
-            textChunk = new Chunk( String.valueOf( expectedPageCount ), currentRunFont );
+            textChunk = pdfDocument.createTotalPageCountChunk( currentRunFont );
         }
         else
         {
@@ -749,6 +747,7 @@ public class PdfMapper
     private void createAndAddChunks( IITextContainer parent, String textContent, UnderlinePatterns underlinePatterns,
                                      Color backgroundColor, boolean pageNumber, Font font, Font fontAsian,
                                      Font fontComplex )
+        throws DocumentException
     {
         StringBuilder sbuf = new StringBuilder();
         FontGroup currentGroup = FontGroup.WESTERN;
@@ -1519,21 +1518,4 @@ public class PdfMapper
         }
     }
 
-    public int getPageCount()
-    {
-        if ( pdfDocument.isOpen() )
-        {
-            return pdfDocument.getPageNumber();
-        }
-        else
-        {
-            return pdfDocument.getPageNumber() - 1;
-        }
-    }
-
-    public boolean useTotalPageField()
-    {
-        return totalPageFieldUsed;
-    }
-
 }
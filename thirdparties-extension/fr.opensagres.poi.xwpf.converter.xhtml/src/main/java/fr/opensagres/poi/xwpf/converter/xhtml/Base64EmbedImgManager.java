@@ -25,33 +25,198 @@
 package fr.opensagres.poi.xwpf.converter.xhtml;
 
 import fr.opensagres.poi.xwpf.converter.core.ImageManager;
+import fr.opensagres.xdocreport.core.cache.BoundedCacheStorage;
+import fr.opensagres.xdocreport.core.cache.ICacheWeigher;
 import fr.opensagres.xdocreport.core.utils.Base64Utility;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 /**
  * Created by zzt on 17/4/11.
+ * <p>
+ * Images are embedded in the img/@src as base64 data URI. The data URI of an image is computed once and reused for
+ * every occurrence of the same image (ex : a logo repeated in every header), images being identified by the SHA-256
+ * digest of their content.
+ * <p>
+ * In streaming mode, the data URI is never built : {@link #resolve(String)} returns a reference to the current image
+ * and the {@link SimpleContentHandler} created by the converter writes the base64 of the image by chunks in the
+ * img/@src. This mode must be used only with the default content handler factory of the XHTML options.
  */
-public class Base64EmbedImgManager extends ImageManager {
+public class Base64EmbedImgManager extends ImageManager implements IAttributeValueStreamer {
     private static final String EMBED_IMG_SRC_PREFIX = XHTMLConstants.DATA_ATTR + ";base64,";
 
+    /**
+     * img/@src given to the SAX handler in streaming mode ('#' is not a base64 char).
+     */
+    private static final String STREAMED_IMG_SRC = EMBED_IMG_SRC_PREFIX + "#streamed";
+
+    /**
+     * Number of bytes encoded by chunk in streaming mode (multiple of 3 to have no padding inside the data URI).
+     */
+    private static final int STREAMED_CHUNK_SIZE = 3 * 1024;
+
+    private static final long DEFAULT_MAX_CACHED_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Weight of a data URI : its length (the base64 chars are stored with one byte by char).
+     */
+    private static final ICacheWeigher<ImageKey, String> DATA_URI_WEIGHER = new ICacheWeigher<ImageKey, String>() {
+        public long weigh(ImageKey key, String dataURI) {
+            return dataURI.length();
+        }
+    };
+
+    private BoundedCacheStorage<ImageKey, String> dataURIs;
+
     private byte[] picture;
 
+    private String dataURI;
+
+    private boolean streaming;
+
     public Base64EmbedImgManager() {
         super(new File(""), "");
+        setMaxCachedBytes(DEFAULT_MAX_CACHED_BYTES);
     }
 
     @Override
     public void extract(String imagePath, byte[] imageData) throws IOException {
         this.picture = imageData;
+        this.dataURI = null;
     }
 
     @Override
     public String resolve(String uri) {
-        StringBuilder sb = new StringBuilder(picture.length + EMBED_IMG_SRC_PREFIX.length())
-                .append(EMBED_IMG_SRC_PREFIX)
-                .append(Base64Utility.encode(picture));
-        return sb.toString();
+        if (streaming) {
+            return STREAMED_IMG_SRC;
+        }
+        if (dataURI == null) {
+            dataURI = getDataURI(picture);
+        }
+        return dataURI;
+    }
+
+    public boolean isStreamed(String value) {
+        return streaming && STREAMED_IMG_SRC.equals(value);
+    }
+
+    /**
+     * Write the data URI of the current image by chunks, without building it.
+     */
+    public void stream(String value, Writer writer) throws IOException {
+        byte[] picture = this.picture;
+        writer.write(EMBED_IMG_SRC_PREFIX);
+        char[] chars = new char[Base64Utility.encodedLength(STREAMED_CHUNK_SIZE)];
+        for (int offset = 0; offset < picture.length; offset += STREAMED_CHUNK_SIZE) {
+            int length = Math.min(STREAMED_CHUNK_SIZE, picture.length - offset);
+            writer.write(chars, 0, Base64Utility.encode(picture, offset, length, chars, 0));
+        }
+    }
+
+    /**
+     * Set the streaming mode : the base64 of the images is written by chunks by the {@link SimpleContentHandler} instead
+     * of being built and cached as data URI. The SAX handler receives a reference instead of the data URI, so this mode
+     * requires the default content handler factory.
+     *
+     * @param streaming
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Set the max total size of the data URI kept to be reused for the same images (0 to disable the reuse). An image
+     * whose data URI is bigger than this size is never kept.
+     *
+     * @param maxCachedBytes
+     */
+    public void setMaxCachedBytes(long maxCachedBytes) {
+        this.dataURIs = new BoundedCacheStorage<ImageKey, String>(maxCachedBytes, DATA_URI_WEIGHER);
+    }
+
+    public long getMaxCachedBytes() {
+        return dataURIs.getMaximumWeight();
+    }
+
+    /**
+     * Returns the cache of the data URI.
+     *
+     * @return
+     */
+    public BoundedCacheStorage<?, String> getDataURIs() {
+        return dataURIs;
+    }
+
+    private String getDataURI(byte[] picture) {
+        long maxCachedBytes = dataURIs.getMaximumWeight();
+        if (EMBED_IMG_SRC_PREFIX.length() + Base64Utility.encodedLength(picture.length) > maxCachedBytes) {
+            return createDataURI(picture);
+        }
+        ImageKey key = new ImageKey(digest(picture));
+        String dataURI = dataURIs.get(key);
+        if (dataURI == null) {
+            dataURI = createDataURI(picture);
+            dataURIs.put(key, dataURI);
+        }
+        return dataURI;
+    }
+
+    /**
+     * Encode the image in base64 directly after the data URI prefix to create the data URI with only one copy.
+     */
+    private static String createDataURI(byte[] picture) {
+        int prefixLength = EMBED_IMG_SRC_PREFIX.length();
+        char[] chars = new char[prefixLength + Base64Utility.encodedLength(picture.length)];
+        EMBED_IMG_SRC_PREFIX.getChars(0, prefixLength, chars, 0);
+        Base64Utility.encode(picture, 0, picture.length, chars, prefixLength);
+        return new String(chars);
+    }
+
+    private static byte[] digest(byte[] picture) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(picture);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Key of an image, compared with the digest of its content : the cache doesn't keep the bytes of the images.
+     */
+    private static class ImageKey {
+
+        private final byte[] digest;
+
+        private final int hashCode;
+
+        ImageKey(byte[] digest) {
+            this.digest = digest;
+            this.hashCode = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ImageKey)) {
+                return false;
+            }
+            return Arrays.equals(digest, ((ImageKey) obj).digest);
+        }
     }
 }
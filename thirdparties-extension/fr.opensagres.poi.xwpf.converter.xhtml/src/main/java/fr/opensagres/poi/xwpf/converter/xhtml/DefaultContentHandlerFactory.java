@@ -30,7 +30,9 @@ import java.io.Writer;
 import org.xml.sax.ContentHandler;
 
 /**
- * Default {@link IContentHandlerFactory} which create instance SAX {@link SimpleContentHandler}.
+ * Default {@link IContentHandlerFactory} which create instance SAX {@link SimpleContentHandler}. When the image
+ * manager of the options is an {@link IAttributeValueStreamer} (ex : {@link Base64EmbedImgManager} in streaming mode),
+ * the handler writes the img/@src streamed by the image manager.
  */
 public class DefaultContentHandlerFactory
     implements IContentHandlerFactory
@@ -41,7 +43,12 @@ public class DefaultContentHandlerFactory
     public ContentHandler create( OutputStream out, Writer writer, XHTMLOptions options )
     {
 
-        return out != null ? new SimpleContentHandler( out, options.getIndent() )
+        SimpleContentHandler contentHandler = out != null ? new SimpleContentHandler( out, options.getIndent() )
                         : new SimpleContentHandler( writer, options.getIndent() );
+        if ( options.getURIResolver() instanceof IAttributeValueStreamer )
+        {
+            contentHandler.setAttributeValueStreamer( (IAttributeValueStreamer) options.getURIResolver() );
+        }
+        return contentHandler;
     }
 }
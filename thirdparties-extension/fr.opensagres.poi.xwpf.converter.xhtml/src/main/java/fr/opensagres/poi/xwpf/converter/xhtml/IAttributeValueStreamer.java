@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.poi.xwpf.converter.xhtml;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streamer of the attribute values which are too big to be built as String (ex : base64 data URI of an image). The
+ * attribute value given to the SAX handler is a short reference and {@link SimpleContentHandler} writes the referenced
+ * value by chunks when it serializes the attribute.
+ */
+public interface IAttributeValueStreamer
+{
+
+    /**
+     * Returns true if the given attribute value is a reference to a value written by this streamer.
+     * 
+     * @param value the attribute value.
+     * @return
+     */
+    boolean isStreamed( String value );
+
+    /**
+     * Write by chunks the value referenced by the given attribute value. The written chars are escaped by the writer.
+     * 
+     * @param value the attribute value which is a reference to the streamed value.
+     * @param writer the writer of the attribute value.
+     * @throws IOException
+     */
+    void stream( String value, Writer writer )
+        throws IOException;
+
+}
@@ -32,10 +32,19 @@ import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+/**
+ * SAX {@link DefaultHandler} which serializes the XHTML generated by the converter. Markup and text are encoded in
+ * UTF-8 in an internal byte buffer (or copied in a char buffer when a {@link Writer} is used) which is flushed when it
+ * is full, at the end of the document and when the root element is closed. Text is written as is (it is escaped by
+ * the converter), attribute values are escaped. The attribute values referenced by the
+ * {@link IAttributeValueStreamer} of the handler are written by chunks.
+ */
 public class SimpleContentHandler
     extends DefaultHandler
 {
 
+    private static final int BUFFER_SIZE = 8192;
+
     private final OutputStream out;
 
     private final Writer writer;
@@ -50,7 +59,20 @@ public class SimpleContentHandler
 
     private boolean firstElement;
 
-    
+    private final char[] chars;
+
+    private final byte[] bytes;
+
+    private int position;
+
+    private char highSurrogate;
+
+    private String[] indents;
+
+    private IAttributeValueStreamer attributeValueStreamer;
+
+    private Writer attributeValueWriter;
+
     public SimpleContentHandler( OutputStream out )
     {
         this( out, null );
@@ -78,6 +100,9 @@ public class SimpleContentHandler
         this.currentCharacters = new StringBuilder();
         this.indent = indent;
         this.firstElement = true;
+        this.chars = out == null ? new char[BUFFER_SIZE] : null;
+        this.bytes = out != null ? new byte[BUFFER_SIZE] : null;
+        this.indents = new String[0];
     }
 
     @Override
@@ -86,7 +111,7 @@ public class SimpleContentHandler
     {        
         if ( startingElement )
         {
-            write( ">" );
+            write( '>' );
         }
         if ( currentCharacters.length() > 0 )
         {
@@ -95,22 +120,27 @@ public class SimpleContentHandler
         }
 
         doIndentIfNeeded();
-        write( "<" );
+        write( '<' );
         write( localName );
         int length = attributes.getLength();
         if ( length > 0 )
         {
-            String attrName = null;
-            String attrValue = null;
             for ( int i = 0; i < length; i++ )
             {
-                attrName = attributes.getLocalName( i );
-                attrValue = attributes.getValue( i );
-                write( " " );
-                write( attrName );
-                write( "=\"" );
-                write( attrValue );
-                write( "\"" );
+                write( ' ' );
+                write( attributes.getLocalName( i ) );
+                write( '=' );
+                write( '"' );
+                String value = attributes.getValue( i );
+                if ( attributeValueStreamer != null && attributeValueStreamer.isStreamed( value ) )
+                {
+                    streamAttributeValue( value );
+                }
+                else
+                {
+                    writeAttributeValue( value );
+                }
+                write( '"' );
             }
         }
         startingElement = true;
@@ -123,15 +153,29 @@ public class SimpleContentHandler
         if (indent == null || firstElement) {
             return;
         }
-        StringBuilder content = new StringBuilder("\n");
-        for ( int i = 0; i < nbElements; i++ )
+        write( getIndent( nbElements ) );
+    }
+
+    private String getIndent( int level )
+    {
+        if ( level >= indents.length )
         {
-            for ( int j = 0; j < indent; j++ )
+            String[] newIndents = new String[Math.max( level + 1, indents.length * 2 )];
+            System.arraycopy( indents, 0, newIndents, 0, indents.length );
+            indents = newIndents;
+        }
+        String content = indents[level];
+        if ( content == null )
+        {
+            StringBuilder newContent = new StringBuilder( "\n" );
+            for ( int i = 0; i < level * indent; i++ )
             {
-                content.append( ' ' );
-            }            
+                newContent.append( ' ' );
+            }
+            content = newContent.toString();
+            indents[level] = content;
         }
-        write(content.toString());
+        return content;
     }
 
     @Override
@@ -148,16 +192,23 @@ public class SimpleContentHandler
         // Start of end element
         if ( startingElement )
         {
-            write( "/>" );
+            write( '/' );
+            write( '>' );
             startingElement = false;
         }
         else
         {
             doIndentIfNeeded();
-            write( "</" );
+            write( '<' );
+            write( '/' );
             write( localName );
-            write( ">" );
-        }        
+            write( '>' );
+        }
+        if ( nbElements == 0 )
+        {
+            // end of the root element (or of a root element of a fragment)
+            flushBuffer();
+        }
     }
 
     @Override
@@ -166,41 +217,31 @@ public class SimpleContentHandler
     {
         if ( startingElement )
         {
-            write( ">" );
+            write( '>' );
         }
         startingElement = false;
-        char c;
-        for ( int i = start; i < start + length; i++ )
-        {
-            c = ch[i];
-            // if ( mustEncodeCharachers() )
-            // {
-            // if ( c == '<' )
-            // {
-            // currentCharacters.append( LT );
-            // }
-            // else if ( c == '>' )
-            // {
-            // currentCharacters.append( GT );
-            // }
-            // else if ( c == '\'' )
-            // {
-            // currentCharacters.append( APOS );
-            // }
-            // else if ( c == '&' )
-            // {
-            // currentCharacters.append( AMP );
-            // }
-            // else
-            // {
-            // currentCharacters.append( c );
-            // }
-            // }
-            // else
-            // {
-            currentCharacters.append( c );
-            // }
+        currentCharacters.append( ch, start, length );
+    }
 
+    @Override
+    public void endDocument()
+        throws SAXException
+    {
+        flushBuffer();
+        try
+        {
+            if ( out != null )
+            {
+                out.flush();
+            }
+            else
+            {
+                writer.flush();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new SAXException( e );
         }
     }
 
@@ -222,17 +263,237 @@ public class SimpleContentHandler
 
     private void write( String content )
         throws SAXException
+    {
+        int length = content.length();
+        if ( chars != null )
+        {
+            int start = 0;
+            while ( start < length )
+            {
+                if ( position == BUFFER_SIZE )
+                {
+                    flushBuffer();
+                }
+                int end = Math.min( length, start + BUFFER_SIZE - position );
+                content.getChars( start, end, chars, position );
+                position += end - start;
+                start = end;
+            }
+            return;
+        }
+        int i = 0;
+        while ( i < length )
+        {
+            if ( highSurrogate == 0 )
+            {
+                // ASCII fast path
+                byte[] bytes = this.bytes;
+                int position = this.position;
+                int end = Math.min( length, i + BUFFER_SIZE - position );
+                char c;
+                while ( i < end && ( c = content.charAt( i ) ) < 0x80 )
+                {
+                    bytes[position++] = (byte) c;
+                    i++;
+                }
+                this.position = position;
+                if ( i == length )
+                {
+                    return;
+                }
+            }
+            encode( content.charAt( i++ ) );
+        }
+    }
+
+    private void write( char c )
+        throws SAXException
+    {
+        if ( chars != null )
+        {
+            if ( position == BUFFER_SIZE )
+            {
+                flushBuffer();
+            }
+            chars[position++] = c;
+        }
+        else
+        {
+            encode( c );
+        }
+    }
+
+    /**
+     * Encode the given char in UTF-8 in the byte buffer.
+     * 
+     * @param c
+     * @throws SAXException
+     */
+    private void encode( char c )
+        throws SAXException
+    {
+        if ( position > BUFFER_SIZE - 4 )
+        {
+            flushBuffer();
+        }
+        if ( highSurrogate != 0 )
+        {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if ( Character.isLowSurrogate( c ) )
+            {
+                int codePoint = Character.toCodePoint( high, c );
+                bytes[position++] = (byte) ( 0xF0 | ( codePoint >> 18 ) );
+                bytes[position++] = (byte) ( 0x80 | ( ( codePoint >> 12 ) & 0x3F ) );
+                bytes[position++] = (byte) ( 0x80 | ( ( codePoint >> 6 ) & 0x3F ) );
+                bytes[position++] = (byte) ( 0x80 | ( codePoint & 0x3F ) );
+                return;
+            }
+            // malformed surrogate
+            bytes[position++] = '?';
+        }
+        if ( c < 0x80 )
+        {
+            bytes[position++] = (byte) c;
+        }
+        else if ( c < 0x800 )
+        {
+            bytes[position++] = (byte) ( 0xC0 | ( c >> 6 ) );
+            bytes[position++] = (byte) ( 0x80 | ( c & 0x3F ) );
+        }
+        else if ( Character.isHighSurrogate( c ) )
+        {
+            // wait for the low surrogate
+            highSurrogate = c;
+        }
+        else if ( Character.isLowSurrogate( c ) )
+        {
+            // malformed surrogate
+            bytes[position++] = '?';
+        }
+        else
+        {
+            bytes[position++] = (byte) ( 0xE0 | ( c >> 12 ) );
+            bytes[position++] = (byte) ( 0x80 | ( ( c >> 6 ) & 0x3F ) );
+            bytes[position++] = (byte) ( 0x80 | ( c & 0x3F ) );
+        }
+    }
+
+    private void writeAttributeValue( String value )
+        throws SAXException
+    {
+        int length = value.length();
+        int i = 0;
+        while ( i < length && !mustEscape( value.charAt( i ) ) )
+        {
+            i++;
+        }
+        if ( i == length )
+        {
+            write( value );
+            return;
+        }
+        write( value.substring( 0, i ) );
+        for ( ; i < length; i++ )
+        {
+            writeEscaped( value.charAt( i ) );
+        }
+    }
+
+    private void writeAttributeValue( char[] value, int start, int length )
+        throws SAXException
+    {
+        for ( int i = start; i < start + length; i++ )
+        {
+            writeEscaped( value[i] );
+        }
+    }
+
+    private void writeEscaped( char c )
+        throws SAXException
+    {
+        switch ( c )
+        {
+            case '&':
+                write( "&amp;" );
+                break;
+            case '<':
+                write( "&lt;" );
+                break;
+            case '"':
+                write( "&quot;" );
+                break;
+            default:
+                write( c );
+        }
+    }
+
+    /**
+     * Write by chunks with the attribute value streamer the value referenced by the given attribute value.
+     * 
+     * @param value
+     * @throws SAXException
+     */
+    private void streamAttributeValue( String value )
+        throws SAXException
+    {
+        if ( attributeValueWriter == null )
+        {
+            attributeValueWriter = new AttributeValueWriter();
+        }
+        try
+        {
+            attributeValueStreamer.stream( value, attributeValueWriter );
+        }
+        catch ( IOException e )
+        {
+            if ( e.getCause() instanceof SAXException )
+            {
+                throw (SAXException) e.getCause();
+            }
+            throw new SAXException( e );
+        }
+    }
+
+    /**
+     * Set the streamer of the attribute values which must be written by chunks (ex : base64 data URI of the images).
+     * 
+     * @param attributeValueStreamer the streamer and null if attribute values are written as is.
+     */
+    public void setAttributeValueStreamer( IAttributeValueStreamer attributeValueStreamer )
+    {
+        this.attributeValueStreamer = attributeValueStreamer;
+    }
+
+    public IAttributeValueStreamer getAttributeValueStreamer()
+    {
+        return attributeValueStreamer;
+    }
+
+    private static boolean mustEscape( char c )
+    {
+        return c == '&' || c == '<' || c == '"';
+    }
+
+    /**
+     * Write the buffer to the output stream or to the writer.
+     * 
+     * @throws SAXException
+     */
+    private void flushBuffer()
+        throws SAXException
     {
         try
         {
             if ( out != null )
             {
-                out.write( content.getBytes() );
+                out.write( bytes, 0, position );
             }
             else
             {
-                writer.write( content );
+                writer.write( chars, 0, position );
             }
+            position = 0;
         }
         catch ( IOException e )
         {
@@ -240,4 +501,38 @@ public class SimpleContentHandler
         }
     }
 
+    /**
+     * {@link Writer} given to the attribute value streamer, which escapes the chars in the buffer of the handler.
+     */
+    private class AttributeValueWriter
+        extends Writer
+    {
+
+        @Override
+        public void write( char[] cbuf, int off, int len )
+            throws IOException
+        {
+            try
+            {
+                writeAttributeValue( cbuf, off, len );
+            }
+            catch ( SAXException e )
+            {
+                throw new IOException( e );
+            }
+        }
+
+        @Override
+        public void flush()
+        {
+            // the buffer is flushed by the handler
+        }
+
+        @Override
+        public void close()
+        {
+            // the buffer is flushed by the handler
+        }
+    }
+
 }
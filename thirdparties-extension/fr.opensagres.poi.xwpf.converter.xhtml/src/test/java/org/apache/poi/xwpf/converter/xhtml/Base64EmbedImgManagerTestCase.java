@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.apache.poi.xwpf.converter.xhtml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.apache.poi.xwpf.converter.core.AbstractXWPFPOIConverterTest;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.junit.Test;
+
+import fr.opensagres.poi.xwpf.converter.xhtml.Base64EmbedImgManager;
+import fr.opensagres.poi.xwpf.converter.xhtml.SimpleContentHandler;
+import fr.opensagres.poi.xwpf.converter.xhtml.XHTMLConverter;
+import fr.opensagres.poi.xwpf.converter.xhtml.XHTMLOptions;
+import fr.opensagres.poi.xwpf.converter.xhtml.internal.utils.SAXHelper;
+import fr.opensagres.xdocreport.core.utils.Base64Utility;
+
+public class Base64EmbedImgManagerTestCase
+{
+
+    @Test
+    public void dataURI()
+        throws Exception
+    {
+        Base64EmbedImgManager manager = new Base64EmbedImgManager();
+        for ( int length = 0; length < 10; length++ )
+        {
+            byte[] picture = createPicture( length, 1 );
+            manager.extract( "word/media/image1.png", picture );
+            assertEquals( "data:image/png;base64," + ( length > 0 ? Base64Utility.encode( picture ) : "" ),
+                          manager.resolve( "word/media/image1.png" ) );
+        }
+    }
+
+    @Test
+    public void reuseDataURIOfSameImage()
+        throws Exception
+    {
+        Base64EmbedImgManager manager = new Base64EmbedImgManager();
+        manager.extract( "word/media/image1.png", createPicture( 1000, 1 ) );
+        String logo = manager.resolve( "word/media/image1.png" );
+        manager.extract( "word/media/image2.png", createPicture( 1000, 2 ) );
+        String photo = manager.resolve( "word/media/image2.png" );
+        assertNotSame( logo, photo );
+        // same content (a copy of the bytes is given by POI for each occurrence)
+        manager.extract( "word/media/image1.png", createPicture( 1000, 1 ) );
+        assertSame( logo, manager.resolve( "word/media/image1.png" ) );
+
+        manager.setMaxCachedBytes( 0 );
+        manager.extract( "word/media/image1.png", createPicture( 1000, 1 ) );
+        String logo2 = manager.resolve( "word/media/image1.png" );
+        assertEquals( logo, logo2 );
+        assertNotSame( logo, logo2 );
+    }
+
+    @Test
+    public void boundCachedDataURIBySize()
+        throws Exception
+    {
+        Base64EmbedImgManager manager = new Base64EmbedImgManager();
+        // data URI of 22 + 1336 chars
+        manager.setMaxCachedBytes( 3000 );
+        manager.extract( "word/media/image1.png", createPicture( 1000, 1 ) );
+        String logo = manager.resolve( "word/media/image1.png" );
+        manager.extract( "word/media/image2.png", createPicture( 1000, 2 ) );
+        manager.resolve( "word/media/image2.png" );
+        assertEquals( 2, manager.getDataURIs().size() );
+        assertEquals( 2 * logo.length(), manager.getDataURIs().getWeight() );
+
+        // the least recently used image is evicted
+        manager.extract( "word/media/image3.png", createPicture( 1000, 3 ) );
+        manager.resolve( "word/media/image3.png" );
+        assertEquals( 2, manager.getDataURIs().size() );
+        assertEquals( 1, manager.getDataURIs().getEvictionCount() );
+        manager.extract( "word/media/image1.png", createPicture( 1000, 1 ) );
+        assertNotSame( logo, manager.resolve( "word/media/image1.png" ) );
+
+        // an image bigger than the cache is not kept
+        manager.extract( "word/media/image4.png", createPicture( 3000, 4 ) );
+        manager.resolve( "word/media/image4.png" );
+        assertEquals( 2, manager.getDataURIs().size() );
+        assertTrue( manager.getDataURIs().getWeight() <= manager.getMaxCachedBytes() );
+    }
+
+    @Test
+    public void streamDataURI()
+        throws Exception
+    {
+        Base64EmbedImgManager manager = new Base64EmbedImgManager();
+        manager.setStreaming( true );
+        for ( int length : new int[] { 0, 1, 2, 3, 3 * 1024, 3 * 1024 + 1, 100000 } )
+        {
+            byte[] picture = createPicture( length, 1 );
+            manager.extract( "word/media/image1.png", picture );
+            String src = manager.resolve( "word/media/image1.png" );
+            assertTrue( manager.isStreamed( src ) );
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SimpleContentHandler contentHandler = new SimpleContentHandler( out );
+            contentHandler.setAttributeValueStreamer( manager );
+            contentHandler.startElement( "", "img", "img", SAXHelper.addAttrValue( null, "src", src ) );
+            contentHandler.endElement( "", "img", "img" );
+            contentHandler.endDocument();
+            assertEquals( "<img src=\"data:image/png;base64," + ( length > 0 ? Base64Utility.encode( picture ) : "" )
+                + "\"/>", out.toString( "UTF-8" ) );
+        }
+        assertEquals( 0, manager.getDataURIs().size() );
+    }
+
+    @Test
+    public void streamingConversion()
+        throws Exception
+    {
+        String html = convert( "DocxStructures.docx", false );
+        assertTrue( html.contains( "src=\"data:image/png;base64," ) );
+        assertEquals( html, convert( "DocxStructures.docx", true ) );
+    }
+
+    private static String convert( String fileInName, boolean streaming )
+        throws Exception
+    {
+        XWPFDocument document =
+            new XWPFDocument( AbstractXWPFPOIConverterTest.class.getResourceAsStream( fileInName ) );
+        Base64EmbedImgManager manager = new Base64EmbedImgManager();
+        manager.setStreaming( streaming );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XHTMLConverter.getInstance().convert( document, out, XHTMLOptions.create().setImageManager( manager ) );
+        return out.toString( "UTF-8" );
+    }
+
+    private static byte[] createPicture( int length, int seed )
+    {
+        byte[] picture = new byte[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            picture[i] = (byte) ( i * 31 + seed );
+        }
+        return picture;
+    }
+}
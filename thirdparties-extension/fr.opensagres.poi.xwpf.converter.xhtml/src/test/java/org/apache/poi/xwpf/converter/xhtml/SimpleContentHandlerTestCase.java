@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package org.apache.poi.xwpf.converter.xhtml;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import org.junit.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import fr.opensagres.poi.xwpf.converter.xhtml.SimpleContentHandler;
+
+public class SimpleContentHandlerTestCase
+{
+
+    @Test
+    public void escapeAttributes()
+        throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        ContentHandler handler = new SimpleContentHandler( writer );
+        AttributesImpl attributes = new AttributesImpl();
+        attributes.addAttribute( "", "title", "title", "CDATA", "a \"b\" & <c>" );
+        attributes.addAttribute( "", "class", "class", "CDATA", "p1" );
+        handler.startElement( "", "p", "p", attributes );
+        handler.characters( "a &amp; b".toCharArray(), 0, 9 );
+        handler.endElement( "", "p", "p" );
+        assertEquals( "<p title=\"a &quot;b&quot; &amp; &lt;c>\" class=\"p1\">a &amp; b</p>", writer.toString() );
+    }
+
+    @Test
+    public void indent()
+        throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        ContentHandler handler = new SimpleContentHandler( writer, 2 );
+        handler.startElement( "", "html", "html", new AttributesImpl() );
+        handler.startElement( "", "body", "body", new AttributesImpl() );
+        handler.startElement( "", "p", "p", new AttributesImpl() );
+        handler.endElement( "", "p", "p" );
+        handler.endElement( "", "body", "body" );
+        handler.endElement( "", "html", "html" );
+        assertEquals( "<html>\n  <body>\n    <p/>\n  </body>\n</html>", writer.toString() );
+    }
+
+    @Test
+    public void utf8()
+        throws Exception
+    {
+        String text = "café 中文 😀";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ContentHandler handler = new SimpleContentHandler( out );
+        handler.startDocument();
+        handler.startElement( "", "p", "p", new AttributesImpl() );
+        handler.characters( text.toCharArray(), 0, text.length() );
+        handler.endElement( "", "p", "p" );
+        handler.endDocument();
+        assertEquals( "<p>" + text + "</p>", out.toString( "UTF-8" ) );
+    }
+
+    @Test
+    public void largeContent()
+        throws Exception
+    {
+        StringBuilder text = new StringBuilder();
+        for ( int i = 0; i < 5000; i++ )
+        {
+            text.append( "é中😀" );
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StringWriter writer = new StringWriter();
+        generate( new SimpleContentHandler( out ), text.toString() );
+        generate( new SimpleContentHandler( writer ), text.toString() );
+        String expected = "<div><p>" + text + "</p><p>" + text + "</p></div>";
+        assertEquals( expected, out.toString( "UTF-8" ) );
+        assertEquals( expected, writer.toString() );
+    }
+
+    private static void generate( ContentHandler handler, String text )
+        throws SAXException
+    {
+        handler.startElement( "", "div", "div", new AttributesImpl() );
+        for ( int i = 0; i < 2; i++ )
+        {
+            handler.startElement( "", "p", "p", new AttributesImpl() );
+            handler.characters( text.toCharArray(), 0, text.length() );
+            handler.endElement( "", "p", "p" );
+        }
+        handler.endElement( "", "div", "div" );
+    }
+}
@@ -38,6 +38,8 @@ public class ExtendedHeaderFooter
 
     private IMasterPage masterPage;
 
+    private int pageCount;
+
     public ExtendedHeaderFooter( ExtendedDocument document )
     {
         this.document = document;
@@ -95,6 +97,36 @@ public class ExtendedHeaderFooter
         return document.getPageSize().getHeight() - document.getOriginMarginTop();
     }
 
+    /**
+     * Creates the PDF templates of the total page count chunks added before the writer was opened.
+     * 
+     * @see com.lowagie.text.pdf.PdfPageEventHelper#onOpenDocument(com.lowagie.text.pdf.PdfWriter,
+     *      com.lowagie.text.Document)
+     */
+    @Override
+    public void onOpenDocument( PdfWriter writer, Document doc )
+    {
+        document.createTotalPageCountTemplates();
+    }
+
+    @Override
+    public void onEndPage( PdfWriter writer, Document doc )
+    {
+        pageCount++;
+    }
+
+    /**
+     * Fills the total page count templates once all pages are written.
+     * 
+     * @see com.lowagie.text.pdf.PdfPageEventHelper#onCloseDocument(com.lowagie.text.pdf.PdfWriter,
+     *      com.lowagie.text.Document)
+     */
+    @Override
+    public void onCloseDocument( PdfWriter writer, Document doc )
+    {
+        document.writeTotalPageCount( pageCount );
+    }
+
     public void setMasterPage( IMasterPage masterPage )
     {
         IMasterPageHeaderFooter header = masterPage.getHeader();
@@ -25,19 +25,32 @@
 package fr.opensagres.xdocreport.itext.extension;
 
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Chunk;
 import com.itextpdf.text.Document;
 import com.itextpdf.text.DocumentException;
 import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Image;
+import com.itextpdf.text.pdf.BaseFont;
 import com.itextpdf.text.pdf.PdfAWriter;
+import com.itextpdf.text.pdf.PdfTemplate;
 import com.itextpdf.text.pdf.PdfWriter;
 
 public class ExtendedDocument
     extends Document
     implements IITextContainer
 {
+    /**
+     * Text used to compute the initial width of the total page count templates.
+     */
+    private static final String TOTAL_PAGE_COUNT_PLACEHOLDER = "999";
+
     private Map<String, IMasterPage> masterPagesCache = new HashMap<String, IMasterPage>();
 
     private IMasterPage defaultMasterPage;
@@ -56,6 +69,8 @@ public class ExtendedDocument
 
     private PageOrientation orientation = PageOrientation.Portrait;
 
+    private final List<TotalPageCountTemplate> totalPageCountTemplates = new ArrayList<TotalPageCountTemplate>();
+
     public ExtendedDocument( OutputStream out )
         throws DocumentException
     {
@@ -209,6 +224,63 @@ public class ExtendedDocument
 
     }
 
+    /**
+     * Create a chunk which displays the total page count of the document. The chunk draws a template which is filled
+     * when the document is closed, so that the document can be generated in one pass even if the page count is not
+     * known yet. The chunk can be created before the document is opened (ex : for a footer).
+     * 
+     * @param font the font used to display the page count.
+     * @return the chunk to add to the document (body, header or footer).
+     * @throws DocumentException
+     */
+    public Chunk createTotalPageCountChunk( Font font )
+        throws DocumentException
+    {
+        BaseFont baseFont = font.getCalculatedBaseFont( false );
+        float size = font.getCalculatedSize();
+        float ascent = baseFont.getFontDescriptor( BaseFont.ASCENT, size );
+        float descent = baseFont.getFontDescriptor( BaseFont.DESCENT, size );
+        float width = baseFont.getWidthPoint( TOTAL_PAGE_COUNT_PLACEHOLDER, size );
+        // the PDF template can only be created once the writer is opened, until then the chunk image refers to a
+        // placeholder with the same size.
+        Chunk chunk = new Chunk( Image.getInstance( new PlaceholderTemplate( width, ascent - descent ) ), 0, descent,
+                                 false );
+        TotalPageCountTemplate totalPageCountTemplate =
+            new TotalPageCountTemplate( chunk.getImage(), baseFont, size, font.getColor(), descent );
+        if ( isOpen() )
+        {
+            totalPageCountTemplate.create( writer );
+        }
+        totalPageCountTemplates.add( totalPageCountTemplate );
+        return chunk;
+    }
+
+    /**
+     * Create the PDF templates of the total page count chunks created before the document was opened.
+     */
+    void createTotalPageCountTemplates()
+    {
+        for ( TotalPageCountTemplate totalPageCountTemplate : totalPageCountTemplates )
+        {
+            totalPageCountTemplate.create( writer );
+        }
+    }
+
+    /**
+     * Write the total page count in the templates created with {@link #createTotalPageCountChunk(Font)}.
+     * 
+     * @param pageCount the total page count of the document.
+     */
+    void writeTotalPageCount( int pageCount )
+    {
+        String text = String.valueOf( pageCount );
+        for ( TotalPageCountTemplate totalPageCountTemplate : totalPageCountTemplates )
+        {
+            totalPageCountTemplate.write( text );
+        }
+        totalPageCountTemplates.clear();
+    }
+
     public PageOrientation getOrientation()
     {
         return orientation;
@@ -222,4 +294,68 @@ public class ExtendedDocument
         }
         this.orientation = orientation;
     }
+
+    private static class PlaceholderTemplate
+        extends PdfTemplate
+    {
+        public PlaceholderTemplate( float width, float height )
+        {
+            setWidth( width );
+            setHeight( height );
+        }
+    }
+
+    private static class TotalPageCountTemplate
+    {
+        private final Image image;
+
+        private PdfTemplate template;
+
+        private final BaseFont baseFont;
+
+        private final float size;
+
+        private final BaseColor color;
+
+        private final float descent;
+
+        public TotalPageCountTemplate( Image image, BaseFont baseFont, float size, BaseColor color, float descent )
+        {
+            this.image = image;
+            this.baseFont = baseFont;
+            this.size = size;
+            this.color = color;
+            this.descent = descent;
+        }
+
+        public void create( PdfWriter writer )
+        {
+            if ( template == null )
+            {
+                template = PdfTemplate.createTemplate( writer, image.getWidth(), image.getHeight() );
+                image.setTemplateData( template );
+            }
+        }
+
+        public void write( String text )
+        {
+            if ( template == null )
+            {
+                // the document was never opened
+                return;
+            }
+            // the chunk was laid out with the placeholder width, widen the template if the page count doesn't fit
+            // into it to avoid clipping the text.
+            template.setWidth( Math.max( template.getWidth(), baseFont.getWidthPoint( text, size ) ) );
+            template.beginText();
+            if ( color != null )
+            {
+                template.setColorFill( color );
+            }
+            template.setFontAndSize( baseFont, size );
+            template.setTextMatrix( 0, -descent );
+            template.showText( text );
+            template.endText();
+        }
+    }
 }
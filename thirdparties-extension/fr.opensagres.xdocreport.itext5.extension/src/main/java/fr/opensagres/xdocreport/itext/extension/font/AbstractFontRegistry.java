@@ -24,6 +24,11 @@
  */
 package fr.opensagres.xdocreport.itext.extension.font;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import com.itextpdf.text.BaseColor;
 import com.itextpdf.text.ExceptionConverter;
 import com.itextpdf.text.Font;
@@ -39,38 +44,128 @@ public abstract class AbstractFontRegistry
 
     private String systemEncoding;
 
-    private static boolean fontRegistryInitialized = false;
+    private static volatile boolean fontRegistryInitialized = false;
+
+    private static final int MAX_CACHED_FONTS = 1000;
+
+    private final ConcurrentMap<FontKey, Font> fonts = new ConcurrentHashMap<FontKey, Font>();
+
+    /**
+     * File of the index of the system fonts, null by default : the index is opt-in because a file at a well-known
+     * location of a shared directory (ex : the temporary directory) could be replaced by another user.
+     */
+    private static volatile File fontIndexFile = null;
 
     public Font getFont( String familyName, String encoding, float size, int style, BaseColor color )
     {
         initFontRegistryIfNeeded();
+        FontKey key = new FontKey( familyName, encoding, size, style, color );
+        Font font = fonts.get( key );
+        if ( font == null )
+        {
+            font = createFont( familyName, encoding, size, style, color );
+            if ( fonts.size() >= MAX_CACHED_FONTS )
+            {
+                fonts.clear();
+            }
+            fonts.putIfAbsent( key, font );
+        }
+        // Font is mutable (setColor, setStyle...), returns a copy which shares the BaseFont of the cached font.
+        return new Font( font );
+    }
+
+    /**
+     * Create the iText font. Fonts are cached by {@link #getFont(String, String, float, int, BaseColor)}, so this method
+     * is called once for a given family name, encoding, size, style and color.
+     */
+    protected Font createFont( String familyName, String encoding, float size, int style, BaseColor color )
+    {
         if ( familyName != null )
         {
             familyName = resolveFamilyName( familyName, style );
         }
         try
         {
-        	
             return FontFactory.getFont( familyName, encoding, size, style, color );
         }
         catch ( ExceptionConverter e )
         {
             // TODO manage options of font not found + add some logs
-        	
-        	return new Font( FontFamily.UNDEFINED, size, style, color );
+            return new Font( FontFamily.UNDEFINED, size, style, color );
         }
     }
 
+    /**
+     * Remove the cached fonts, for instance when fonts are registered in the iText FontFactory after the first
+     * conversion.
+     */
+    public void clearFontCache()
+    {
+        fonts.clear();
+    }
+
     private void initFontRegistryIfNeeded()
     {
         if ( !fontRegistryInitialized )
         {
-            // clear built-in fonts which may clash with document fonts
-            ExtendedBaseFont.clearBuiltinFonts();
+            initFontRegistry();
+        }
+    }
+
+    /**
+     * Register the fonts of the system in the iText {@link FontFactory}. This method is called by the first PDF
+     * conversion, but it can be called at startup to avoid slowing down the first conversion. Fonts are retrieved from
+     * the font index file (see {@link #setFontIndexFile(File)}) if it is up to date, otherwise the font directories are
+     * scanned and the index file is updated.
+     */
+    public static synchronized void initFontRegistry()
+    {
+        if ( fontRegistryInitialized )
+        {
+            return;
+        }
+        // clear built-in fonts which may clash with document fonts
+        ExtendedBaseFont.clearBuiltinFonts();
+        FontIndex index = FontIndex.load( fontIndexFile );
+        if ( index == null )
+        {
             // register fonts from files (ex : for windows, load files from C:\WINDOWS\Fonts)
+            index = FontIndex.build();
+            if ( index != null && fontIndexFile != null )
+            {
+                try
+                {
+                    index.save( fontIndexFile );
+                }
+                catch ( IOException e )
+                {
+                    // the index cannot be saved, it will be built again by the next JVM.
+                }
+            }
+        }
+        if ( index == null || !index.registerFonts( FontFactory.getFontImp() ) )
+        {
             FontFactory.registerDirectories();
-            fontRegistryInitialized = true;
         }
+        fontRegistryInitialized = true;
+    }
+
+    /**
+     * Set the file used to save the index of the system fonts (none by default). The index drives the font files loaded
+     * by the conversions, so the file must be in a directory which is writable only by the user of the JVM (ex : a
+     * cache directory in the user home, not the temporary directory which is shared). A created directory is readable
+     * and writable only by its owner. This method must be called before the font registry is initialized.
+     * 
+     * @param file the font index file or null to scan the font directories each time the JVM starts.
+     */
+    public static synchronized void setFontIndexFile( File file )
+    {
+        fontIndexFile = file;
+    }
+
+    public static File getFontIndexFile()
+    {
+        return fontIndexFile;
     }
 
     public static class ExtendedBaseFont
@@ -174,4 +269,62 @@ public abstract class AbstractFontRegistry
     }
 
     protected abstract String resolveFamilyName( String familyName, int style );
+
+    private static final class FontKey
+    {
+        private final String familyName;
+
+        private final String encoding;
+
+        private final float size;
+
+        private final int style;
+
+        private final BaseColor color;
+
+        private final int hashCode;
+
+        FontKey( String familyName, String encoding, float size, int style, BaseColor color )
+        {
+            this.familyName = familyName;
+            this.encoding = encoding;
+            this.size = size;
+            this.style = style;
+            this.color = color;
+            int hash = familyName != null ? familyName.hashCode() : 0;
+            hash = 31 * hash + ( encoding != null ? encoding.hashCode() : 0 );
+            hash = 31 * hash + Float.floatToIntBits( size );
+            hash = 31 * hash + style;
+            hash = 31 * hash + ( color != null ? color.hashCode() : 0 );
+            this.hashCode = hash;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals( Object obj )
+        {
+            if ( this == obj )
+            {
+                return true;
+            }
+            if ( !( obj instanceof FontKey ) )
+            {
+                return false;
+            }
+            FontKey other = (FontKey) obj;
+            return hashCode == other.hashCode && Float.floatToIntBits( size ) == Float.floatToIntBits( other.size )
+                && style == other.style && equals( familyName, other.familyName )
+                && equals( encoding, other.encoding ) && equals( color, other.color );
+        }
+
+        private static boolean equals( Object o1, Object o2 )
+        {
+            return o1 == null ? o2 == null : o1.equals( o2 );
+        }
+    }
 }
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.itext.extension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.PRStream;
+import com.itextpdf.text.pdf.PdfDictionary;
+import com.itextpdf.text.pdf.PdfName;
+import com.itextpdf.text.pdf.PdfReader;
+
+public class ExtendedTotalPageCountTestCase
+    extends TestCase
+{
+
+    public void testTotalPageCountInFooter()
+        throws DocumentException, IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExtendedDocument document = new ExtendedDocument( out );
+
+        // Footer "Page count: <total page count>"
+        MasterPageHeaderFooter footer = new MasterPageHeaderFooter();
+        ExtendedParagraph footerParagraph = new ExtendedParagraph();
+        footerParagraph.add( "Page count: " );
+        footerParagraph.addElement( document.createTotalPageCountChunk( new Font() ) );
+        footer.getTableCell().addElement( footerParagraph );
+        footer.flush();
+        MasterPage masterPage = new MasterPage( "MP" );
+        masterPage.setFooter( footer );
+        document.addMasterPage( masterPage );
+
+        for ( int i = 1; i <= 3; i++ )
+        {
+            if ( i > 1 )
+            {
+                document.newPage();
+            }
+            document.add( new Paragraph( "My Body " + i ) );
+        }
+        document.close();
+
+        PdfReader reader = new PdfReader( out.toByteArray() );
+        assertEquals( 3, reader.getNumberOfPages() );
+        for ( int i = 1; i <= reader.getNumberOfPages(); i++ )
+        {
+            assertEquals( "(3)Tj", getTemplateText( reader, i ) );
+        }
+    }
+
+    private static String getTemplateText( PdfReader reader, int pageNumber )
+        throws IOException
+    {
+        PdfDictionary xObjects = reader.getPageN( pageNumber ).getAsDict( PdfName.RESOURCES ).getAsDict( PdfName.XOBJECT );
+        assertNotNull( xObjects );
+        assertEquals( 1, xObjects.size() );
+        PdfName name = (PdfName) xObjects.getKeys().iterator().next();
+        PRStream template = (PRStream) PdfReader.getPdfObject( xObjects.get( name ) );
+        String content = new String( PdfReader.getStreamBytes( template ), "ISO-8859-1" );
+        int start = content.indexOf( '(' );
+        int end = content.indexOf( "Tj" );
+        return content.substring( start, end + 2 ).replace( " ", "" );
+    }
+}
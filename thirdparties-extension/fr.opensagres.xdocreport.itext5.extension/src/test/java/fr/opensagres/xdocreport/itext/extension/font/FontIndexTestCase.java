@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.itext.extension.font;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import com.itextpdf.text.FontFactoryImp;
+
+public class FontIndexTestCase
+    extends TestCase
+{
+
+    /**
+     * Minimal TrueType font (family "XDocReport Test") bundled to not depend on the fonts of the system.
+     */
+    private static final String FONT_RESOURCE = "XDocReportTest.ttf";
+
+    private File dir;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        dir = File.createTempFile( "fontindex", "" );
+        dir.delete();
+        dir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        delete( dir );
+    }
+
+    public void testSaveAndLoad()
+        throws Exception
+    {
+        // the index file must not be saved in a scanned directory
+        File fontsDir = new File( dir, "fonts" );
+        fontsDir.mkdirs();
+        File fontFile = new File( fontsDir, FONT_RESOURCE );
+        copy( FontIndexTestCase.class.getResourceAsStream( FONT_RESOURCE ), fontFile );
+
+        FontIndex index = FontIndex.build( fontsDir.getPath() );
+        assertNotNull( index );
+        assertEquals( fontFile.getPath(), index.getFontPath( "XDocReport Test" ) );
+
+        File indexFile = new File( dir, "fonts.idx" );
+        index.save( indexFile );
+        FontIndex loaded = FontIndex.load( indexFile );
+        assertNotNull( loaded );
+        assertEquals( index.getFontCount(), loaded.getFontCount() );
+        assertEquals( fontFile.getPath(), loaded.getFontPath( "XDocReport Test" ) );
+
+        // fonts are registered without opening the font files
+        FontFactoryImp fontImp = new FontFactoryImp();
+        assertTrue( loaded.registerFonts( fontImp ) );
+        assertTrue( fontImp.isRegistered( "XDocReport Test" ) );
+        assertTrue( fontImp.getRegisteredFamilies().contains( "xdocreport test" ) );
+        assertNotNull( fontImp.getFont( "XDocReport Test", "Cp1252", 10 ).getBaseFont() );
+
+        // modified font file, the index must be built again
+        fontFile.setLastModified( fontFile.lastModified() - 10000 );
+        assertNull( FontIndex.load( indexFile ) );
+    }
+
+    public void testSaveInOwnerOnlyDirectory()
+        throws Exception
+    {
+        assertNull( "the font index must be opt-in", AbstractFontRegistry.getFontIndexFile() );
+
+        File fontsDir = new File( dir, "fonts" );
+        fontsDir.mkdirs();
+        File indexDir = new File( dir, "cache" );
+        File indexFile = new File( indexDir, "fonts.idx" );
+        FontIndex index = FontIndex.build( fontsDir.getPath() );
+        assertNotNull( index );
+        index.save( indexFile );
+        assertNotNull( FontIndex.load( indexFile ) );
+        if ( FileSystems.getDefault().supportedFileAttributeViews().contains( "posix" ) )
+        {
+            Set<PosixFilePermission> ownerOnly =
+                EnumSet.of( PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE,
+                            PosixFilePermission.OWNER_EXECUTE );
+            assertEquals( ownerOnly, Files.getPosixFilePermissions( indexDir.toPath() ) );
+            ownerOnly.remove( PosixFilePermission.OWNER_EXECUTE );
+            assertEquals( ownerOnly, Files.getPosixFilePermissions( indexFile.toPath() ) );
+        }
+    }
+
+    public void testLoadInvalidFile()
+        throws Exception
+    {
+        File indexFile = new File( dir, "fonts.idx" );
+        assertNull( FontIndex.load( indexFile ) );
+        OutputStream out = new FileOutputStream( indexFile );
+        out.write( "not an index".getBytes( "UTF-8" ) );
+        out.close();
+        assertNull( FontIndex.load( indexFile ) );
+
+        // corrupted timestamp (ex : hand-edited file), the fonts must be scanned again
+        out = new FileOutputStream( indexFile );
+        out.write( ( "#XDocReport font index 1\nT\tnot a number\t" + dir.getPath() + "\n" ).getBytes( "UTF-8" ) );
+        out.close();
+        assertNull( FontIndex.load( indexFile ) );
+    }
+
+    private static void delete( File file )
+    {
+        File[] files = file.listFiles();
+        if ( files != null )
+        {
+            for ( File child : files )
+            {
+                delete( child );
+            }
+        }
+        file.delete();
+    }
+
+    private static void copy( InputStream in, File to )
+        throws IOException
+    {
+        assertNotNull( in );
+        try
+        {
+            OutputStream out = new FileOutputStream( to );
+            try
+            {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ( ( n = in.read( buffer ) ) != -1 )
+                {
+                    out.write( buffer, 0, n );
+                }
+            }
+            finally
+            {
+                out.close();
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,430 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.openpdf.extension.font;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.lowagie.text.FontFactoryImp;
+
+/**
+ * Index of the fonts registered by {@link FontFactoryImp#registerDirectories()} (font name -&gt; font file path and
+ * family name -&gt; font names). Building the index requires to open every font file of the system, which is very
+ * slow, so the index can be saved in a file and loaded by the next JVM. A loaded index is used only if the scanned
+ * directories and the font files have not been modified since the index was built.
+ */
+public class FontIndex
+{
+
+    private static final String HEADER = "#XDocReport font index 1";
+
+    private static final String TIMESTAMP = "T";
+
+    private static final String FONT = "F";
+
+    private static final String FAMILY = "A";
+
+    private static final String TRUE_TYPE_FONTS_FIELD = "trueTypeFonts";
+
+    private static final String FONT_FAMILIES_FIELD = "fontFamilies";
+
+    private final Map<String, String> fonts;
+
+    private final Map<String, List<String>> families;
+
+    private final Map<String, Long> timestamps;
+
+    private FontIndex()
+    {
+        this.fonts = new LinkedHashMap<String, String>();
+        this.families = new LinkedHashMap<String, List<String>>();
+        this.timestamps = new LinkedHashMap<String, Long>();
+    }
+
+    /**
+     * Scan the given font directories (and their sub directories) or the font directories of the system like
+     * {@link FontFactoryImp#registerDirectories()} if none directory is given.
+     * 
+     * @param directories
+     * @return the built index or null if the registered fonts cannot be retrieved from the font factory.
+     */
+    public static FontIndex build( String... directories )
+    {
+        IndexerFontFactoryImp fontImp = new IndexerFontFactoryImp();
+        Map<?, ?> trueTypeFonts = getField( fontImp, TRUE_TYPE_FONTS_FIELD );
+        Map<?, ?> fontFamilies = getField( fontImp, FONT_FAMILIES_FIELD );
+        if ( trueTypeFonts == null || fontFamilies == null )
+        {
+            return null;
+        }
+        if ( directories.length == 0 )
+        {
+            fontImp.registerDirectories();
+        }
+        else
+        {
+            for ( String directory : directories )
+            {
+                fontImp.registerDirectory( directory, true );
+            }
+        }
+        FontIndex index = new FontIndex();
+        for ( Map.Entry<?, ?> entry : trueTypeFonts.entrySet() )
+        {
+            String path = (String) entry.getValue();
+            index.fonts.put( (String) entry.getKey(), path );
+            File file = new File( path );
+            if ( file.isFile() )
+            {
+                index.timestamps.put( file.getPath(), file.lastModified() );
+            }
+        }
+        for ( Map.Entry<?, ?> entry : fontFamilies.entrySet() )
+        {
+            List<String> names = new ArrayList<String>();
+            for ( Object name : (List<?>) entry.getValue() )
+            {
+                names.add( (String) name );
+            }
+            index.families.put( (String) entry.getKey(), names );
+        }
+        for ( String directory : fontImp.directories )
+        {
+            index.timestamps.put( directory, new File( directory ).lastModified() );
+        }
+        return index;
+    }
+
+    /**
+     * Load the index saved in the given file.
+     * 
+     * @param file
+     * @return the loaded index or null if the file doesn't exist, cannot be read, is corrupted or if the fonts have been
+     *         modified since the index was saved.
+     */
+    public static FontIndex load( File file )
+    {
+        if ( file == null || !file.isFile() )
+        {
+            return null;
+        }
+        try
+        {
+            Reader reader = new InputStreamReader( new FileInputStream( file ), "UTF-8" );
+            try
+            {
+                FontIndex index = read( new BufferedReader( reader ) );
+                return index != null && index.isUpToDate() ? index : null;
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+        catch ( NumberFormatException e )
+        {
+            // corrupted timestamp
+            return null;
+        }
+    }
+
+    private static FontIndex read( BufferedReader reader )
+        throws IOException
+    {
+        if ( !HEADER.equals( reader.readLine() ) )
+        {
+            return null;
+        }
+        FontIndex index = new FontIndex();
+        String line = null;
+        while ( ( line = reader.readLine() ) != null )
+        {
+            String[] tokens = line.split( "\t", -1 );
+            if ( TIMESTAMP.equals( tokens[0] ) && tokens.length == 3 )
+            {
+                index.timestamps.put( unescape( tokens[2] ), Long.valueOf( tokens[1] ) );
+            }
+            else if ( FONT.equals( tokens[0] ) && tokens.length == 3 )
+            {
+                index.fonts.put( unescape( tokens[1] ), unescape( tokens[2] ) );
+            }
+            else if ( FAMILY.equals( tokens[0] ) && tokens.length > 1 )
+            {
+                List<String> names = new ArrayList<String>();
+                for ( int i = 2; i < tokens.length; i++ )
+                {
+                    names.add( unescape( tokens[i] ) );
+                }
+                index.families.put( unescape( tokens[1] ), names );
+            }
+            else
+            {
+                return null;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Save the index in the given file. The index is written in a temporary file which replaces the given file, so
+     * another JVM never loads a partial index.
+     * 
+     * @param file
+     * @throws IOException
+     */
+    public void save( File file )
+        throws IOException
+    {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if ( dir != null && !dir.exists() && dir.mkdirs() )
+        {
+            setOwnerOnly( dir );
+            dir.setExecutable( false, false );
+            dir.setExecutable( true, true );
+        }
+        File tmpFile = File.createTempFile( file.getName(), ".tmp", dir );
+        try
+        {
+            setOwnerOnly( tmpFile );
+            Writer writer = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( tmpFile ), "UTF-8" ) );
+            try
+            {
+                write( writer );
+            }
+            finally
+            {
+                writer.close();
+            }
+            if ( !tmpFile.renameTo( file ) )
+            {
+                file.delete();
+                if ( !tmpFile.renameTo( file ) )
+                {
+                    throw new IOException( "Cannot save font index in " + file );
+                }
+            }
+        }
+        finally
+        {
+            tmpFile.delete();
+        }
+    }
+
+    private void write( Writer writer )
+        throws IOException
+    {
+        writer.write( HEADER );
+        writer.write( '\n' );
+        for ( Map.Entry<String, Long> entry : timestamps.entrySet() )
+        {
+            writer.write( TIMESTAMP + "\t" + entry.getValue() + "\t" + escape( entry.getKey() ) + "\n" );
+        }
+        for ( Map.Entry<String, String> entry : fonts.entrySet() )
+        {
+            writer.write( FONT + "\t" + escape( entry.getKey() ) + "\t" + escape( entry.getValue() ) + "\n" );
+        }
+        for ( Map.Entry<String, List<String>> entry : families.entrySet() )
+        {
+            writer.write( FAMILY + "\t" + escape( entry.getKey() ) );
+            for ( String name : entry.getValue() )
+            {
+                writer.write( "\t" + escape( name ) );
+            }
+            writer.write( '\n' );
+        }
+    }
+
+    /**
+     * Restrict the read and write permissions of the given file to its owner.
+     * 
+     * @param file
+     */
+    private static void setOwnerOnly( File file )
+    {
+        file.setReadable( false, false );
+        file.setReadable( true, true );
+        file.setWritable( false, false );
+        file.setWritable( true, true );
+    }
+
+    /**
+     * Returns true if the scanned directories and the font files have the same last modified date than when the index
+     * was built.
+     * 
+     * @return
+     */
+    public boolean isUpToDate()
+    {
+        for ( Map.Entry<String, Long> entry : timestamps.entrySet() )
+        {
+            if ( new File( entry.getKey() ).lastModified() != entry.getValue().longValue() )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Register the fonts of this index in the given font factory without opening the font files.
+     * 
+     * @param fontImp
+     * @return true if fonts was registered and false if the registered fonts of the font factory cannot be updated.
+     */
+    @SuppressWarnings( "unchecked" )
+    public boolean registerFonts( FontFactoryImp fontImp )
+    {
+        Map<Object, Object> trueTypeFonts = (Map<Object, Object>) getField( fontImp, TRUE_TYPE_FONTS_FIELD );
+        Map<Object, Object> fontFamilies = (Map<Object, Object>) getField( fontImp, FONT_FAMILIES_FIELD );
+        if ( trueTypeFonts == null || fontFamilies == null )
+        {
+            return false;
+        }
+        trueTypeFonts.putAll( fonts );
+        for ( Map.Entry<String, List<String>> entry : families.entrySet() )
+        {
+            fontFamilies.put( entry.getKey(), new ArrayList<String>( entry.getValue() ) );
+        }
+        return true;
+    }
+
+    public int getFontCount()
+    {
+        return fonts.size();
+    }
+
+    public String getFontPath( String fontName )
+    {
+        return fonts.get( fontName.toLowerCase() );
+    }
+
+    private static Map<?, ?> getField( FontFactoryImp fontImp, String name )
+    {
+        try
+        {
+            Field field = FontFactoryImp.class.getDeclaredField( name );
+            field.setAccessible( true );
+            return (Map<?, ?>) field.get( fontImp );
+        }
+        catch ( Exception e )
+        {
+            // the version of the font factory is not supported
+            return null;
+        }
+    }
+
+    private static String escape( String s )
+    {
+        StringBuilder escaped = new StringBuilder( s.length() );
+        for ( int i = 0; i < s.length(); i++ )
+        {
+            char c = s.charAt( i );
+            switch ( c )
+            {
+                case '\\':
+                    escaped.append( "\\\\" );
+                    break;
+                case '\t':
+                    escaped.append( "\\t" );
+                    break;
+                case '\n':
+                    escaped.append( "\\n" );
+                    break;
+                case '\r':
+                    escaped.append( "\\r" );
+                    break;
+                default:
+                    escaped.append( c );
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String unescape( String s )
+    {
+        if ( s.indexOf( '\\' ) == -1 )
+        {
+            return s;
+        }
+        StringBuilder unescaped = new StringBuilder( s.length() );
+        for ( int i = 0; i < s.length(); i++ )
+        {
+            char c = s.charAt( i );
+            if ( c == '\\' && i + 1 < s.length() )
+            {
+                c = s.charAt( ++i );
+                switch ( c )
+                {
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                }
+            }
+            unescaped.append( c );
+        }
+        return unescaped.toString();
+    }
+
+    /**
+     * Font factory which tracks the directories scanned by {@link #registerDirectories()}.
+     */
+    private static class IndexerFontFactoryImp
+        extends FontFactoryImp
+    {
+        private final Set<String> directories = new LinkedHashSet<String>();
+
+        @Override
+        public int registerDirectory( String dir, boolean scanSubdirectories )
+        {
+            directories.add( dir );
+            return super.registerDirectory( dir, scanSubdirectories );
+        }
+    }
+}
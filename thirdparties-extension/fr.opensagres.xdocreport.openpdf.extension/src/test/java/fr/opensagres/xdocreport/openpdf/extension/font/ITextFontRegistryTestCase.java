@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2011-2015 The XDocReport Team <xdocreport@googlegroups.com>
+ *
+ * All rights reserved.
+ *
+ * Permission is hereby granted, free  of charge, to any person obtaining
+ * a  copy  of this  software  and  associated  documentation files  (the
+ * "Software"), to  deal in  the Software without  restriction, including
+ * without limitation  the rights to  use, copy, modify,  merge, publish,
+ * distribute,  sublicense, and/or sell  copies of  the Software,  and to
+ * permit persons to whom the Software  is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The  above  copyright  notice  and  this permission  notice  shall  be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE  SOFTWARE IS  PROVIDED  "AS  IS", WITHOUT  WARRANTY  OF ANY  KIND,
+ * EXPRESS OR  IMPLIED, INCLUDING  BUT NOT LIMITED  TO THE  WARRANTIES OF
+ * MERCHANTABILITY,    FITNESS    FOR    A   PARTICULAR    PURPOSE    AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE,  ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package fr.opensagres.xdocreport.openpdf.extension.font;
+
+import java.awt.Color;
+
+import junit.framework.TestCase;
+
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+
+public class ITextFontRegistryTestCase
+    extends TestCase
+{
+
+    public void testCachedFont()
+    {
+        ITextFontRegistry registry = ITextFontRegistry.getRegistry();
+        Font font1 = registry.getFont( FontFactory.HELVETICA, FontFactory.defaultEncoding, 12, Font.BOLD, Color.RED );
+        Font font2 = registry.getFont( FontFactory.HELVETICA, FontFactory.defaultEncoding, 12, Font.BOLD, Color.RED );
+        assertNotSame( font1, font2 );
+        assertNotNull( font1.getBaseFont() );
+        assertSame( font1.getBaseFont(), font2.getBaseFont() );
+
+        // update of a returned font doesn't change the cached font
+        font1.setColor( Color.BLUE );
+        font1.setSize( 20 );
+        Font font3 = registry.getFont( FontFactory.HELVETICA, FontFactory.defaultEncoding, 12, Font.BOLD, Color.RED );
+        assertEquals( Color.RED, font3.getColor() );
+        assertEquals( 12f, font3.getSize() );
+        assertEquals( font2.getStyle(), font3.getStyle() );
+
+        Font font4 = registry.getFont( FontFactory.HELVETICA, FontFactory.defaultEncoding, 10, Font.BOLD, Color.RED );
+        assertEquals( 10f, font4.getSize() );
+    }
+}